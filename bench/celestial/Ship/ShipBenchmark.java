@@ -0,0 +1,78 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Ship AI queries. Sensor sweeps run every tick for every ship in a loaded
+ * system, and the universe trade search walks every station the trader's
+ * faction can see.
+ */
+package celestial.Ship;
+
+import engine.Entity;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import universe.BenchmarkUniverse;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ShipBenchmark {
+
+    private Ship sensorShip;
+    private Ship trader;
+
+    @Setup
+    public void setup() {
+        //the ship with the most contacts in the busiest system
+        ArrayList<Entity> ships = BenchmarkUniverse.getBusiestSystem().getShipList();
+        int best = -1;
+        for (int a = 0; a < ships.size(); a++) {
+            Ship tmp = (Ship) ships.get(a);
+            int contacts = tmp.getShipsInSensorRange().size();
+            if (tmp.getClass() == Ship.class && contacts > best) {
+                sensorShip = tmp;
+                best = contacts;
+            }
+        }
+        trader = BenchmarkUniverse.getShip(Ship.Behavior.UNIVERSE_TRADE);
+    }
+
+    @Benchmark
+    public ArrayList<Ship> getShipsInSensorRange() {
+        return sensorShip.getShipsInSensorRange();
+    }
+
+    @Benchmark
+    public boolean findUniverseTrade() {
+        return trader.findUniverseTrade();
+    }
+}
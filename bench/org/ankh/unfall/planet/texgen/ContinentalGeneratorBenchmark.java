@@ -0,0 +1,74 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Heightmap generation for a planet texture, set up the same way Planet
+ * does it but with a fixed seed so every run does the same work.
+ */
+package org.ankh.unfall.planet.texgen;
+
+import java.util.concurrent.TimeUnit;
+import org.ankh.unfall.planet.PlanetInformation;
+import org.ankh.unfall.planet.texgen.palette.ranges.EarthPalette;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ContinentalGeneratorBenchmark {
+
+    //texture height, the width is twice this (must be a power of two)
+    @Param({"256", "1024"})
+    public int size;
+    private PlanetInformation info;
+
+    @Setup
+    public void setup() {
+        info = new PlanetInformation();
+        info.setDaytime(360);
+        info.setEquatorTemperature(40);
+        info.setPoleTemperature(-20);
+        info.setRadius(size / 2);
+        info.setWaterInPercent(0.6f);
+        info.setHeightFactor(0.5f);
+        info.setSeed(42);
+        info.setHumidity(0.5f);
+        info.setSmoothness(8);
+    }
+
+    @Benchmark
+    public int[] generateHeightmap() {
+        //a new generator each time, the heightmap pass uses up its random source
+        ContinentalGenerator gen = new ContinentalGenerator(2 * size, size, info, new EarthPalette(info));
+        return gen.generateHeightmap();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Shared fixture for the benchmarks. Builds one headless universe per JVM
+ * and lets it run for a little while so ships are spread out and stations
+ * have stock, the same as a game that has been going for a minute.
+ */
+package universe;
+
+import app.Headless;
+import celestial.Ship.Ship;
+import celestial.Ship.Station;
+import engine.Entity;
+import java.util.ArrayList;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class BenchmarkUniverse {
+
+    //ticks to run before handing the universe out
+    public static final int WARMUP_TICKS = 600;
+    private static Universe universe;
+
+    public static synchronized Universe get() {
+        if (universe == null) {
+            System.setProperty("java.awt.headless", "true");
+            Universe.setHeadless(true);
+            universe = new Universe();
+            Headless runner = new Headless(universe, 60);
+            for (int a = 0; a < WARMUP_TICKS; a++) {
+                runner.tick();
+            }
+        }
+        return universe;
+    }
+
+    public static SolarSystem getBusiestSystem() {
+        /*
+         * The system with the most ships in it.
+         */
+        ArrayList<SolarSystem> systems = get().getSystems();
+        SolarSystem ret = systems.get(0);
+        for (int a = 1; a < systems.size(); a++) {
+            if (systems.get(a).getShipList().size() > ret.getShipList().size()) {
+                ret = systems.get(a);
+            }
+        }
+        return ret;
+    }
+
+    public static Ship getShip(SolarSystem system, Ship.Behavior behavior) {
+        /*
+         * A live ship in the given system, preferring one with the given
+         * behavior. Projectiles and stations don't count.
+         */
+        Ship ret = null;
+        ArrayList<Entity> ships = system.getShipList();
+        for (int a = 0; a < ships.size(); a++) {
+            Ship tmp = (Ship) ships.get(a);
+            if (tmp.getState() == Entity.State.ALIVE && tmp.getClass() == Ship.class) {
+                if (tmp.getBehavior() == behavior) {
+                    return tmp;
+                } else if (ret == null) {
+                    ret = tmp;
+                }
+            }
+        }
+        return ret;
+    }
+
+    public static Ship getShip(Ship.Behavior behavior) {
+        ArrayList<SolarSystem> systems = get().getSystems();
+        for (int a = 0; a < systems.size(); a++) {
+            Ship tmp = getShip(systems.get(a), behavior);
+            if (tmp != null && tmp.getBehavior() == behavior) {
+                return tmp;
+            }
+        }
+        return getShip(getBusiestSystem(), behavior);
+    }
+
+    public static Station getTradingStation() {
+        /*
+         * A station that sells at least one ware.
+         */
+        ArrayList<SolarSystem> systems = get().getSystems();
+        for (int a = 0; a < systems.size(); a++) {
+            ArrayList<Entity> stations = systems.get(a).getStationList();
+            for (int b = 0; b < stations.size(); b++) {
+                Station tmp = (Station) stations.get(b);
+                if (!tmp.getStationSelling().isEmpty()) {
+                    return tmp;
+                }
+            }
+        }
+        return null;
+    }
+}
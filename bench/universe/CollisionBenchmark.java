@@ -0,0 +1,82 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Collision pass on synthetic solar systems. The ships are scattered so the
+ * density stays the same as the count grows, which is what a busy system
+ * looks like.
+ */
+package universe;
+
+import celestial.Ship.Ship;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CollisionBenchmark {
+
+    //average space per ship, in world units on a side
+    public static final int SPACING = 400;
+    @Param({"100", "1000", "10000"})
+    public int entities;
+    private SolarSystem system;
+
+    @Setup
+    public void setup() {
+        Universe universe = BenchmarkUniverse.get();
+        //no terms are for this system, so it starts empty
+        system = new SolarSystem(universe, "Benchmark", Universe.getCache().getUniverseCache());
+        Random rnd = new Random(0);
+        int side = (int) Math.sqrt(entities) * SPACING;
+        for (int a = 0; a < entities; a++) {
+            Ship tmp = new Ship("Benchmark " + a, "Freyr");
+            //bare hulls, the loadout doesn't matter here
+            tmp.setEquip(null);
+            tmp.setFaction("Neutral");
+            tmp.init(false);
+            tmp.setX(rnd.nextInt(side));
+            tmp.setY(rnd.nextInt(side));
+            tmp.setVx(rnd.nextInt(100) - 50);
+            tmp.setVy(rnd.nextInt(100) - 50);
+            system.putEntityInSystem(tmp);
+        }
+    }
+
+    @Benchmark
+    public SolarSystem collissionTest() {
+        system.collissionTest(1.0 / 60.0);
+        return system;
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Runs the simulation without a window, HUD or sound so it can be profiled
+ * and soak tested on machines with no display. It steps the universe the same
+ * way the engine does and prints ticks per second, entity counts and frame
+ * timings.
+ *
+ * Usage: Headless [-ticks n] [-rate n] [-fast] [-report seconds]
+ *
+ * -ticks   number of ticks to run before exiting, 0 runs forever (default 0)
+ * -rate    simulated ticks per second, sets the time step (default 60)
+ * -fast    don't wait between ticks, run as fast as possible
+ * -report  seconds between reports (default 5)
+ */
+package app;
+
+import engine.Profiler;
+import engine.SettingsManager;
+import java.util.ArrayList;
+import universe.SolarSystem;
+import universe.Universe;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class Headless {
+
+    private final Universe universe;
+    private final double step;
+    private final Profiler.Phase tickPhase = Profiler.getPhase("tick");
+    //totals
+    private long ticks = 0;
+    private double simTime = 0;
+
+    public Headless(Universe universe, int rate) {
+        this.universe = universe;
+        this.step = 1.0 / rate;
+    }
+
+    public void run(long maxTicks, boolean fast, double report) {
+        long start = System.nanoTime();
+        long lastReport = start;
+        long lastTicks = 0;
+        long next = start;
+        //world changes from other threads are applied by this one
+        universe.setSimulationThread(Thread.currentThread());
+        while (maxTicks == 0 || ticks < maxTicks) {
+            tick();
+            //report
+            long now = System.nanoTime();
+            double since = (now - lastReport) / 1000000000.0;
+            if (since >= report) {
+                report((ticks - lastTicks) / since);
+                lastReport = now;
+                lastTicks = ticks;
+            }
+            //wait for the next tick
+            if (!fast) {
+                next += (long) (step * 1000000000.0);
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    try {
+                        Thread.sleep(wait / 1000000, (int) (wait % 1000000));
+                    } catch (InterruptedException e) {
+                        e.printStackTrace();
+                        return;
+                    }
+                } else {
+                    //fell behind, don't try to catch up
+                    next = System.nanoTime();
+                }
+            }
+        }
+        double total = (System.nanoTime() - start) / 1000000000.0;
+        System.out.println("Ran " + ticks + " ticks in " + total + " seconds.");
+        report(ticks / total);
+        //frame timing
+        ArrayList<Profiler.Phase> phases = Profiler.getProfiler().getPhases();
+        for (int a = 0; a < phases.size(); a++) {
+            if (!phases.get(a).getName().startsWith(SolarSystem.PROFILER_PREFIX)) {
+                System.out.println(phases.get(a));
+            }
+        }
+        ArrayList<Profiler.Phase> slowest = Profiler.getProfiler().getSlowest(SolarSystem.PROFILER_PREFIX, 5);
+        for (int a = 0; a < slowest.size(); a++) {
+            System.out.println(slowest.get(a));
+        }
+    }
+
+    public void tick() {
+        /*
+         * One simulation step, in the same order Engine.logic() uses.
+         */
+        long start = System.nanoTime();
+        ArrayList<SolarSystem> systems = universe.getSystems();
+        //collisions
+        for (int a = 0; a < systems.size(); a++) {
+            if (!systems.get(a).isCoarse()) {
+                systems.get(a).collissionTest(step);
+            }
+        }
+        //solar systems
+        for (int a = 0; a < systems.size(); a++) {
+            systems.get(a).periodicUpdate(step);
+        }
+        //apply spawns, jumps and removals queued by other threads
+        universe.drainDeferred();
+        //missions
+        for (int a = 0; a < universe.getPlayerMissions().size(); a++) {
+            universe.getPlayerMissions().get(a).periodicUpdate(step);
+        }
+        //campaigns
+        for (int a = 0; a < universe.getPlayerCampaigns().size(); a++) {
+            if (universe.getPlayerCampaigns().get(a).isRunning()) {
+                universe.getPlayerCampaigns().get(a).periodicUpdate(step);
+            } else {
+                universe.getPlayerCampaigns().remove(universe.getPlayerCampaigns().get(a));
+            }
+        }
+        //god
+        universe.getGod().periodicUpdate();
+        tickPhase.end(start);
+        ticks++;
+        simTime += step;
+    }
+
+    private void report(double tps) {
+        int entities = 0;
+        int ships = 0;
+        int stations = 0;
+        ArrayList<SolarSystem> systems = universe.getSystems();
+        for (int a = 0; a < systems.size(); a++) {
+            entities += systems.get(a).getEntities().size();
+            ships += systems.get(a).getShipList().size();
+            stations += systems.get(a).getStationList().size();
+        }
+        System.out.println(String.format("[%.1fs] %.1f ticks/s, %d systems, %d entities, %d ships, %d stations",
+                simTime, tps, systems.size(), entities, ships, stations));
+    }
+
+    public static void main(String[] args) {
+        long maxTicks = 0;
+        int rate = SettingsManager.DEFAULT_TICK_RATE;
+        boolean fast = false;
+        double report = 5;
+        //read arguments
+        try {
+            for (int a = 0; a < args.length; a++) {
+                if (args[a].equals("-ticks")) {
+                    maxTicks = Long.parseLong(args[++a]);
+                } else if (args[a].equals("-rate")) {
+                    rate = Integer.parseInt(args[++a]);
+                } else if (args[a].equals("-fast")) {
+                    fast = true;
+                } else if (args[a].equals("-report")) {
+                    report = Double.parseDouble(args[++a]);
+                } else {
+                    System.out.println("Unknown argument " + args[a]);
+                }
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            System.out.println("Usage: Headless [-ticks n] [-rate n] [-fast] [-report seconds]");
+            return;
+        }
+        //no display, no sound
+        System.setProperty("java.awt.headless", "true");
+        Universe.setHeadless(true);
+        Profiler.register();
+        //build a new game
+        Universe universe = new Universe();
+        new Headless(universe, rate).run(maxTicks, fast, report);
+        System.exit(0);
+    }
+}
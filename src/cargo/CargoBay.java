@@ -0,0 +1,241 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * The stacks in a ship's cargo bay. It keeps the list of stacks so the
+ * windows can show, split and merge them, and also the stacks of each ware,
+ * the number of stacks in each group, and the total volume and mass, so
+ * questions about the bay don't have to walk it.
+ *
+ * Stacks only go in and out through add, remove and clear, and the list is
+ * handed out read only, so the indexes can't be bypassed. Stacks tell the bay
+ * when their quantity changes. The indexes aren't saved, they are rebuilt the
+ * first time the bay is used after loading.
+ */
+package cargo;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class CargoBay implements Serializable {
+
+    private final ArrayList<Item> stacks = new ArrayList<>();
+    //read only view of the stacks
+    private transient List<Item> view;
+    //stacks of each ware by name
+    private transient HashMap<String, ArrayList<Item>> wares;
+    //number of stacks in each group
+    private transient HashMap<String, Integer> groups;
+    //running totals
+    private transient double volume;
+    private transient double mass;
+
+    /*
+     * The stacks
+     */
+    public List<Item> getItems() {
+        if (view == null) {
+            view = Collections.unmodifiableList(stacks);
+        }
+        return view;
+    }
+
+    public int size() {
+        return stacks.size();
+    }
+
+    public Item get(int index) {
+        return stacks.get(index);
+    }
+
+    public boolean isEmpty() {
+        return stacks.isEmpty();
+    }
+
+    public void add(Item item) {
+        index();
+        stacks.add(item);
+        track(item);
+    }
+
+    public boolean remove(Item item) {
+        index();
+        //stacks are compared by identity
+        for (int a = 0; a < stacks.size(); a++) {
+            if (stacks.get(a) == item) {
+                stacks.remove(a);
+                untrack(item);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void clear() {
+        for (int a = 0; a < stacks.size(); a++) {
+            if (stacks.get(a).getBay() == this) {
+                stacks.get(a).setBay(null);
+            }
+        }
+        stacks.clear();
+        wares = null;
+    }
+
+    /*
+     * Queries
+     */
+    public List<Item> getStacks(String ware) {
+        index();
+        ArrayList<Item> ret = wares.get(ware);
+        if (ret != null) {
+            return Collections.unmodifiableList(ret);
+        }
+        return Collections.emptyList();
+    }
+
+    public boolean holds(Item item) {
+        //identity check on the stacks of that ware only
+        List<Item> list = getStacks(item.getName());
+        for (int a = 0; a < list.size(); a++) {
+            if (list.get(a) == item) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getQuantity(Item item) {
+        /*
+         * Units held of the same kind of item, an assembled weapon and a
+         * packaged one are different kinds.
+         */
+        int count = 0;
+        if (item != null) {
+            String itype = item.getType();
+            String group = item.getGroup();
+            List<Item> list = getStacks(item.getName());
+            for (int a = 0; a < list.size(); a++) {
+                Item tmp = list.get(a);
+                if (item.isSameType(tmp) && itype.equals(tmp.getType()) && group.equals(tmp.getGroup())) {
+                    count += tmp.getQuantity();
+                }
+            }
+        }
+        return count;
+    }
+
+    public boolean hasWare(String ware) {
+        return !getStacks(ware).isEmpty();
+    }
+
+    public boolean hasGroup(String group) {
+        index();
+        return groups.containsKey(group);
+    }
+
+    public double getVolume() {
+        index();
+        return volume;
+    }
+
+    public double getMass() {
+        index();
+        return mass;
+    }
+
+    /*
+     * Index upkeep
+     */
+    private void index() {
+        if (wares == null) {
+            wares = new HashMap<>();
+            groups = new HashMap<>();
+            volume = 0;
+            mass = 0;
+            for (int a = 0; a < stacks.size(); a++) {
+                track(stacks.get(a));
+            }
+        }
+    }
+
+    private void track(Item item) {
+        item.setBay(this);
+        ArrayList<Item> list = wares.get(item.getName());
+        if (list == null) {
+            list = new ArrayList<>();
+            wares.put(item.getName(), list);
+        }
+        list.add(item);
+        String group = item.getGroup();
+        if (group != null) {
+            Integer count = groups.get(group);
+            groups.put(group, count == null ? 1 : count + 1);
+        }
+        volume += item.getVolume();
+        mass += item.getMass();
+    }
+
+    private void untrack(Item item) {
+        if (item.getBay() == this) {
+            item.setBay(null);
+        }
+        ArrayList<Item> list = wares.get(item.getName());
+        if (list != null) {
+            for (int a = 0; a < list.size(); a++) {
+                if (list.get(a) == item) {
+                    list.remove(a);
+                    break;
+                }
+            }
+            if (list.isEmpty()) {
+                wares.remove(item.getName());
+            }
+        }
+        String group = item.getGroup();
+        if (group != null) {
+            Integer count = groups.get(group);
+            if (count != null) {
+                if (count > 1) {
+                    groups.put(group, count - 1);
+                } else {
+                    groups.remove(group);
+                }
+            }
+        }
+        volume -= item.getVolume();
+        mass -= item.getMass();
+    }
+
+    void beforeQuantityChange(Item item) {
+        if (wares != null) {
+            volume -= item.getVolume();
+            mass -= item.getMass();
+        }
+    }
+
+    void afterQuantityChange(Item item) {
+        if (wares != null) {
+            volume += item.getVolume();
+            mass += item.getMass();
+        }
+    }
+}
@@ -118,6 +118,10 @@ public class Equipment extends Item implements Serializable {
 
     public void setEnabled(boolean enabled) {
         this.enabled = enabled;
+        if (host != null) {
+            //onlined weapons decide the host's weapon range
+            host.invalidateStats();
+        }
     }
 
     public double getRange() {
@@ -56,6 +56,7 @@ public class Hardpoint implements Serializable {
             if (equipment.getType().equals(type) || equipment == empty) {
                 setMounted(equipment);
                 getMounted().mount(host, this);
+                host.invalidateStats();
             }
         }
     }
@@ -63,6 +64,7 @@ public class Hardpoint implements Serializable {
     public void unmount(Equipment equipment) {
         setMounted(empty);
         equipment.setSocket(null);
+        host.invalidateStats();
     }
 
     public void periodicUpdate(double tpf) {
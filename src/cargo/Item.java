@@ -19,10 +19,8 @@
  */
 package cargo;
 
+import engine.Definitions.ItemDef;
 import java.io.Serializable;
-import java.util.ArrayList;
-import lib.Parser;
-import lib.Parser.Term;
 import universe.Universe;
 
 public class Item implements Serializable {
@@ -33,20 +31,17 @@ public class Item implements Serializable {
     public static final String TYPE_TURRET = "turret";
     public static final String TYPE_BATTERY = "battery";
     public static final String TYPE_COMMODITY = "commodity";
-    private int volume;
-    private int store;
-    private double mass;
-    private double HP;
+    //shared stats for this kind of item, looked up again after loading
+    private transient ItemDef def;
+    //per stack state
     private String name;
-    private String description;
-    private String type;
-    protected String group;
+    private double HP;
+    private int store;
     protected int quantity = 1;
     //flags
     private boolean alive;
-    //economic parameters
-    private int minPrice;
-    private int maxPrice;
+    //the cargo bay holding this stack, told when the quantity changes
+    private transient CargoBay bay;
 
     public Item(String name) {
         this.name = name;
@@ -54,39 +49,36 @@ public class Item implements Serializable {
     }
 
     private void init() {
-        Parser parse = Universe.getCache().getItemCache();
-        ArrayList<Term> terms = parse.getTermsOfType("Item");
-        Term relevant = null;
-        for (int a = 0; a < terms.size(); a++) {
-            String termName = terms.get(a).getValue("name");
-            if (termName.equals(getName())) {
-                //get the stats we want
-                relevant = terms.get(a);
-                //and end
-                break;
-            }
-        }
+        ItemDef relevant = getDef();
         if (relevant != null) {
-            //extract
-            type = relevant.getValue("type");
-            volume = Integer.parseInt(relevant.getValue("volume"));
-            mass = Double.parseDouble(relevant.getValue("mass"));
-            HP = Double.parseDouble(relevant.getValue("HP"));
-            minPrice = Integer.parseInt(relevant.getValue("minPrice"));
-            maxPrice = Integer.parseInt(relevant.getValue("maxPrice"));
-            description = relevant.getValue("description");
-            group = relevant.getValue("group");
-            String st = relevant.getValue("store");
-            if (st != null) {
-                store = Integer.parseInt(relevant.getValue("store"));
-            } else {
-                store = 1000;
-            }
+            HP = relevant.getHP();
+            store = relevant.getStore();
         } else {
             System.out.println("The item " + getName() + " does not exist in ITEMS.txt");
         }
     }
 
+    public ItemDef getDef() {
+        if (def == null && name != null) {
+            def = Universe.getCache().getDefinitions().getItem(name);
+        }
+        return def;
+    }
+
+    public boolean isSameType(Item other) {
+        /*
+         * Whether two stacks are the same kind of item.
+         */
+        if (other == null) {
+            return false;
+        }
+        ItemDef mine = getDef();
+        if (mine != null) {
+            return mine == other.getDef();
+        }
+        return name != null && name.equals(other.getName());
+    }
+
     public void periodicUpdate(double tpf) {
     }
 
@@ -106,19 +98,19 @@ public class Item implements Serializable {
 
     //Accesors + Mutators
     public double getVolume() {
-        return volume * quantity;
-    }
-
-    public void setVolume(int volume) {
-        this.volume = volume;
+        ItemDef tmp = getDef();
+        if (tmp != null) {
+            return tmp.getVolume() * quantity;
+        }
+        return 0;
     }
 
     public double getMass() {
-        return mass * quantity;
-    }
-
-    public void setMass(double mass) {
-        this.mass = mass;
+        ItemDef tmp = getDef();
+        if (tmp != null) {
+            return tmp.getMass() * quantity;
+        }
+        return 0;
     }
 
     public String getName() {
@@ -127,22 +119,23 @@ public class Item implements Serializable {
 
     public void setName(String name) {
         this.name = name;
+        def = null;
     }
 
     public String getDescription() {
-        return description;
-    }
-
-    public void setDescription(String description) {
-        this.description = description;
+        ItemDef tmp = getDef();
+        if (tmp != null) {
+            return tmp.getDescription();
+        }
+        return null;
     }
 
     public String getType() {
-        return type;
-    }
-
-    public void setType(String type) {
-        this.type = type;
+        ItemDef tmp = getDef();
+        if (tmp != null) {
+            return tmp.getType();
+        }
+        return null;
     }
 
     public double getHP() {
@@ -162,27 +155,27 @@ public class Item implements Serializable {
     }
 
     public int getMinPrice() {
-        return minPrice;
-    }
-
-    public void setMinPrice(int minPrice) {
-        this.minPrice = minPrice;
+        ItemDef tmp = getDef();
+        if (tmp != null) {
+            return tmp.getMinPrice();
+        }
+        return 0;
     }
 
     public int getMaxPrice() {
-        return maxPrice;
-    }
-
-    public void setMaxPrice(int maxPrice) {
-        this.maxPrice = maxPrice;
+        ItemDef tmp = getDef();
+        if (tmp != null) {
+            return tmp.getMaxPrice();
+        }
+        return 0;
     }
 
     public String getGroup() {
-        return group;
-    }
-
-    public void setGroup(String group) {
-        this.group = group;
+        ItemDef tmp = getDef();
+        if (tmp != null) {
+            return tmp.getGroup();
+        }
+        return null;
     }
 
     @Override
@@ -195,7 +188,21 @@ public class Item implements Serializable {
     }
 
     public void setQuantity(int quantity) {
-        this.quantity = quantity;
+        if (bay != null) {
+            bay.beforeQuantityChange(this);
+            this.quantity = quantity;
+            bay.afterQuantityChange(this);
+        } else {
+            this.quantity = quantity;
+        }
+    }
+
+    CargoBay getBay() {
+        return bay;
+    }
+
+    void setBay(CargoBay bay) {
+        this.bay = bay;
     }
 
     public int getStore() {
@@ -21,12 +21,13 @@ package cargo;
 import celestial.Ship.Projectile;
 import celestial.Ship.Ship;
 import engine.Entity;
+import engine.Definitions.WeaponDef;
 import engine.Entity.State;
 import java.awt.Image;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.List;
 import javax.swing.ImageIcon;
-import lib.Parser;
 import lib.Soundling;
 import universe.SolarSystem;
 import universe.Universe;
@@ -42,6 +43,8 @@ public class Weapon extends Equipment {
     transient BufferedImage tex;
     int width;
     int height;
+    //shared stats from the weapons file, looked up again after loading
+    private transient WeaponDef weaponDef;
     //weapon properties
     protected double damage;
     protected double speed;
@@ -75,7 +78,7 @@ public class Weapon extends Equipment {
 
     public void initGraphics() {
         try {
-            if (host.getUniverse() != null) {
+            if (host.getUniverse() != null && !Universe.isHeadless()) {
                 /*
                  * Generate Graphics
                  */
@@ -134,60 +137,58 @@ public class Weapon extends Equipment {
         }
     }
 
+    private WeaponDef getWeaponDef() {
+        if (weaponDef == null) {
+            weaponDef = Universe.getCache().getDefinitions().getWeapon(getName());
+        }
+        return weaponDef;
+    }
+
+    @Override
+    public String getType() {
+        //the weapons file has the final say on type and mass
+        WeaponDef tmp = getWeaponDef();
+        if (tmp != null) {
+            return tmp.getType();
+        }
+        return super.getType();
+    }
+
+    @Override
+    public double getMass() {
+        WeaponDef tmp = getWeaponDef();
+        if (tmp != null) {
+            return tmp.getMass() * quantity;
+        }
+        return super.getMass();
+    }
+
     private void init() {
         //get weapon stuff now
-        Parser parse = Universe.getCache().getWeaponCache();
-        ArrayList<Parser.Term> terms = parse.getTermsOfType("Weapon");
-        Parser.Term relevant = null;
-        for (int a = 0; a < terms.size(); a++) {
-            String termName = terms.get(a).getValue("name");
-            if (termName.equals(getName())) {
-                //get the stats we want
-                relevant = terms.get(a);
-                //and end
-                break;
-            }
-        }
+        WeaponDef relevant = getWeaponDef();
         if (relevant != null) {
-            setName(relevant.getValue("name"));
-            setType(relevant.getValue("type"));
-            setMass(Double.parseDouble(relevant.getValue("mass")));
-            setDamage(Double.parseDouble(relevant.getValue("damage")));
-            setRange(Double.parseDouble(relevant.getValue("range")));
-            setSpeed(Double.parseDouble(relevant.getValue("speed")));
-            setCoolDown(Double.parseDouble(relevant.getValue("refire")));
-            String exp = relevant.getValue("explosion");
-            if (exp != null) {
-                setExplosion(exp);
+            setDamage(relevant.getDamage());
+            setRange(relevant.getRange());
+            setSpeed(relevant.getSpeed());
+            setCoolDown(relevant.getCoolDown());
+            if (relevant.getExplosion() != null) {
+                setExplosion(relevant.getExplosion());
             }
             //guided?
-            {
-                String test = relevant.getValue("guided");
-                if (test != null) {
-                    guided = Boolean.parseBoolean(test);
-                }
-                if (guided) {
-                    //retrieve all the stats
-                    accel = Double.parseDouble(relevant.getValue("accel"));
-                    turning = Double.parseDouble(relevant.getValue("turning"));
-                }
+            guided = relevant.isGuided();
+            if (guided) {
+                //retrieve all the stats
+                accel = relevant.getAccel();
+                turning = relevant.getTurning();
             }
             //ammo?
-            {
-                String test = relevant.getValue("ammo");
-                if (test != null) {
-                    //get the item
-                    ammoType = new Item(test);
-                }
+            if (relevant.getAmmo() != null) {
+                //get the item
+                ammoType = new Item(relevant.getAmmo());
             }
             //go boom?
-            fireEffectAsset = relevant.getValue("fireEffect");
-            String loopClipTest = relevant.getValue("loop");
-            if (loopClipTest != null) {
-                loopFireEffect = Boolean.parseBoolean(loopClipTest);
-            } else {
-                loopFireEffect = false;
-            }
+            fireEffectAsset = relevant.getFireEffect();
+            loopFireEffect = relevant.isLoop();
         } else {
             System.out.println("The item " + getName() + " does not exist in WEAPONS.txt");
         }
@@ -218,6 +219,11 @@ public class Weapon extends Equipment {
     private boolean fire() {
         if (enabled) {
             if (hasAmmo() && hasTarget()) {
+                //determine if OOS or not
+                SolarSystem playerSys = host.getUniverse().getPlayerShip().getCurrentSystem();
+                if (host.getCurrentSystem() != playerSys) {
+                    return oosFire();
+                }
                 double theta = host.getTheta();
                 if (getType().equals(Item.TYPE_TURRET) || getType().equals(Item.TYPE_BATTERY)) {
                     if (host.getTarget() != null) {
@@ -231,6 +237,30 @@ public class Weapon extends Equipment {
         return false;
     }
 
+    private boolean oosFire() {
+        /*
+         * Nobody can see the shot, so skip the projectile and deal damage
+         * directly. Out of sector systems tick slower than most weapons
+         * refire, so every volley that would have fired during the tick is
+         * dealt at once.
+         */
+        int volleys = 1;
+        if (coolDown > 0) {
+            volleys = Math.max(1, (int) (tpf / coolDown));
+        }
+        Ship tvp = host.getTarget();
+        for (int a = 0; a < volleys && hasAmmo(); a++) {
+            useAmmo();
+            if (tvp != null) {
+                tvp.dealDamage(damage);
+                tvp.setLastBlow(host);
+            }
+        }
+        //reset timer
+        timeSinceLastActivation = 0;
+        return true;
+    }
+
     @Override
     public void killSounds() {
         super.killSounds();
@@ -243,16 +273,17 @@ public class Weapon extends Equipment {
 
     public void useAmmo() {
         if (ammoType != null) {
-            ArrayList<Item> cargo = host.getCargoBay();
+            //only look at the stacks of the ammo ware
+            List<Item> cargo = host.getCargoBay().getStacks(ammoType.getName());
             for (int a = 0; a < cargo.size(); a++) {
                 Item tmp = cargo.get(a);
-                if (tmp.getName().equals(ammoType.getName())) {
+                if (tmp.isSameType(ammoType)) {
                     if (tmp.getGroup().equals(ammoType.getGroup())) {
                         if (tmp.getType().equals(ammoType.getType())) {
                             if (tmp.getQuantity() > 1) {
                                 tmp.setQuantity(tmp.getQuantity() - 1);
                             } else {
-                                cargo.remove(tmp);
+                                host.getCargoBay().remove(tmp);
                             }
                             break;
                         }
@@ -363,20 +394,9 @@ public class Weapon extends Equipment {
             pro.setMaxRange(getRange() * 1.5);
             pro.setTurning(turning);
         }
-        //determine if OOS or not
-        SolarSystem playerSys = host.getUniverse().getPlayerShip().getCurrentSystem();
-        if (host.getCurrentSystem() == playerSys) {
-            //add to universe
-            pro.setCurrentSystem(host.getCurrentSystem());
-            host.getCurrentSystem().putEntityInSystem(pro);
-        } else {
-            //deal damage directly
-            Ship tvp = host.getTarget();
-            if (tvp != null) {
-                tvp.dealDamage(damage);
-                tvp.setLastBlow(host);
-            }
-        }
+        //add to universe
+        pro.setCurrentSystem(host.getCurrentSystem());
+        host.getCurrentSystem().putEntityInSystem(pro);
         //play fire effect
         if (fireEffect != null) {
             if (!fireEffect.isPlaying()) {
@@ -440,20 +460,9 @@ public class Weapon extends Equipment {
             pro.setMaxRange(getRange() * 1.5);
             pro.setTurning(turning);
         }
-        //determine if OOS or not
-        SolarSystem playerSys = host.getUniverse().getPlayerShip().getCurrentSystem();
-        if (host.getCurrentSystem() == playerSys) {
-            //add to universe
-            pro.setCurrentSystem(host.getCurrentSystem());
-            host.getCurrentSystem().putEntityInSystem(pro);
-        } else {
-            //deal damage directly
-            Ship tvp = host.getTarget();
-            if (tvp != null) {
-                tvp.dealDamage(damage);
-                tvp.setLastBlow(host);
-            }
-        }
+        //add to universe
+        pro.setCurrentSystem(host.getCurrentSystem());
+        host.getCurrentSystem().putEntityInSystem(pro);
         //play fire effect
         if (fireEffect != null) {
             if (!fireEffect.isPlaying()) {
@@ -21,7 +21,6 @@ package celestial;
 import java.awt.AlphaComposite;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
@@ -74,10 +73,10 @@ public class Asteroid extends Planet {
 
     @Override
     public void render(Graphics f, double dx, double dy) {
-        if (tex != null) {
-            f.drawImage(tex, (int) (getX() - dx), (int) (getY() - dy), null);
-        } else {
-            initGraphics();
+        //the tick may drop the buffer, so hold on to this one
+        BufferedImage buffer = tex;
+        if (buffer != null) {
+            f.drawImage(buffer, (int) (getX() - dx), (int) (getY() - dy), null);
         }
     }
 
@@ -90,7 +89,6 @@ public class Asteroid extends Planet {
     @Override
     public void alive() {
         //update bound
-        getBounds().clear();
-        getBounds().add(new Rectangle((int) getX(), (int) getY(), getDiameter(), getDiameter()));
+        setSingleBound(getBounds(), (int) getX(), (int) getY(), getDiameter(), getDiameter());
     }
 }
@@ -19,6 +19,7 @@
  */
 package celestial;
 
+import engine.CollisionFilter;
 import engine.Entity;
 import java.awt.Graphics;
 import java.awt.Rectangle;
@@ -39,6 +40,9 @@ public class Celestial implements Serializable, Entity {
     //position
     protected double x;
     protected double y;
+    //position at the start of the last tick
+    private transient double lastX;
+    private transient double lastY;
     protected int width;
     protected int height;
     //identity
@@ -69,6 +73,11 @@ public class Celestial implements Serializable, Entity {
         //
     }
 
+    public boolean hasGraphics() {
+        //nothing to load
+        return true;
+    }
+
     @Override
     public void informOfCollisionWith(Entity target) {
         throw new UnsupportedOperationException("Not supported yet.");
@@ -79,13 +88,9 @@ public class Celestial implements Serializable, Entity {
         //do a simple rectangular test before the full test
         if (target instanceof Celestial) {
             Celestial tgt = (Celestial) target;
-            Rectangle bnd1 = new Rectangle((int) x, (int) y,
-                    (int) Math.max(getWidth(), 50), (int) Math.max(getHeight(), 50));
-            Rectangle bnd2 = new Rectangle((int) tgt.getX(), (int) tgt.getY(),
-                    (int) Math.max(tgt.getWidth(), 50), (int) Math.max(tgt.getHeight(), 50));
-
             //they can't collide
-            if (!bnd1.intersects(bnd2)) {
+            if (!overlaps(x, y, Math.max(getWidth(), 50), Math.max(getHeight(), 50),
+                    tgt.getX(), tgt.getY(), Math.max(tgt.getWidth(), 50), Math.max(tgt.getHeight(), 50))) {
                 return false;
             }
         }
@@ -107,13 +112,40 @@ public class Celestial implements Serializable, Entity {
         }
     }
 
+    public void storePosition() {
+        /*
+         * Remembers the current position so the renderer can interpolate
+         * between ticks.
+         */
+        lastX = x;
+        lastY = y;
+    }
+
+    public double getLastX() {
+        return lastX;
+    }
+
+    public double getLastY() {
+        return lastY;
+    }
+
+    public int getCollisionLayer() {
+        return CollisionFilter.PLANET;
+    }
+
     @Override
     public boolean collideWith(Rectangle target) {
+        return intersects(target.x, target.y, target.width, target.height);
+    }
+
+    @Override
+    public boolean intersects(double bx, double by, double bw, double bh) {
         try {
             ArrayList<Rectangle> myBox = getBounds();
             if (myBox.size() > 0) {
                 for (int a = 0; a < myBox.size(); a++) {
-                    if (myBox.get(a).intersects(target)) {
+                    Rectangle tmp = myBox.get(a);
+                    if (overlaps(tmp.x, tmp.y, tmp.width, tmp.height, bx, by, bw, bh)) {
                         return true;
                     }
                 }
@@ -217,6 +249,10 @@ public class Celestial implements Serializable, Entity {
     @Override
     public void setName(String name) {
         this.name = name;
+        //keep name lookups current
+        if (getUniverse() != null) {
+            getUniverse().getRegistry().update(this);
+        }
     }
 
     public SolarSystem getCurrentSystem() {
@@ -290,7 +326,39 @@ public class Celestial implements Serializable, Entity {
 
     @Override
     public boolean quickCollideWith(Rectangle target) {
-        Rectangle bnd = new Rectangle((int) x, (int) y, (int) width, (int) height);
-        return target.intersects(bnd);
+        return quickIntersects(target.x, target.y, target.width, target.height);
+    }
+
+    @Override
+    public boolean quickIntersects(double bx, double by, double bw, double bh) {
+        return overlaps((int) x, (int) y, (int) width, (int) height, bx, by, bw, bh);
+    }
+
+    /*
+     * Geometry helpers
+     */
+    public static boolean overlaps(double ax, double ay, double aw, double ah,
+            double bx, double by, double bw, double bh) {
+        /*
+         * Same rules as Rectangle.intersects() but without needing any
+         * Rectangle objects. Empty boxes never overlap anything.
+         */
+        if (aw <= 0 || ah <= 0 || bw <= 0 || bh <= 0) {
+            return false;
+        }
+        return ax < bx + bw && bx < ax + aw && ay < by + bh && by < ay + ah;
+    }
+
+    protected static void setSingleBound(ArrayList<Rectangle> bound, int bx, int by, int bw, int bh) {
+        /*
+         * Replaces a bound list with one box, reusing the rectangle that is
+         * already there when possible.
+         */
+        if (bound.size() == 1) {
+            bound.get(0).setBounds(bx, by, bw, bh);
+        } else {
+            bound.clear();
+            bound.add(new Rectangle(bx, by, bw, bh));
+        }
     }
 }
@@ -20,11 +20,12 @@ package celestial;
 
 import celestial.Ship.Ship;
 import celestial.Ship.Ship.Autopilot;
+import engine.CollisionFilter;
 import engine.Entity;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.Rectangle;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.Random;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -60,8 +61,6 @@ public class Jumphole extends Planet {
             int size = (int) (2 * flux * diameter);
             Graphics2D s = (Graphics2D) (f);
             s.drawImage(raw_tex, (int) (getX() - dx) - (size / 2), (int) (getY() - dy) - (size / 2), size, size, null);
-        } else {
-            initGraphics();
         }
     }
 
@@ -75,8 +74,7 @@ public class Jumphole extends Planet {
             flux = rnd.nextDouble();
         }
         //update bound
-        getBounds().clear();
-        getBounds().add(new Rectangle((int) getX() - getDiameter() / 4, (int) getY() - getDiameter() / 4, getDiameter() / 2, getDiameter() / 2));
+        setSingleBound(getBounds(), (int) getX() - getDiameter() / 4, (int) getY() - getDiameter() / 4, getDiameter() / 2, getDiameter() / 2);
         //guarantee link
         if (outGate == null) {
             createLink(out);
@@ -90,17 +88,13 @@ public class Jumphole extends Planet {
         String outSysTmp = out.split("/")[0];
         String outGateTmp = out.split("/")[1];
         //find the out link
-        for (int a = 0; a < universe.getSystems().size(); a++) {
-            SolarSystem curr = universe.getSystems().get(a);
-            if (curr.getName().equals(outSysTmp)) {
-                for (int b = 0; b < curr.getEntities().size(); b++) {
-                    Entity entity = curr.getEntities().get(b);
-                    if (entity instanceof Jumphole) {
-                        if (entity.getName().equals(outGateTmp)) {
-                            outGate = (Jumphole) entity;
-                            outGate.linkWithPartner(this);
-                        }
-                    }
+        SolarSystem curr = universe.getRegistry().getSystem(outSysTmp);
+        if (curr != null) {
+            ArrayList<Celestial> named = universe.getRegistry().getCelestials(outGateTmp);
+            for (int a = 0; a < named.size(); a++) {
+                if (named.get(a) instanceof Jumphole && named.get(a).getCurrentSystem() == curr) {
+                    outGate = (Jumphole) named.get(a);
+                    outGate.linkWithPartner(this);
                 }
             }
         }
@@ -110,6 +104,11 @@ public class Jumphole extends Planet {
         outGate = gate;
     }
 
+    @Override
+    public int getCollisionLayer() {
+        return CollisionFilter.JUMPHOLE;
+    }
+
     @Override
     public void informOfCollisionWith(Entity target) {
         if (target instanceof Ship) {
@@ -140,12 +139,20 @@ public class Jumphole extends Planet {
     }
 
     private void jumpShip(Ship tmp) {
-        tmp.getCurrentSystem().pullEntityFromSystem(tmp);
-        tmp.setCurrentSystem(outGate.getCurrentSystem());
-        tmp.getCurrentSystem().putEntityInSystem(tmp);
-        double dT = Math.atan2(getX() - tmp.getX(), getY() - tmp.getY());
-        tmp.setX((outGate.getX() + outGate.getWidth() / 2) + outGate.getDiameter() * Math.cos(dT));
-        tmp.setY((outGate.getY() + outGate.getHeight() / 2) + outGate.getDiameter() * Math.sin(dT));
+        /*
+         * Out of sector ships fly through holes from inside their system's
+         * update, so the move is deferred like any other cross system change.
+         */
+        universe.defer(() -> {
+            if (tmp.getCurrentSystem() == getCurrentSystem()) {
+                tmp.getCurrentSystem().pullEntityFromSystem(tmp);
+                tmp.setCurrentSystem(outGate.getCurrentSystem());
+                tmp.getCurrentSystem().putEntityInSystem(tmp);
+                double dT = Math.atan2(getX() - tmp.getX(), getY() - tmp.getY());
+                tmp.setX((outGate.getX() + outGate.getWidth() / 2) + outGate.getDiameter() * Math.cos(dT));
+                tmp.setY((outGate.getY() + outGate.getHeight() / 2) + outGate.getDiameter() * Math.sin(dT));
+            }
+        });
     }
 
     public String getOut() {
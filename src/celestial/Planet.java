@@ -14,6 +14,7 @@
  */
 package celestial;
 
+import engine.Profiler;
 import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
@@ -46,9 +47,10 @@ public class Planet extends Celestial {
     private Term texture;
     private int seed = 0;
     protected int diameter;
-    protected transient Image raw_tex;
+    //drawn on a background thread, volatile so the renderer sees the finished image
+    protected transient volatile Image raw_tex;
     private final ArrayList<Rectangle> bound = new ArrayList<>();
-    private transient boolean rendering = false;
+    private transient volatile boolean rendering = false;
 
     public Planet(String name, Term texture, int diameter) {
         setName(name);
@@ -81,6 +83,7 @@ public class Planet extends Celestial {
                 /*
                  * Load the image for this planet and scale it
                  */
+                long start = System.nanoTime();
                 try {
                     System.out.println("Starting rendering for planet " + toString());
                     BufferedImage tmp = new BufferedImage(getUniverse().getSettings().RENDER_SIZE, getUniverse().getSettings().RENDER_SIZE, BufferedImage.TYPE_INT_ARGB);
@@ -240,6 +243,7 @@ public class Planet extends Celestial {
                     e.printStackTrace();
                 } finally {
                     rendering = false;
+                    Profiler.getPhase("planet").end(start);
                 }
             };
 
@@ -263,8 +267,7 @@ public class Planet extends Celestial {
     @Override
     public void alive() {
         //update bound
-        bound.clear();
-        bound.add(new Rectangle((int) getX(), (int) getY(), getDiameter(), getDiameter()));
+        setSingleBound(bound, (int) getX(), (int) getY(), getDiameter(), getDiameter());
     }
 
     @Override
@@ -273,9 +276,7 @@ public class Planet extends Celestial {
         if (raw_tex != null) {
             s.drawImage(raw_tex, (int) (getX() - dx), (int) (getY() - dy), getDiameter(), getDiameter(), null);
         } else {
-            //start deferred rendering
-            initGraphics();
-            //draw placeholder graphics
+            //the tick starts the deferred rendering, draw placeholder graphics
             s.setColor(Color.PINK);
             s.fillOval((int) (getX() - dx), (int) (getY() - dy), getDiameter(), getDiameter());
         }
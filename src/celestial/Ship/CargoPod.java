@@ -20,8 +20,8 @@
 package celestial.Ship;
 
 import cargo.Item;
+import engine.CollisionFilter;
 import engine.Entity;
-import java.awt.Rectangle;
 import java.util.Random;
 
 /**
@@ -49,18 +49,16 @@ public class CargoPod extends Ship {
         super.alive();
         elapsed += tpf;
         if (elapsed >= lifeLimit) {
-            state = State.DYING;
+            setState(State.DYING);
         }
     }
 
     @Override
     protected void updateBound() {
-        bound.clear();
-
         if (width != 0 && height != 0) {
-            bound.add(new Rectangle((int) getX(), (int) getY(), getWidth(), getHeight()));
+            setSingleBound(bound, (int) getX(), (int) getY(), getWidth(), getHeight());
         } else {
-            bound.add(new Rectangle((int) getX(), (int) getY(), 50, 50));
+            setSingleBound(bound, (int) getX(), (int) getY(), 50, 50);
         }
     }
 
@@ -69,6 +67,11 @@ public class CargoPod extends Ship {
         super.init(loadedGame);
     }
 
+    @Override
+    public int getCollisionLayer() {
+        return CollisionFilter.CARGO;
+    }
+
     @Override
     public void informOfCollisionWith(Entity target) {
         if (target instanceof CargoPod) {
@@ -17,18 +17,16 @@
  */
 package celestial.Ship;
 
+import engine.CollisionFilter;
 import engine.Entity;
 import java.awt.AlphaComposite;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
-import java.util.ArrayList;
 import java.util.Random;
-import lib.Parser;
 import universe.Universe;
 
 /**
@@ -65,21 +63,7 @@ public class Explosion extends Ship {
         /*
          * Loads the stats for this ship from the ships file.
          */
-        //create parser
-        Parser parse = Universe.getCache().getExplosionCache();
-        //get the term with this ship's type
-        ArrayList<Parser.Term> terms = parse.getTermsOfType("Explosion");
-        Parser.Term relevant = null;
-        for (int a = 0; a < terms.size(); a++) {
-            String termName = terms.get(a).getValue("type");
-            if (termName.equals(getType())) {
-                //get the stats we want
-                relevant = terms.get(a);
-                //and end
-                break;
-            }
-        }
-        if (relevant != null) {
+        if (Universe.getCache().getDefinitions().hasExplosion(getType())) {
             //now decode stats
             shield = maxShield = Double.MAX_VALUE;
             shieldRechargeRate = Double.MAX_VALUE;
@@ -105,21 +89,19 @@ public class Explosion extends Ship {
 
     @Override
     protected void updateBound() {
-        bound.clear();
-
         if (width != 0 && height != 0) {
-            bound.add(new Rectangle((int) getX(), (int) getY(), getWidth(), getHeight()));
+            setSingleBound(bound, (int) getX(), (int) getY(), getWidth(), getHeight());
         } else {
-            bound.add(new Rectangle((int) getX(), (int) getY(), 50, 50));
+            setSingleBound(bound, (int) getX(), (int) getY(), 50, 50);
         }
     }
     
     @Override
-    public boolean quickCollideWith(Rectangle target) {
+    public boolean quickIntersects(double bx, double by, double bw, double bh) {
         if (width != 0 && height != 0) {
-            return new Rectangle((int) getX(), (int) getY(), getWidth(), getHeight()).intersects(target);
+            return overlaps((int) getX(), (int) getY(), getWidth(), getHeight(), bx, by, bw, bh);
         } else {
-            return new Rectangle((int) getX(), (int) getY(), 50, 50).intersects(target);
+            return overlaps((int) getX(), (int) getY(), 50, 50, bx, by, bw, bh);
         }
     }
 
@@ -133,6 +115,11 @@ public class Explosion extends Ship {
         //avoid some recursion
     }
 
+    @Override
+    public int getCollisionLayer() {
+        return CollisionFilter.EXPLOSION;
+    }
+
     @Override
     public void informOfCollisionWith(Entity target) {
         if (target instanceof CargoPod) {
@@ -149,9 +136,11 @@ public class Explosion extends Ship {
 
     @Override
     public void render(Graphics g, double dx, double dy) {
-        if (tex != null) {
+        //the tick may drop the buffer, so hold on to this one
+        BufferedImage buffer = tex;
+        if (buffer != null) {
             //setup the buffer's graphics
-            Graphics2D f = tex.createGraphics();
+            Graphics2D f = buffer.createGraphics();
             //clear the buffer
             f.setComposite(AlphaComposite.getInstance(AlphaComposite.CLEAR, 0.0f));
             f.fillRect(0, 0, getWidth(), getHeight());
@@ -178,9 +167,7 @@ public class Explosion extends Ship {
              Rectangle tmp2 = tmp.getBounds();
              g.drawRect((int) (tmp2.getX() - dx), (int) (tmp2.getY() - dy), (int) tmp2.getWidth(), (int) tmp2.getHeight());*/
             //draw the buffer onto the main frame
-            g.drawImage(tex, (int) (getX() - dx), (int) (getY() - dy), null);
-        } else {
-            initGraphics();
+            g.drawImage(buffer, (int) (getX() - dx), (int) (getY() - dy), null);
         }
     }
 
@@ -20,9 +20,9 @@
 package celestial.Ship;
 
 import cargo.Item;
+import engine.Definitions.ProcessDef;
 import java.io.Serializable;
 import java.util.ArrayList;
-import lib.Parser;
 import universe.Universe;
 
 public class Process implements Serializable {
@@ -45,32 +45,20 @@ public class Process implements Serializable {
         this.stationSelling = stationSelling;
         this.stationBuying = stationBuying;
         //create process
-        Parser parse = Universe.getCache().getProcessCache();
-        ArrayList<Parser.Term> terms = parse.getTermsOfType("Process");
-        Parser.Term relevant = null;
-        for (int a = 0; a < terms.size(); a++) {
-            String termName = terms.get(a).getValue("name");
-            if (termName.equals(processName)) {
-                //get the stats we want
-                relevant = terms.get(a);
-                //and end
-                break;
-            }
-        }
+        ProcessDef relevant = Universe.getCache().getDefinitions().getProcess(processName);
         if (relevant != null) {
-            cycleTime = Double.parseDouble(relevant.getValue("cycle"));
+            cycleTime = relevant.getCycle();
             //create products and products table
-            String product = relevant.getValue("product");
-            if (product != null) {
-                String[] pArr = product.split("/");
+            {
+                String[] pArr = relevant.getProducts();
                 for (int a = 0; a < pArr.length; a++) {
-                    Item p = new Item(pArr[a].split(",")[0]);
-                    p.setQuantity(Integer.parseInt(pArr[a].split(",")[1]));
+                    Item p = new Item(pArr[a]);
+                    p.setQuantity(relevant.getProductQuantities()[a]);
                     products.add(p);
                     //see if the station has this registered as a product
                     boolean needed = true;
                     for (int b = 0; b < stationSelling.size(); b++) {
-                        if (stationSelling.get(b).getName().equals(p.getName())) {
+                        if (stationSelling.get(b).isSameType(p)) {
                             //yep it does
                             needed = false;
                             break;
@@ -78,24 +66,23 @@ public class Process implements Serializable {
                     }
                     if (needed) {
                         //add it to the product table so it can be bought
-                        Item p2 = new Item(pArr[a].split(",")[0]);
+                        Item p2 = new Item(pArr[a]);
                         p2.setQuantity(0);
                         stationSelling.add(p2);
                     }
                 }
             }
             //create resources and resource table
-            String resource = relevant.getValue("resource");
-            if (resource != null) {
-                String[] rArr = resource.split("/");
+            {
+                String[] rArr = relevant.getResources();
                 for (int a = 0; a < rArr.length; a++) {
-                    Item p = new Item(rArr[a].split(",")[0]);
-                    p.setQuantity(Integer.parseInt(rArr[a].split(",")[1]));
+                    Item p = new Item(rArr[a]);
+                    p.setQuantity(relevant.getResourceQuantities()[a]);
                     resources.add(p);
                     //see if the station has this registered as a resource
                     boolean needed = true;
                     for (int b = 0; b < stationBuying.size(); b++) {
-                        if (stationBuying.get(b).getName().equals(p.getName())) {
+                        if (stationBuying.get(b).isSameType(p)) {
                             //yep it does
                             needed = false;
                             break;
@@ -103,7 +90,7 @@ public class Process implements Serializable {
                     }
                     if (needed) {
                         //add it to the resource table so it can be bought
-                        Item p2 = new Item(rArr[a].split(",")[0]);
+                        Item p2 = new Item(rArr[a]);
                         p2.setQuantity(0);
                         stationBuying.add(p2);
                     }
@@ -125,7 +112,7 @@ public class Process implements Serializable {
             boolean hasResources = true;
             for (int a = 0; a < resources.size(); a++) {
                 for (int b = 0; b < stationBuying.size(); b++) {
-                    if (resources.get(a).getName().equals(stationBuying.get(b).getName())) {
+                    if (resources.get(a).isSameType(stationBuying.get(b))) {
                         if (stationBuying.get(b).getQuantity() >= resources.get(a).getQuantity()) {
                             //ok
                         } else {
@@ -138,8 +125,9 @@ public class Process implements Serializable {
             if (hasResources) {
                 for (int a = 0; a < resources.size(); a++) {
                     for (int b = 0; b < stationBuying.size(); b++) {
-                        if (resources.get(a).getName().equals(stationBuying.get(b).getName())) {
+                        if (resources.get(a).isSameType(stationBuying.get(b))) {
                             stationBuying.get(b).setQuantity(stationBuying.get(b).getQuantity() - resources.get(a).getQuantity());
+                            host.stockChanged(stationBuying.get(b));
                             break;
                         }
                     }
@@ -155,9 +143,10 @@ public class Process implements Serializable {
             if (canDeliver()) {
                 for (int a = 0; a < products.size(); a++) {
                     for (int b = 0; b < stationSelling.size(); b++) {
-                        if (products.get(a).getName().equals(stationSelling.get(b).getName())) {
+                        if (products.get(a).isSameType(stationSelling.get(b))) {
                             //deliver
                             stationSelling.get(b).setQuantity(stationSelling.get(b).getQuantity() + products.get(a).getQuantity());
+                            host.stockChanged(stationSelling.get(b));
                             break;
                         }
                     }
@@ -175,7 +164,7 @@ public class Process implements Serializable {
             for (int a = 0; a < products.size(); a++) {
                 //check each station's selling list
                 for (int b = 0; b < stationSelling.size(); b++) {
-                    if (products.get(a).getName().equals(stationSelling.get(b).getName())) {
+                    if (products.get(a).isSameType(stationSelling.get(b))) {
                         //determine if there is room for delivery
                         int stored = stationSelling.get(b).getQuantity();
                         int max = stationSelling.get(b).getStore();
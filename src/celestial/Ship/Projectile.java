@@ -21,6 +21,7 @@ package celestial.Ship;
 
 import cargo.Equipment;
 import cargo.Weapon;
+import engine.CollisionFilter;
 import engine.Entity;
 import java.awt.Graphics;
 import java.awt.Image;
@@ -57,7 +58,7 @@ public class Projectile extends Ship {
         this.height = height;
         this.raw_tex = raw_tex;
         this.tex = tex;
-        this.faction = owner.getFaction();
+        setFaction(owner.getFaction());
     }
 
     @Override
@@ -98,21 +99,19 @@ public class Projectile extends Ship {
 
     @Override
     protected void updateBound() {
-        bound.clear();
-
         if (width != 0 && height != 0) {
-            bound.add(new Rectangle((int) getX(), (int) getY(), getWidth(), getHeight()));
+            setSingleBound(bound, (int) getX(), (int) getY(), getWidth(), getHeight());
         } else {
-            bound.add(new Rectangle((int) getX(), (int) getY(), 50, 50));
+            setSingleBound(bound, (int) getX(), (int) getY(), 50, 50);
         }
     }
 
     @Override
-    public boolean quickCollideWith(Rectangle target) {
+    public boolean quickIntersects(double bx, double by, double bw, double bh) {
         if (width != 0 && height != 0) {
-            return new Rectangle((int) getX(), (int) getY(), getWidth(), getHeight()).intersects(target);
+            return overlaps((int) getX(), (int) getY(), getWidth(), getHeight(), bx, by, bw, bh);
         } else {
-            return new Rectangle((int) getX(), (int) getY(), 50, 50).intersects(target);
+            return overlaps((int) getX(), (int) getY(), 50, 50, bx, by, bw, bh);
         }
     }
 
@@ -197,6 +196,11 @@ public class Projectile extends Ship {
         }
     }
 
+    @Override
+    public int getCollisionLayer() {
+        return CollisionFilter.PROJECTILE;
+    }
+
     @Override
     public void informOfCollisionWith(Entity target) {
         if (target instanceof Projectile) {
@@ -18,12 +18,17 @@
  */
 package celestial.Ship;
 
+import cargo.CargoBay;
 import cargo.Equipment;
 import cargo.Hardpoint;
 import cargo.Item;
 import cargo.Weapon;
 import celestial.Celestial;
 import celestial.Jumphole;
+import engine.CollisionFilter;
+import engine.CollisionMask;
+import engine.Definitions.HardpointDef;
+import engine.Definitions.ShipDef;
 import engine.Entity;
 import java.awt.AlphaComposite;
 import java.awt.Color;
@@ -37,6 +42,8 @@ import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Random;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -46,11 +53,12 @@ import lib.Binling;
 import lib.Conversation;
 import lib.Faction;
 import lib.FastMath;
-import lib.Parser;
 import lib.Parser.Param;
 import lib.Parser.Term;
 import lib.Soundling;
+import universe.Market.Offer;
 import universe.SolarSystem;
+import universe.SpatialIndex;
 import universe.Universe;
 
 /**
@@ -106,6 +114,9 @@ public class Ship extends Celestial {
     public static final double MAX_JUMP_SHIELD_DAMAGE = 0.45;
     public static final double JUMP_SAFETY_FUEL = 0.25;
     public static final int HOSTILE_STANDING = -2;
+    public static final double COARSE_FUEL_BURN = 0.25;
+    //layers the targeting code treats as ships
+    protected static final int SHIP_LAYERS = CollisionFilter.bit(CollisionFilter.SHIP) | CollisionFilter.bit(CollisionFilter.CARGO);
     public static final String PLAYER_FACTION = "Player";
     public static final double MAX_WAIT_TIME = 25;
     public static final double MIN_WAIT_TIME = 5;
@@ -127,6 +138,7 @@ public class Ship extends Celestial {
     //faction
     protected Faction myFaction;
     protected String faction;
+    protected int factionId = -1;
     //group
     protected String group = "NONE";
     //plot ship switch
@@ -186,7 +198,7 @@ public class Ship extends Celestial {
     //cargo
     protected double cargo;
     protected ArrayList<Hardpoint> hardpoints = new ArrayList();
-    protected ArrayList<Item> cargoBay = new ArrayList();
+    protected CargoBay cargoBay = new CargoBay();
     //RNG
     Random rnd = new Random();
     //communications
@@ -202,6 +214,13 @@ public class Ship extends Celestial {
     private transient Soundling notifyMessage;
     //optimization of collission testing
     private double last_theta;
+    private transient double last_bx;
+    private transient double last_by;
+    //stats derived from the fitted equipment, rebuilt when it changes
+    private transient boolean statsValid;
+    private transient double fittedMass;
+    private transient double nearWeaponRange;
+    private transient double farWeaponRange;
 
     public Ship(String name, String type) {
         setName(name);
@@ -243,7 +262,7 @@ public class Ship extends Celestial {
             //setup stats
             initStats();
         }
-        state = State.ALIVE;
+        setState(State.ALIVE);
     }
 
     @Override
@@ -288,6 +307,8 @@ public class Ship extends Celestial {
     public void disposeGraphics() {
         raw_tex = null;
         tex = null;
+        //the bounds came from the sprite
+        bound.clear();
         for (int a = 0; a < hardpoints.size(); a++) {
             Equipment mount = hardpoints.get(a).getMounted();
             if (mount != null) {
@@ -312,42 +333,28 @@ public class Ship extends Celestial {
          * Loads the stats for this ship from the ships file.
          */
         initialized = true;
-        //create parser
-        Parser parse = Universe.getCache().getShipCache();
-        //get the term with this ship's type
-        ArrayList<Term> terms = parse.getTermsOfType("Ship");
-        Term relevant = null;
-        for (int a = 0; a < terms.size(); a++) {
-            String termName = terms.get(a).getValue("type");
-            if (termName.equals(getType())) {
-                //get the stats we want
-                relevant = terms.get(a);
-                //and end
-                break;
-            }
-        }
+        //get the definition for this ship's type
+        ShipDef relevant = Universe.getCache().getDefinitions().getShip(getType());
         if (relevant != null) {
-            //now decode stats
-            accel = Double.parseDouble(relevant.getValue("accel"));
-            turning = Double.parseDouble(relevant.getValue("turning"));
-            shield = maxShield = Double.parseDouble(relevant.getValue("shield"));
-            shieldRechargeRate = Double.parseDouble(relevant.getValue("shieldRecharge"));
-            maxHull = hull = Double.parseDouble(relevant.getValue("hull"));
-            maxFuel = fuel = Double.parseDouble(relevant.getValue("fuel"));
+            //now copy stats
+            accel = relevant.getAccel();
+            turning = relevant.getTurning();
+            shield = maxShield = relevant.getShield();
+            shieldRechargeRate = relevant.getShieldRecharge();
+            maxHull = hull = relevant.getHull();
+            maxFuel = fuel = relevant.getFuel();
             //check inf fuel
             if (fuel == -1) {
                 infiniteFuel = true;
                 maxFuel = fuel = Double.MAX_VALUE / 2;
             }
-            setMass(Double.parseDouble(relevant.getValue("mass")));
-            sensor = Double.parseDouble(relevant.getValue("sensor"));
-            cargo = Double.parseDouble(relevant.getValue("cargo"));
+            setMass(relevant.getMass());
+            sensor = relevant.getSensor();
+            cargo = relevant.getCargo();
             //initial width and height for OOS indeterminate
-            String ws = relevant.getValue("width");
-            String hs = relevant.getValue("height");
-            if (ws != null && hs != null) {
-                width = Integer.parseInt(ws);
-                height = Integer.parseInt(hs);
+            if (relevant.hasSize()) {
+                width = relevant.getWidth();
+                height = relevant.getHeight();
             }
             //hardpoints
             installHardpoints(relevant);
@@ -357,7 +364,7 @@ public class Ship extends Celestial {
             installFaction();
             pilot = makeName();
             //bring the ship to life
-            state = State.ALIVE;
+            setState(State.ALIVE);
         } else {
             System.out.println("The item " + getType() + " does not exist in SHIPS.txt");
         }
@@ -415,13 +422,13 @@ public class Ship extends Celestial {
         theta = (theta + 2.0 * Math.PI) % (2.0 * Math.PI);
         //am i dead?
         if (hull <= 0) {
-            state = State.DYING;
+            setState(State.DYING);
             System.out.println(getName() + " was destroyed in " + currentSystem.getName() + " by " + lastBlow.getName());
             //did the player destroy this ship?
-            if (lastBlow.getFaction().equals(PLAYER_FACTION)) {
+            if (lastBlow.isPlayerFaction()) {
                 //adjust the player's standings accordingly
                 if (!faction.equals("Neutral")) {
-                    getUniverse().getPlayerShip().getMyFaction().derivedModification(myFaction, -1.0);
+                    adjustPlayerStandings(-1.0);
                 }
             }
         } else {
@@ -438,15 +445,24 @@ public class Ship extends Celestial {
          * Keeps all player owned property in sync with the player's current
          * actions.
          */
-        if (faction.hashCode() == PLAYER_FACTION.hashCode()) {
+        if (isPlayerFaction()) {
             if (getUniverse() != null) {
                 myFaction = getUniverse().getPlayerShip().getMyFaction();
-                messages = getUniverse().getPlayerShip().getMessages();
                 alternateString = true;
             }
         }
     }
 
+    private void adjustPlayerStandings(double delta) {
+        /*
+         * The player's standings are shared by every system, so the change is
+         * made on the simulation thread once the systems are done updating.
+         */
+        final Faction player = getUniverse().getPlayerShip().getMyFaction();
+        final Faction victim = myFaction;
+        getUniverse().defer(() -> player.derivedModification(victim, delta));
+    }
+
     protected void aliveInDock() {
         //stop ship
         vx = 0;
@@ -498,7 +514,10 @@ public class Ship extends Celestial {
                 }
             }
             //avoidance code
-            if (autopilot != Autopilot.NONE) {
+            if (autopilot != Autopilot.NONE && currentSystem.isCoarse()) {
+                //nobody is watching, skip steering and avoidance
+                autopilotCoarse();
+            } else if (autopilot != Autopilot.NONE) {
                 Ship obstruction = avoidCollission();
                 if (obstruction == null || isExemptFromAvoidance()) {
                     autopilot();
@@ -507,7 +526,7 @@ public class Ship extends Celestial {
                 }
             }
             //bail code
-            if (!faction.equals(PLAYER_FACTION)) {
+            if (!isPlayerFaction()) {
                 //player ships do not bail
                 checkBail();
             }
@@ -547,6 +566,39 @@ public class Ship extends Celestial {
         }
     }
 
+    protected void autopilotCoarse() {
+        /*
+         * Reduced fidelity autopilot used while the player is in another
+         * system. Ships travel in straight lines at cruise speed instead of
+         * steering with their thrusters. It keeps using the normal autopilot
+         * states so the full autopilot picks up where it left off when the
+         * player jumps in.
+         */
+        try {
+            if (autopilot == Autopilot.FLY_TO_CELESTIAL || autopilot == Autopilot.FOLLOW) {
+                coarseFlyToBlock();
+            } else if (autopilot == Autopilot.WAIT) {
+                autopilotWaitBlock();
+            } else if (autopilot == Autopilot.ALL_STOP) {
+                vx = 0;
+                vy = 0;
+                autopilot = Autopilot.NONE;
+            } else if (autopilot == Autopilot.ATTACK_TARGET) {
+                coarseFightingBlock();
+            } else if (autopilot == Autopilot.DOCK_STAGE1 || autopilot == Autopilot.DOCK_STAGE2
+                    || autopilot == Autopilot.DOCK_STAGE3) {
+                coarseDockingBlock();
+            } else if (autopilot == Autopilot.UNDOCK_STAGE1 || autopilot == Autopilot.UNDOCK_STAGE2
+                    || autopilot == Autopilot.UNDOCK_STAGE3) {
+                coarseUndockingBlock();
+            }
+        } catch (Exception e) {
+            System.out.println(getName() + " encountered an autopilot issue. (" + autopilot + ", " + behavior + ")");
+            e.printStackTrace();
+            autopilot = Autopilot.NONE;
+        }
+    }
+
     protected boolean isExemptFromAvoidance() {
         if (getAutopilot() == Autopilot.DOCK_STAGE2) {
             return true;
@@ -598,39 +650,27 @@ public class Ship extends Celestial {
          *
          *
          */
-        //create a list for storing candidates
-        ArrayList<Ship> candidates = new ArrayList<>();
-        //create a rectangle for testing ahead of the ship
-        Rectangle thrustRect = getDodgeLine().getBounds();
-        //get a list of all entities in my solar system
-        ArrayList<Entity> entities = getCurrentSystem().getEntities();
+        //create a box for testing ahead of the ship, same as Line2D.getBounds()
+        Line2D dodge = getDodgeLine();
+        final double rx = Math.floor(Math.min(dodge.getX1(), dodge.getX2()));
+        final double ry = Math.floor(Math.min(dodge.getY1(), dodge.getY2()));
+        final double rw = Math.ceil(Math.max(dodge.getX1(), dodge.getX2())) - rx;
+        final double rh = Math.ceil(Math.max(dodge.getY1(), dodge.getY2())) - ry;
         //we only care about celestials extending the Ship class that are not projectiles
-        for (int a = 0; a < entities.size(); a++) {
-            if (entities.get(a) instanceof Ship) {
-                if (!(entities.get(a) instanceof Projectile)) {
-                    Ship test = (Ship) entities.get(a);
-                    if (test != this) {
-                        if (test.collideWith(thrustRect)) {
-                            candidates.add(test);
-                        }
-                    }
-                }
-            }
-        }
-        if (candidates.isEmpty()) {
-            return null;
-        } else {
-            Ship ret = candidates.get(0);
-            double rec = Double.MAX_VALUE;
-            for (int a = 0; a < candidates.size(); a++) {
-                double dist = candidates.get(a).distanceTo(ret);
-                if (dist < rec) {
-                    ret = candidates.get(a);
-                    rec = dist;
-                }
+        ArrayList<Ship> candidates = getCurrentSystem().getSpatialIndex().queryRect(rx, ry, rw, rh,
+                SpatialIndex.ALL & ~CollisionFilter.bit(CollisionFilter.PROJECTILE),
+                test -> test != this && test.intersects(rx, ry, rw, rh), new ArrayList<Ship>());
+        //pick the closest one
+        Ship ret = null;
+        double rec = Double.MAX_VALUE;
+        for (int a = 0; a < candidates.size(); a++) {
+            double dist = distanceTo(candidates.get(a));
+            if (dist < rec) {
+                ret = candidates.get(a);
+                rec = dist;
             }
-            return ret;
         }
+        return ret;
     }
 
     public Line2D getDodgeLine() {
@@ -910,6 +950,115 @@ public class Ship extends Celestial {
         }
     }
 
+    protected void coarseFlyToBlock() {
+        if (flyToTarget == null) {
+            autopilot = Autopilot.NONE;
+        } else if (flyToTarget.getCurrentSystem() != currentSystem) {
+            //jumping and aborting work the same at any fidelity
+            if (autopilot == Autopilot.FOLLOW) {
+                autopilotFollowBlock();
+            } else {
+                autopilotFlyToBlock();
+            }
+        } else if (autopilot == Autopilot.FOLLOW) {
+            //keep up with the target
+            coarseMoveTo(flyToTarget.getCenterX(), flyToTarget.getCenterY(), autopilotRange + getWidth() * 2);
+        } else if (flyToTarget instanceof Jumphole && distanceTo(flyToTarget) < flyToTarget.getWidth() / 2) {
+            //there are no collisions out of sector, so use the hole directly
+            flyToTarget.informOfCollisionWith(this);
+        } else if (coarseMoveTo(flyToTarget.getCenterX(), flyToTarget.getCenterY(), autopilotRange)) {
+            //destination reached
+            autopilot = Autopilot.NONE;
+        }
+    }
+
+    protected void coarseFightingBlock() {
+        if (target == null || target.getCurrentSystem() != currentSystem || target.getState() != State.ALIVE) {
+            target = null;
+            autopilot = Autopilot.NONE;
+        } else {
+            double range = getNearWeaponRange();
+            //close to weapons range
+            coarseMoveTo(target.getCenterX(), target.getCenterY(), range / 2);
+            //face the enemy and fire, damage is dealt directly out of sector
+            double desired = FastMath.atan2(getFireLeadY(), getFireLeadX());
+            theta = (desired + 2.0 * Math.PI) % (2.0 * Math.PI);
+            fireActiveTurrets(target);
+            if (distanceTo(target) <= range) {
+                fireActiveGuns(target);
+            }
+        }
+    }
+
+    protected void coarseDockingBlock() {
+        if (flyToTarget instanceof Station && flyToTarget.getState() == State.ALIVE
+                && flyToTarget.getCurrentSystem() == currentSystem) {
+            Station tmp = (Station) flyToTarget;
+            if (!tmp.canDock(this)) {
+                cmdAbortDock();
+            } else if (port == null) {
+                //get the docking port to use
+                port = tmp.requestDockPort(this);
+            } else {
+                //fly into the port, it docks us once we are inside its bound
+                coarseMoveTo(port.getPortX(), port.getPortY(), 0);
+            }
+        } else {
+            cmdAbortDock();
+        }
+    }
+
+    protected void coarseUndockingBlock() {
+        if (port == null) {
+            autopilot = Autopilot.NONE;
+        } else if (autopilot != Autopilot.UNDOCK_STAGE3) {
+            //get to the docking align
+            if (coarseMoveTo(port.getAlignX(), port.getAlignY(), 0)) {
+                autopilot = Autopilot.UNDOCK_STAGE3;
+            }
+        } else {
+            //leave along the line from the port to the align
+            double ax = x - port.getAlignX();
+            double ay = y - port.getAlignY();
+            if (magnitude(ax, ay) > 1000) {
+                autopilot = Autopilot.NONE;
+                port = null;
+            } else {
+                theta = FastMath.atan2(port.getPortY() - port.getAlignY(), port.getPortX() - port.getAlignX());
+                theta = (theta + 2.0 * Math.PI) % (2.0 * Math.PI);
+                vx = -getFlightHold() * Math.cos(theta);
+                vy = -getFlightHold() * Math.sin(theta);
+                fuel -= accel * tpf * COARSE_FUEL_BURN;
+            }
+        }
+    }
+
+    protected boolean coarseMoveTo(double tx, double ty, double range) {
+        /*
+         * Points the ship at a position and sets its velocity so it travels
+         * there at cruise speed without overshooting. Returns true once the
+         * ship is within range. Fuel is burned at a fraction of the thrust
+         * rate since a cruising ship only thrusts part of the time.
+         */
+        double ax = getCenterX() - tx;
+        double ay = getCenterY() - ty;
+        double dist = magnitude(ax, ay);
+        if (dist <= range + 1) {
+            vx = 0;
+            vy = 0;
+            return true;
+        }
+        if (fuel > 0) {
+            double desired = FastMath.atan2(ay, ax);
+            theta = (desired + 2.0 * Math.PI) % (2.0 * Math.PI);
+            double speed = Math.min(getFlightHold(), (dist - range) / tpf);
+            vx = -speed * Math.cos(theta);
+            vy = -speed * Math.sin(theta);
+            fuel -= accel * tpf * COARSE_FUEL_BURN;
+        }
+        return false;
+    }
+
     protected void autopilotWaitBlock() {
         if (autopilot == Autopilot.WAIT) {
             waitTimer += tpf;
@@ -1173,12 +1322,7 @@ public class Ship extends Celestial {
          * retreat to, it will continue to fight.
          */
         //get a list of systems in jump range
-        ArrayList<SolarSystem> zone = new ArrayList<>();
-        for (int a = 0; a < getUniverse().getSystems().size(); a++) {
-            if (canJump(getUniverse().getSystems().get(a))) {
-                zone.add(getUniverse().getSystems().get(a));
-            }
-        }
+        List<SolarSystem> zone = getJumpZone();
         if (zone.size() > 0 && target != null) {
             //abort trade
             abortTrade();
@@ -1223,112 +1367,21 @@ public class Ship extends Celestial {
                     /*
                      * This is stage 1, find the best deal.
                      */
-                    //get a list of friendly stations
-                    ArrayList<Station> friendly = new ArrayList<>();
-                    ArrayList<SolarSystem> zone = new ArrayList<>();
-                    for (int a = 0; a < getUniverse().getSystems().size(); a++) {
-                        if (canJump(getUniverse().getSystems().get(a))) {
-                            ArrayList<Station> tmp = getFriendlyStationsInSystem(getUniverse().getSystems().get(a));
-                            zone.add(getUniverse().getSystems().get(a));
-                            friendly.addAll(tmp);
-                        }
-                    }
-                    if (friendly.size() > 1) {
-                        //build a list of wares that are being produced
-                        ArrayList<String> produced = new ArrayList<>();
-                        for (int a = 0; a < friendly.size(); a++) {
-                            ArrayList<Item> made = friendly.get(a).getStationSelling();
-                            for (int b = 0; b < made.size(); b++) {
-                                String ware = made.get(b).getName().toString();
-                                if (!produced.contains(ware)) {
-                                    produced.add(ware);
-                                }
-                            }
-                        }
-                        //build a list of wares that are being consumed
-                        ArrayList<String> consumed = new ArrayList<>();
-                        for (int a = 0; a < friendly.size(); a++) {
-                            ArrayList<Item> made = friendly.get(a).getStationBuying();
-                            for (int b = 0; b < made.size(); b++) {
-                                String ware = made.get(b).getName().toString();
-                                if (!consumed.contains(ware)) {
-                                    consumed.add(ware);
-                                }
-                            }
-                        }
-                        //cross reference the lists to find what's the same in both
-                        ArrayList<String> sample = new ArrayList<>();
-                        for (int a = 0; a < consumed.size(); a++) {
-                            for (int b = 0; b < produced.size(); b++) {
-                                if (consumed.get(a).equals(produced.get(b))) {
-                                    sample.add(consumed.get(a));
-                                    break;
-                                }
-                            }
-                        }
-                        //make sure there's a sample
-                        if (sample.size() > 0) {
-                            Station buyLoc = null;
-                            Station sellLoc = null;
-                            Item bestWare = null;
-                            double gain = 0;
-                            for (int a = 0; a < sample.size(); a++) {
-                                Item ware = new Item(sample.get(a));
-                                //get the best stations
-                                Station pickUp = getBestPickup(zone, ware);
-                                Station dropOff = getBestDropOff(zone, ware);
-                                //get prices
-                                if (pickUp != null && dropOff != null) {
-                                    int pickUpPrice = pickUp.getPrice(ware);
-                                    int dropOffPrice = dropOff.getPrice(ware);
-                                    //find profit
-                                    int profit = dropOffPrice - pickUpPrice;
-                                    if (pickUpPrice != -1 && dropOffPrice != -1) {
-                                        if (profit > 0) {
-                                            if (profit > gain) {
-                                                buyLoc = pickUp;
-                                                sellLoc = dropOff;
-                                                bestWare = ware;
-                                                //store prices
-                                                gain = profit;
-                                                buyFromPrice = pickUpPrice;
-                                                sellToPrice = dropOffPrice;
-                                            }
-                                        } else {
-                                            //no point in trading this
-                                        }
-                                    }
-                                } else {
-                                    //something went wrong
-                                }
-                            }
-                            if (bestWare != null) {
-                                //store start and end
-                                buyFromStation = buyLoc;
-                                sellToStation = sellLoc;
-                                workingWare = bestWare;
-                                //start trading
-                                if (canJump(buyFromStation.getCurrentSystem())) {
-                                    if (buyFromStation.getCurrentSystem() != currentSystem) {
-                                        cmdJump(buyFromStation.getCurrentSystem());
-                                    }
-                                    cmdDock(buyFromStation);
-                                } else {
-                                    abortTrade();
-                                    leaveSystem();
-                                }
-                            } else {
-                                /*
-                                 * Universe traders roam the universe
-                                 */
-                                leaveSystem();
+                    if (findUniverseTrade()) {
+                        //start trading
+                        if (canJump(buyFromStation.getCurrentSystem())) {
+                            if (buyFromStation.getCurrentSystem() != currentSystem) {
+                                cmdJump(buyFromStation.getCurrentSystem());
                             }
+                            cmdDock(buyFromStation);
                         } else {
-                            //maybe profit awaits us elsewhere
+                            abortTrade();
                             leaveSystem();
                         }
                     } else {
-                        //profit definately awaits us elsewhere
+                        /*
+                         * Universe traders roam the universe
+                         */
                         leaveSystem();
                     }
                 }
@@ -1364,8 +1417,8 @@ public class Ship extends Celestial {
                         //how much can we carry if we want to follow reserve rules
                         int q = (int) ((1 - TRADER_RESERVE_PERCENT) * maxQ);
                         //buy as much as we can carry
-                        curr.buy(this, workingWare, q);
-                        System.out.println(getName() + " bought " + getNumInCargoBay(workingWare)
+                        TradeReceipt receipt = curr.buy(this, workingWare, q);
+                        System.out.println(getName() + " bought " + receipt.getQuantity()
                                 + " " + workingWare.getName() + " from " + curr.getName());
                     } else {
                         //abort trading operation
@@ -1380,8 +1433,8 @@ public class Ship extends Celestial {
                     if (curr.getPrice(workingWare) >= sellToPrice) {
                         //try to dump all our wares at this price
                         int q = getNumInCargoBay(workingWare);
-                        curr.sell(this, workingWare, q);
-                        System.out.println(getName() + " sold " + (q - getNumInCargoBay(workingWare))
+                        TradeReceipt receipt = curr.sell(this, workingWare, q);
+                        System.out.println(getName() + " sold " + receipt.getQuantity()
                                 + " " + workingWare.getName() + " to " + curr.getName());
                     } else {
                         //System.out.println(getName() + " did not sell (Bad sell price)");
@@ -1448,104 +1501,22 @@ public class Ship extends Celestial {
                     /*
                      * This is stage 1, find the best deal.
                      */
-                    //get a list of friendly stations
-                    ArrayList<Station> friendly = getFriendlyStationsInSystem();
-                    if (friendly.size() > 1) {
-                        //build a list of wares that are being produced
-                        ArrayList<String> produced = new ArrayList<>();
-                        for (int a = 0; a < friendly.size(); a++) {
-                            ArrayList<Item> made = friendly.get(a).getStationSelling();
-                            for (int b = 0; b < made.size(); b++) {
-                                String ware = made.get(b).getName().toString();
-                                if (!produced.contains(ware)) {
-                                    produced.add(ware);
-                                }
-                            }
-                        }
-                        //build a list of wares that are being consumed
-                        ArrayList<String> consumed = new ArrayList<>();
-                        for (int a = 0; a < friendly.size(); a++) {
-                            ArrayList<Item> made = friendly.get(a).getStationBuying();
-                            for (int b = 0; b < made.size(); b++) {
-                                String ware = made.get(b).getName().toString();
-                                if (!consumed.contains(ware)) {
-                                    consumed.add(ware);
-                                }
-                            }
-                        }
-                        //cross reference the lists to find what's the same in both
-                        ArrayList<String> sample = new ArrayList<>();
-                        for (int a = 0; a < consumed.size(); a++) {
-                            for (int b = 0; b < produced.size(); b++) {
-                                if (consumed.get(a).equals(produced.get(b))) {
-                                    sample.add(consumed.get(a));
-                                    break;
-                                }
-                            }
-                        }
-                        //make sure there's a sample
-                        if (sample.size() > 0) {
-                            Station buyLoc = null;
-                            Station sellLoc = null;
-                            Item bestWare = null;
-                            double gain = 0;
-                            for (int a = 0; a < sample.size(); a++) {
-                                Item ware = new Item(sample.get(a));
-                                //get the best stations
-                                ArrayList<SolarSystem> curr = new ArrayList<>();
-                                curr.add(currentSystem);
-                                Station pickUp = getBestPickup(curr, ware);
-                                Station dropOff = getBestDropOff(curr, ware);
-                                //get prices
-                                if (pickUp != null && dropOff != null) {
-                                    int pickUpPrice = pickUp.getPrice(ware);
-                                    int dropOffPrice = dropOff.getPrice(ware);
-                                    //find profit
-                                    int profit = dropOffPrice - pickUpPrice;
-                                    if (pickUpPrice != -1 && dropOffPrice != -1) {
-                                        if (profit > 0) {
-                                            if (profit > gain) {
-                                                buyLoc = pickUp;
-                                                sellLoc = dropOff;
-                                                bestWare = ware;
-                                                //store prices
-                                                gain = profit;
-                                                buyFromPrice = pickUpPrice;
-                                                sellToPrice = dropOffPrice;
-                                            }
-                                        } else {
-                                            //no point in trading this
-                                        }
-                                    }
-                                } else {
-                                    //something went wrong
-                                }
-                            }
-                            if (bestWare != null) {
-                                //store start and end
-                                buyFromStation = buyLoc;
-                                sellToStation = sellLoc;
-                                workingWare = bestWare;
-                                //start trading
-                                cmdDock(buyFromStation);
-                            } else {
-                                if (faction.equals(PLAYER_FACTION)) {
-                                    dockAtFriendlyStationInSystem();
-                                } else {
-                                    /*
-                                     * I honestly don't give a damn if some random NPC trader dies.
-                                     * It probably keeps the universe more interesting.
-                                     */
-                                    leaveSystem();
-                                }
-                            }
+                    //sector traders stay in this system
+                    ArrayList<SolarSystem> zone = new ArrayList<>();
+                    zone.add(currentSystem);
+                    if (findTrade(zone, null, null)) {
+                        //start trading
+                        cmdDock(buyFromStation);
+                    } else {
+                        if (isPlayerFaction()) {
+                            dockAtFriendlyStationInSystem();
                         } else {
-                            //maybe profit awaits us elsewhere
+                            /*
+                             * I honestly don't give a damn if some random NPC trader dies.
+                             * It probably keeps the universe more interesting.
+                             */
                             leaveSystem();
                         }
-                    } else {
-                        //profit definately awaits us elsewhere
-                        leaveSystem();
                     }
                 }
             } else {
@@ -1577,8 +1548,8 @@ public class Ship extends Celestial {
                         //how much can we carry if we want to follow reserve rules
                         int q = (int) ((1 - TRADER_RESERVE_PERCENT) * maxQ);
                         //buy as much as we can carry
-                        curr.buy(this, workingWare, q);
-                        System.out.println(getName() + " bought " + getNumInCargoBay(workingWare)
+                        TradeReceipt receipt = curr.buy(this, workingWare, q);
+                        System.out.println(getName() + " bought " + receipt.getQuantity()
                                 + " " + workingWare.getName() + " from " + curr.getName());
                     } else {
                         //abort trading operation
@@ -1593,8 +1564,8 @@ public class Ship extends Celestial {
                     if (curr.getPrice(workingWare) >= sellToPrice) {
                         //try to dump all our wares at this price
                         int q = getNumInCargoBay(workingWare);
-                        curr.sell(this, workingWare, q);
-                        System.out.println(getName() + " sold " + (q - getNumInCargoBay(workingWare))
+                        TradeReceipt receipt = curr.sell(this, workingWare, q);
+                        System.out.println(getName() + " sold " + receipt.getQuantity()
                                 + " " + workingWare.getName() + " to " + curr.getName());
                     } else {
                         //System.out.println(getName() + " did not sell (Bad sell price)");
@@ -1649,105 +1620,16 @@ public class Ship extends Celestial {
                         /*
                          * This is stage 1, find the best deal.
                          */
-                        //get a list of friendly stations
-                        ArrayList<Station> friendly = new ArrayList<>();
-                        ArrayList<SolarSystem> zone = new ArrayList<>();
-                        for (int a = 0; a < getUniverse().getSystems().size(); a++) {
-                            if (canJump(getUniverse().getSystems().get(a))) {
-                                ArrayList<Station> tmp = getFriendlyStationsInSystem(getUniverse().getSystems().get(a));
-                                zone.add(getUniverse().getSystems().get(a));
-                                friendly.addAll(tmp);
-                            }
-                        }
-                        if (friendly.size() > 1) {
-                            //we know what is being produced, it is homebase products
-                            ArrayList<String> produced = new ArrayList<>();
-                            {
-                                ArrayList<Item> made = homeBase.getStationSelling();
-                                for (int b = 0; b < made.size(); b++) {
-                                    String ware = made.get(b).getName().toString();
-                                    if (!produced.contains(ware)) {
-                                        produced.add(ware);
-                                    }
-                                }
-                            }
-                            //build a list of wares that are being consumed
-                            ArrayList<String> consumed = new ArrayList<>();
-                            for (int a = 0; a < friendly.size(); a++) {
-                                ArrayList<Item> made = friendly.get(a).getStationBuying();
-                                for (int b = 0; b < made.size(); b++) {
-                                    String ware = made.get(b).getName().toString();
-                                    if (!consumed.contains(ware)) {
-                                        consumed.add(ware);
-                                    }
-                                }
-                            }
-                            //cross reference the lists to find what's the same in both
-                            ArrayList<String> sample = new ArrayList<>();
-                            for (int a = 0; a < consumed.size(); a++) {
-                                for (int b = 0; b < produced.size(); b++) {
-                                    if (consumed.get(a).equals(produced.get(b))) {
-                                        sample.add(consumed.get(a));
-                                        break;
-                                    }
-                                }
-                            }
-                            //make sure there's a sample
-                            if (sample.size() > 0) {
-                                Station buyLoc = null;
-                                Station sellLoc = null;
-                                Item bestWare = null;
-                                double gain = 0;
-                                for (int a = 0; a < sample.size(); a++) {
-                                    Item ware = new Item(sample.get(a));
-                                    //always pick up from homebase
-                                    Station pickUp = homeBase;
-                                    //get best sell station
-                                    Station dropOff = getBestDropOff(zone, ware);
-                                    //get prices
-                                    if (pickUp != null && dropOff != null) {
-                                        int pickUpPrice = pickUp.getPrice(ware);
-                                        int dropOffPrice = dropOff.getPrice(ware);
-                                        //find profit
-                                        int profit = dropOffPrice - pickUpPrice;
-                                        if (pickUpPrice != -1 && dropOffPrice != -1) {
-                                            if (profit > 0) {
-                                                if (profit > gain) {
-                                                    buyLoc = pickUp;
-                                                    sellLoc = dropOff;
-                                                    bestWare = ware;
-                                                    //store prices
-                                                    gain = profit;
-                                                    buyFromPrice = pickUpPrice;
-                                                    sellToPrice = dropOffPrice;
-                                                }
-                                            } else {
-                                                //no point in trading this
-                                            }
-                                        }
-                                    } else {
-                                        //something went wrong
-                                    }
-                                }
-                                if (bestWare != null) {
-                                    //store start and end
-                                    buyFromStation = buyLoc;
-                                    sellToStation = sellLoc;
-                                    workingWare = bestWare;
-                                    //start trading
-                                    if (canJump(buyFromStation.getCurrentSystem())) {
-                                        if (buyFromStation.getCurrentSystem() != currentSystem) {
-                                            cmdJump(buyFromStation.getCurrentSystem());
-                                        }
-                                        cmdDock(buyFromStation);
-                                    } else {
-                                        abortTrade();
-                                    }
-                                } else {
-                                    dockAtFriendlyStationInSystem();
+                        //sell homebase products wherever they pay best
+                        if (findTrade(getJumpZone(), homeBase, null)) {
+                            //start trading
+                            if (canJump(buyFromStation.getCurrentSystem())) {
+                                if (buyFromStation.getCurrentSystem() != currentSystem) {
+                                    cmdJump(buyFromStation.getCurrentSystem());
                                 }
+                                cmdDock(buyFromStation);
                             } else {
-                                dockAtFriendlyStationInSystem();
+                                abortTrade();
                             }
                         } else {
                             dockAtFriendlyStationInSystem();
@@ -1785,8 +1667,8 @@ public class Ship extends Celestial {
                             //how much can we carry if we want to follow reserve rules
                             int q = (int) ((1 - TRADER_RESERVE_PERCENT) * maxQ);
                             //buy as much as we can carry
-                            curr.buy(this, workingWare, q);
-                            System.out.println(getName() + " bought " + getNumInCargoBay(workingWare)
+                            TradeReceipt receipt = curr.buy(this, workingWare, q);
+                            System.out.println(getName() + " bought " + receipt.getQuantity()
                                     + " " + workingWare.getName() + " from " + curr.getName());
                         } else {
                             //abort trading operation
@@ -1801,8 +1683,8 @@ public class Ship extends Celestial {
                         if (curr.getPrice(workingWare) >= sellToPrice) {
                             //try to dump all our wares at this price
                             int q = getNumInCargoBay(workingWare);
-                            curr.sell(this, workingWare, q);
-                            System.out.println(getName() + " sold " + (q - getNumInCargoBay(workingWare))
+                            TradeReceipt receipt = curr.sell(this, workingWare, q);
+                            System.out.println(getName() + " sold " + receipt.getQuantity()
                                     + " " + workingWare.getName() + " to " + curr.getName());
                         } else {
                             //System.out.println(getName() + " did not sell (Bad sell price)");
@@ -1872,103 +1754,16 @@ public class Ship extends Celestial {
                         /*
                          * This is stage 1, find the best deal.
                          */
-                        //get a list of friendly stations
-                        ArrayList<Station> friendly = new ArrayList<>();
-                        ArrayList<SolarSystem> zone = new ArrayList<>();
-                        for (int a = 0; a < getUniverse().getSystems().size(); a++) {
-                            if (canJump(getUniverse().getSystems().get(a))) {
-                                ArrayList<Station> tmp = getFriendlyStationsInSystem(getUniverse().getSystems().get(a));
-                                zone.add(getUniverse().getSystems().get(a));
-                                friendly.addAll(tmp);
-                            }
-                        }
-                        if (friendly.size() > 1) {
-                            //build a list of wares that are being produced
-                            ArrayList<String> produced = new ArrayList<>();
-                            for (int a = 0; a < friendly.size(); a++) {
-                                ArrayList<Item> made = friendly.get(a).getStationSelling();
-                                for (int b = 0; b < made.size(); b++) {
-                                    String ware = made.get(b).getName().toString();
-                                    if (!produced.contains(ware)) {
-                                        produced.add(ware);
-                                    }
-                                }
-                            }
-                            //we know what is being consumed, since it's resources homebase needs
-                            ArrayList<String> consumed = new ArrayList<>();
-                            ArrayList<Item> made = homeBase.getStationBuying();
-                            for (int b = 0; b < made.size(); b++) {
-                                String ware = made.get(b).getName().toString();
-                                if (!consumed.contains(ware)) {
-                                    consumed.add(ware);
-                                }
-                            }
-                            //cross reference the lists to find what's the same in both
-                            ArrayList<String> sample = new ArrayList<>();
-                            for (int a = 0; a < consumed.size(); a++) {
-                                for (int b = 0; b < produced.size(); b++) {
-                                    if (consumed.get(a).equals(produced.get(b))) {
-                                        sample.add(consumed.get(a));
-                                        break;
-                                    }
-                                }
-                            }
-                            //make sure there's a sample
-                            if (sample.size() > 0) {
-                                Station buyLoc = null;
-                                Station sellLoc = null;
-                                Item bestWare = null;
-                                double gain = 0;
-                                for (int a = 0; a < sample.size(); a++) {
-                                    Item ware = new Item(sample.get(a));
-                                    //get the best stations
-                                    Station pickUp = getBestPickup(zone, ware);
-                                    //we always drop off at the home base
-                                    Station dropOff = homeBase;
-                                    //get prices
-                                    if (pickUp != null && dropOff != null) {
-                                        int pickUpPrice = pickUp.getPrice(ware);
-                                        int dropOffPrice = dropOff.getPrice(ware);
-                                        //find profit
-                                        int profit = dropOffPrice - pickUpPrice;
-                                        if (pickUpPrice != -1 && dropOffPrice != -1) {
-                                            if (profit > 0) {
-                                                if (profit > gain) {
-                                                    buyLoc = pickUp;
-                                                    sellLoc = dropOff;
-                                                    bestWare = ware;
-                                                    //store prices
-                                                    gain = profit;
-                                                    buyFromPrice = pickUpPrice;
-                                                    sellToPrice = dropOffPrice;
-                                                }
-                                            } else {
-                                                //no point in trading this
-                                            }
-                                        }
-                                    } else {
-                                        //something went wrong
-                                    }
-                                }
-                                if (bestWare != null) {
-                                    //store start and end
-                                    buyFromStation = buyLoc;
-                                    sellToStation = sellLoc;
-                                    workingWare = bestWare;
-                                    //start trading
-                                    if (canJump(buyFromStation.getCurrentSystem())) {
-                                        if (buyFromStation.getCurrentSystem() != currentSystem) {
-                                            cmdJump(buyFromStation.getCurrentSystem());
-                                        }
-                                        cmdDock(buyFromStation);
-                                    } else {
-                                        abortTrade();
-                                    }
-                                } else {
-                                    dockAtFriendlyStationInSystem();
+                        //buy what homebase needs wherever it is cheapest
+                        if (findTrade(getJumpZone(), null, homeBase)) {
+                            //start trading
+                            if (canJump(buyFromStation.getCurrentSystem())) {
+                                if (buyFromStation.getCurrentSystem() != currentSystem) {
+                                    cmdJump(buyFromStation.getCurrentSystem());
                                 }
+                                cmdDock(buyFromStation);
                             } else {
-                                dockAtFriendlyStationInSystem();
+                                abortTrade();
                             }
                         } else {
                             dockAtFriendlyStationInSystem();
@@ -2006,7 +1801,7 @@ public class Ship extends Celestial {
                             //how much does the homebase need?
                             int needQ = 0;
                             for (int v = 0; v < homeBase.getStationBuying().size(); v++) {
-                                if (homeBase.getStationBuying().get(v).getName().equals(workingWare.getName())) {
+                                if (homeBase.getStationBuying().get(v).isSameType(workingWare)) {
                                     int have = homeBase.getStationBuying().get(v).getQuantity();
                                     int store = homeBase.getStationBuying().get(v).getStore();
                                     needQ = store - have;
@@ -2019,8 +1814,8 @@ public class Ship extends Celestial {
                             //how much can we carry if we want to follow reserve rules
                             int q = (int) ((1 - TRADER_RESERVE_PERCENT) * maxQ);
                             //buy as much as we can carry
-                            curr.buy(this, workingWare, q);
-                            System.out.println(getName() + " bought " + getNumInCargoBay(workingWare)
+                            TradeReceipt receipt = curr.buy(this, workingWare, q);
+                            System.out.println(getName() + " bought " + receipt.getQuantity()
                                     + " " + workingWare.getName() + " from " + curr.getName());
                         } else {
                             //abort trading operation
@@ -2035,8 +1830,8 @@ public class Ship extends Celestial {
                         if (curr.getPrice(workingWare) >= sellToPrice) {
                             //try to dump all our wares at this price
                             int q = getNumInCargoBay(workingWare);
-                            curr.sell(this, workingWare, q);
-                            System.out.println(getName() + " sold " + (q - getNumInCargoBay(workingWare))
+                            TradeReceipt receipt = curr.sell(this, workingWare, q);
+                            System.out.println(getName() + " sold " + receipt.getQuantity()
                                     + " " + workingWare.getName() + " to " + curr.getName());
                         } else {
                             //System.out.println(getName() + " did not sell (Bad sell price)");
@@ -2174,6 +1969,15 @@ public class Ship extends Celestial {
         }
     }
 
+    protected boolean findUniverseTrade() {
+        /*
+         * Finds the most profitable ware to move between friendly stations
+         * within jump range and stores the route. Returns false if there is
+         * nothing worth trading.
+         */
+        return findTrade(getJumpZone(), null, null);
+    }
+
     /*
      * Utility nav functions
      */
@@ -2266,63 +2070,130 @@ public class Ship extends Celestial {
     }
 
     public Station getBestDropOff(ArrayList<SolarSystem> systems, Item ware) {
-        Station ret = null;
-        {
-            Station bStation = null;
-            int bPrice = 0;
-            for (int b = 0; b < systems.size(); b++) {
-                ArrayList<Station> friendly = getFriendlyStationsInSystem(systems.get(b));
-                if (friendly.size() > 0) {
-                    for (int a = 0; a < friendly.size(); a++) {
-                        Station test = friendly.get(a);
-                        if (test.buysWare(ware)) {
-                            if (bStation == null) {
-                                bStation = test;
-                                bPrice = test.getPrice(ware);
-                            } else {
-                                int nP = test.getPrice(ware);
-                                if (nP > bPrice) {
-                                    bStation = test;
-                                }
-                            }
-                        }
-                    }
-                }
+        Offer best = getBestBid(systems, ware.getName());
+        return best != null ? best.getStation() : null;
+    }
+
+    public Station getBestPickup(ArrayList<SolarSystem> systems, Item ware) {
+        Offer best = getBestAsk(systems, ware.getName());
+        return best != null ? best.getStation() : null;
+    }
+
+    private Offer getBestBid(List<SolarSystem> systems, String ware) {
+        //highest paying friendly buyer
+        Offer ret = null;
+        for (int a = 0; a < systems.size(); a++) {
+            Offer tmp = systems.get(a).getMarket().getBestBid(ware, this);
+            if (tmp != null && (ret == null || tmp.getPrice() > ret.getPrice())) {
+                ret = tmp;
             }
-            ret = bStation;
         }
         return ret;
     }
 
-    public Station getBestPickup(ArrayList<SolarSystem> systems, Item ware) {
-        Station ret = null;
-        {
-            Station bStation = null;
-            int bPrice = 0;
-            for (int b = 0; b < systems.size(); b++) {
-                ArrayList<Station> friendly = getFriendlyStationsInSystem(systems.get(b));
-                if (friendly.size() > 0) {
-                    for (int a = 0; a < friendly.size(); a++) {
-                        Station test = friendly.get(a);
-                        if (test.sellsWare(ware)) {
-                            if (bStation == null) {
-                                bStation = test;
-                                bPrice = test.getPrice(ware);
-                            } else {
-                                int nP = test.getPrice(ware);
-                                if (nP < bPrice) {
-                                    bStation = test;
-                                }
-                            }
-                        }
-                    }
-                }
+    private Offer getBestAsk(List<SolarSystem> systems, String ware) {
+        //cheapest friendly seller
+        Offer ret = null;
+        for (int a = 0; a < systems.size(); a++) {
+            Offer tmp = systems.get(a).getMarket().getBestAsk(ware, this);
+            if (tmp != null && (ret == null || tmp.getPrice() < ret.getPrice())) {
+                ret = tmp;
             }
-            ret = bStation;
         }
         return ret;
     }
 
+    protected boolean findTrade(List<SolarSystem> zone, Station from, Station to) {
+        /*
+         * Finds the most profitable ware to move between friendly stations
+         * in the zone and stores the route. If from or to is given the ware
+         * has to be picked up or dropped off there. Returns false if there
+         * is nothing worth trading.
+         */
+        //wares that might be worth moving
+        HashSet<String> wares = new HashSet<>();
+        if (from != null) {
+            ArrayList<Item> made = from.getStationSelling();
+            for (int a = 0; a < made.size(); a++) {
+                wares.add(made.get(a).getName());
+            }
+        } else if (to != null) {
+            ArrayList<Item> needed = to.getStationBuying();
+            for (int a = 0; a < needed.size(); a++) {
+                wares.add(needed.get(a).getName());
+            }
+        } else {
+            for (int a = 0; a < zone.size(); a++) {
+                wares.addAll(zone.get(a).getMarket().getWaresSold());
+            }
+        }
+        //find the best margin
+        Station buyLoc = null;
+        Station sellLoc = null;
+        String bestWare = null;
+        int gain = 0;
+        int buyPrice = 0;
+        int sellPrice = 0;
+        for (String ware : wares) {
+            Station pickUp;
+            Station dropOff;
+            int pickUpPrice;
+            int dropOffPrice;
+            if (from != null) {
+                pickUp = from;
+                pickUpPrice = from.getPrice(new Item(ware));
+            } else {
+                Offer ask = getBestAsk(zone, ware);
+                if (ask == null) {
+                    continue;
+                }
+                pickUp = ask.getStation();
+                pickUpPrice = ask.getPrice();
+            }
+            if (to != null) {
+                dropOff = to;
+                dropOffPrice = to.getPrice(new Item(ware));
+            } else {
+                Offer bid = getBestBid(zone, ware);
+                if (bid == null) {
+                    continue;
+                }
+                dropOff = bid.getStation();
+                dropOffPrice = bid.getPrice();
+            }
+            int profit = dropOffPrice - pickUpPrice;
+            if (profit > gain) {
+                buyLoc = pickUp;
+                sellLoc = dropOff;
+                bestWare = ware;
+                gain = profit;
+                buyPrice = pickUpPrice;
+                sellPrice = dropOffPrice;
+            }
+        }
+        if (bestWare != null) {
+            //store start and end
+            buyFromStation = buyLoc;
+            sellToStation = sellLoc;
+            workingWare = new Item(bestWare);
+            buyFromPrice = buyPrice;
+            sellToPrice = sellPrice;
+            return true;
+        }
+        return false;
+    }
+
+    protected List<SolarSystem> getJumpZone() {
+        /*
+         * Systems this ship has the fuel to jump to, closest first. Uses the
+         * same rule as canJump().
+         */
+        if (!hasJumpDrive()) {
+            return new ArrayList<>();
+        }
+        return getUniverse().getStarMap().getReachable(currentSystem, fuel - getJumpSafetyFuel() * maxFuel);
+    }
+
     public Station getRandomStationInSystem() {
         Station ret = null;
         {
@@ -2383,57 +2254,15 @@ public class Ship extends Celestial {
     }
 
     public ArrayList<Ship> getShipsInSensorRange() {
-        ArrayList<Ship> ret = new ArrayList<>();
-        {
-            //get ship list
-            ArrayList<Entity> ships = currentSystem.getShipList();
-            for (int a = 0; a < ships.size(); a++) {
-                Ship tmp = (Ship) ships.get(a);
-                if (tmp != this) {
-                    if (tmp.distanceTo(this) < sensor) {
-                        ret.add(tmp);
-                    }
-                }
-            }
-            //get station list
-            ArrayList<Entity> stations = currentSystem.getStationList();
-            for (int a = 0; a < stations.size(); a++) {
-                Station tmp = (Station) stations.get(a);
-                if (tmp.distanceTo(this) < sensor) {
-                    ret.add(tmp);
-                }
-            }
-        }
-        return ret;
+        //everything in range, including stations
+        return currentSystem.getSpatialIndex().queryRadius(this, sensor, SpatialIndex.ALL,
+                tmp -> tmp != this, new ArrayList<Ship>());
     }
 
     public Station getNearestFriendlyStationInSystem() {
-        Station ret = null;
-        {
-            ArrayList<Entity> stations = currentSystem.getStationList();
-            if (stations.size() > 0) {
-                Station closest = (Station) stations.get(0);
-                for (int a = 0; a < stations.size(); a++) {
-                    Station test = (Station) stations.get(a);
-                    if (test.canDock(this)) {
-                        double old = closest.distanceTo(this);
-                        double next = test.distanceTo(this);
-                        if (next < old) {
-                            closest = test;
-                        }
-                    }
-                }
-                ret = closest;
-            } else {
-                return null;
-            }
-        }
-        //final check
-        if (ret.canDock(this)) {
-            return ret;
-        } else {
-            return null;
-        }
+        //closest station anywhere in the system that will let me dock
+        return (Station) currentSystem.getSpatialIndex().nearest(this, Double.MAX_VALUE,
+                CollisionFilter.bit(CollisionFilter.STATION), tmp -> ((Station) tmp).canDock(this));
     }
 
     @Override
@@ -2445,7 +2274,7 @@ public class Ship extends Celestial {
         //drop explosions
         explode();
         //die
-        state = State.DEAD;
+        setState(State.DEAD);
     }
 
     @Override
@@ -2478,17 +2307,20 @@ public class Ship extends Celestial {
             double fuelCost = getJumpFuelCost(destination);
             //deduct fuel
             fuel -= fuelCost;
-            //move to new system
-            currentSystem.pullEntityFromSystem(this);
-            destination.putEntityInSystem(this);
-            //apply negative effects
-            double dmg = rnd.nextFloat() * MAX_JUMP_SHIELD_DAMAGE * maxShield;
-            dealDamage(dmg);
-            //randomize location
-            x = rnd.nextInt(12000 * 2) - 12000;
-            y = rnd.nextInt(12000 * 2) - 12000;
-            //drop the jump effect
-            dropJumpEffect();
+            //the move touches two systems so it waits for the end of the tick
+            getUniverse().defer(() -> {
+                //move to new system
+                currentSystem.pullEntityFromSystem(this);
+                destination.putEntityInSystem(this);
+                //apply negative effects
+                double dmg = rnd.nextFloat() * MAX_JUMP_SHIELD_DAMAGE * maxShield;
+                dealDamage(dmg);
+                //randomize location
+                x = rnd.nextInt(12000 * 2) - 12000;
+                y = rnd.nextInt(12000 * 2) - 12000;
+                //drop the jump effect
+                dropJumpEffect();
+            });
         }
     }
 
@@ -2539,9 +2371,9 @@ public class Ship extends Celestial {
          * Only used for detecting contraband being carried by the
          * player.
          */
-        if (ship.getFaction().equals(PLAYER_FACTION)) {
+        if (ship.isPlayerFaction()) {
             if (scanForContraband) {
-                ArrayList<Item> sc = ship.getCargoBay();
+                List<Item> sc = ship.getCargoBay().getItems();
                 for (int a = 0; a < sc.size(); a++) {
                     if (myFaction.isContraband(sc.get(a).getName())) {
                         //notify the player
@@ -2564,169 +2396,43 @@ public class Ship extends Celestial {
     }
 
     public void targetNearestShip() {
-        //get a list of all nearby ships
-        ArrayList<Entity> nearby = getCurrentSystem().getEntities();
-        ArrayList<Ship> ships = new ArrayList<>();
-        for (int a = 0; a < nearby.size(); a++) {
-            if (nearby.get(a) instanceof Ship) {
-                if (!(nearby.get(a) instanceof Projectile)) {
-                    if (!(nearby.get(a) instanceof Explosion)) {
-                        Ship tmp = (Ship) nearby.get(a);
-                        if (tmp != this) {
-                            //make sure it is alive
-                            if (tmp.getState() == State.ALIVE) {
-                                //make sure it is in range
-                                if (distanceTo(tmp) < getSensor()) {
-                                    ships.add(tmp);
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-        }
-        //target the nearest one
-        Ship closest = null;
-        for (int a = 0; a < ships.size(); a++) {
-            if (closest == null) {
-                closest = ships.get(a);
-            } else {
-                double distClosest = distanceTo(closest);
-                double distTest = distanceTo(ships.get(a));
-                if (distTest < distClosest) {
-                    closest = ships.get(a);
-                }
-            }
-        }
-        //store
-        target = closest;
+        //anything that flies and isn't a projectile or explosion, including stations
+        int layers = CollisionFilter.bit(CollisionFilter.SHIP) | CollisionFilter.bit(CollisionFilter.STATION)
+                | CollisionFilter.bit(CollisionFilter.CARGO);
+        target = getCurrentSystem().getSpatialIndex().nearest(this, getSensor(), layers,
+                tmp -> tmp != this && tmp.getState() == State.ALIVE);
     }
 
     public void targetNearestNeutralShip() {
         target = null;
-        //get a list of all nearby hostiles
-        ArrayList<Entity> nearby = getCurrentSystem().getShipList();
-        ArrayList<Ship> neutrals = new ArrayList<>();
-        for (int a = 0; a < nearby.size(); a++) {
-            Ship tmp = (Ship) nearby.get(a);
-            //make sure it is in range
-            if (distanceTo(tmp) < getSensor()) {
-                if (nearby.get(a) instanceof Ship) {
-                    if (!(nearby.get(a) instanceof Projectile)) {
-                        if (!(nearby.get(a) instanceof Explosion)) {
-                            if (tmp != this) {
-                                //make sure it is alive and isn't docked
-                                if (tmp.getState() == State.ALIVE && !tmp.isDocked()) {
-                                    //check standings
-                                    double standing = tmp.getStandingsToMe(this);
-                                    if (standing > HOSTILE_STANDING && standing <= 2) {
-                                        neutrals.add(tmp);
-                                    }
-                                }
-                            }
-                        }
+        //make sure it is alive and isn't docked, then check standings
+        target = getCurrentSystem().getSpatialIndex().nearest(this, getSensor(), SHIP_LAYERS,
+                tmp -> {
+                    if (tmp != this && tmp.getState() == State.ALIVE && !tmp.isDocked()) {
+                        double standing = tmp.getStandingsToMe(this);
+                        return standing > HOSTILE_STANDING && standing <= 2;
                     }
-                }
-            }
-        }
-        //target the nearest one
-        Ship closest = null;
-        for (int a = 0; a < neutrals.size(); a++) {
-            if (closest == null) {
-                closest = neutrals.get(a);
-            } else {
-                double distClosest = distanceTo(closest);
-                double distTest = distanceTo(neutrals.get(a));
-                if (distTest < distClosest) {
-                    closest = neutrals.get(a);
-                }
-            }
-        }
-        //store
-        target = closest;
+                    return false;
+                });
     }
 
     public void targetNearestFriendlyShip() {
         target = null;
-        //get a list of all nearby hostiles
-        ArrayList<Entity> nearby = getCurrentSystem().getShipList();
-        ArrayList<Ship> friendlies = new ArrayList<>();
-        for (int a = 0; a < nearby.size(); a++) {
-            Ship tmp = (Ship) nearby.get(a);
-            //make sure it is in range
-            if (distanceTo(tmp) < getSensor()) {
-                if (nearby.get(a) instanceof Ship) {
-                    if (!(nearby.get(a) instanceof Projectile)) {
-                        if (!(nearby.get(a) instanceof Explosion)) {
-                            if (tmp != this) {
-                                //make sure it is alive and isn't docked
-                                if (tmp.getState() == State.ALIVE && !tmp.isDocked()) {
-                                    //check standings
-                                    if (tmp.getStandingsToMe(this) > 2) {
-                                        friendlies.add(tmp);
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-        }
-        //target the nearest one
-        Ship closest = null;
-        for (int a = 0; a < friendlies.size(); a++) {
-            if (closest == null) {
-                closest = friendlies.get(a);
-            } else {
-                double distClosest = distanceTo(closest);
-                double distTest = distanceTo(friendlies.get(a));
-                if (distTest < distClosest) {
-                    closest = friendlies.get(a);
-                }
-            }
-        }
-        //store
-        target = closest;
+        //make sure it is alive and isn't docked, then check standings
+        target = getCurrentSystem().getSpatialIndex().nearest(this, getSensor(), SHIP_LAYERS,
+                tmp -> tmp != this && tmp.getState() == State.ALIVE && !tmp.isDocked()
+                && tmp.getStandingsToMe(this) > 2);
     }
 
     public void targetNearestHostileShip() {
         target = null;
-        Ship closest = null;
-        //get a list of all nearby hostiles
-        ArrayList<Entity> nearby = getCurrentSystem().getShipList();
-        for (int a = 0; a < nearby.size(); a++) {
-            Ship tmp = (Ship) nearby.get(a);
-            //make sure it is in range
-            if (distanceTo(tmp) < getSensor()) {
-                if (nearby.get(a) instanceof Ship) {
-                    if (!(nearby.get(a) instanceof Projectile)) {
-                        if (!(nearby.get(a) instanceof Explosion)) {
-                            if (tmp != this) {
-                                //make sure it is alive and isn't docked
-                                if (tmp.getState() == State.ALIVE && !tmp.isDocked()) {
-                                    //check standings
-                                    if (tmp.getStandingsToMe(this) < HOSTILE_STANDING || scanForContraband(tmp)) {
-                                        //determine if this one is closer
-                                        if (closest == null) {
-                                            closest = tmp;
-                                        } else {
-                                            double distClosest = distanceTo(closest);
-                                            double distTest = distanceTo(tmp);
-                                            if (distTest < distClosest) {
-                                                closest = tmp;
-                                            }
-                                        }
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-        }
+        //make sure it is alive and isn't docked, then check standings
+        Ship closest = getCurrentSystem().getSpatialIndex().nearest(this, getSensor(), SHIP_LAYERS,
+                tmp -> tmp != this && tmp.getState() == State.ALIVE && !tmp.isDocked()
+                && (tmp.getStandingsToMe(this) < HOSTILE_STANDING || scanForContraband(tmp)));
         //see if it's being beaten on by the player
         if (shield / maxShield < PLAYER_AGGRO_SHIELD) {
-            if (!faction.equals(PLAYER_FACTION)) {
+            if (!isPlayerFaction()) {
                 if (lastBlow == getUniverse().getPlayerShip()) {
                     if (closest != null) {
                         double distClosest = distanceTo(closest);
@@ -2746,42 +2452,10 @@ public class Ship extends Celestial {
 
     public void targetNearestHostileStation() {
         target = null;
-        Station closest = null;
-        //get a list of all nearby hostiles
-        ArrayList<Entity> nearby = getCurrentSystem().getStationList();
-        ArrayList<Station> hostiles = new ArrayList<>();
-        for (int a = 0; a < nearby.size(); a++) {
-            Station tmp = (Station) nearby.get(a);
-            //make sure it is in range
-            if (distanceTo(tmp) < getSensor()) {
-                //make sure it is alive
-                if (tmp.getState() == State.ALIVE) {
-                    //check standings
-                    if (tmp.getStandingsToMe(this) <= HOSTILE_STANDING) {
-                        hostiles.add(tmp);
-                    }
-                }
-            }
-        }
-        //target the nearest one
-        if (hostiles.size() > 0) {
-            closest = hostiles.get(0);
-            for (int a = 0; a < hostiles.size(); a++) {
-                if (closest == null) {
-                    closest = hostiles.get(a);
-                } else {
-                    double distClosest = distanceTo(closest);
-                    double distTest = distanceTo(hostiles.get(a));
-                    if (distTest < distClosest) {
-                        closest = hostiles.get(a);
-                    }
-                }
-            }
-        } else {
-            //nothing to target
-        }
-        //store
-        target = closest;
+        //make sure it is alive, then check standings
+        target = getCurrentSystem().getSpatialIndex().nearest(this, getSensor(),
+                CollisionFilter.bit(CollisionFilter.STATION),
+                tmp -> tmp.getState() == State.ALIVE && tmp.getStandingsToMe(this) <= HOSTILE_STANDING);
     }
 
     protected void fightTarget() {
@@ -2982,6 +2656,11 @@ public class Ship extends Celestial {
         setTheta(getTheta() + dt);
     }
 
+    @Override
+    public int getCollisionLayer() {
+        return CollisionFilter.SHIP;
+    }
+
     @Override
     public void informOfCollisionWith(Entity target) {
         if (target instanceof Celestial) {
@@ -3036,11 +2715,11 @@ public class Ship extends Celestial {
      */
     @Override
     public void render(Graphics g, double dx, double dy) {
-        if (tex != null) {
-            //cache theta
-            last_theta = theta;
+        //the tick may drop the buffer, so hold on to this one
+        BufferedImage buffer = tex;
+        if (buffer != null) {
             //setup the buffer's graphics
-            Graphics2D f = tex.createGraphics();
+            Graphics2D f = buffer.createGraphics();
             //clear the buffer
             f.setComposite(AlphaComposite.getInstance(AlphaComposite.CLEAR, 0.0f));
             f.fillRect(0, 0, getWidth(), getHeight());
@@ -3068,7 +2747,7 @@ public class Ship extends Celestial {
              Rectangle tmp2 = tmp.getBounds();
              g.drawRect((int) (tmp2.getX() - dx), (int) (tmp2.getY() - dy), (int) tmp2.getWidth(), (int) tmp2.getHeight());*/
             //draw the buffer onto the main frame
-            g.drawImage(tex, (int) (getX() - dx), (int) (getY() - dy), null);
+            g.drawImage(buffer, (int) (getX() - dx), (int) (getY() - dy), null);
             //draw the bounds
             /*for (int a = 0; a < getBounds().size(); a++) {
                 double bx = getBounds().get(a).x;
@@ -3078,9 +2757,13 @@ public class Ship extends Celestial {
                 g.setColor(Color.PINK);
                 g.drawRect((int) (bx - dx), (int) (by - dy), bw, bh);
             }*/
-        } else {
-            initGraphics();
         }
+        //graphics are loaded and dropped by the tick
+    }
+
+    @Override
+    public boolean hasGraphics() {
+        return tex != null;
     }
 
     protected void drawHealthBars(Graphics g, double dx, double dy) {
@@ -3173,8 +2856,12 @@ public class Ship extends Celestial {
     }
 
     public ArrayList<Rectangle> getBound() {
-        if (vx != 0 || vy != 0 || last_theta != theta || bound.isEmpty()) {
+        if (vx != 0 || vy != 0 || last_theta != theta || last_bx != x || last_by != y || bound.isEmpty()) {
             updateBound();
+            //where and at what rotation these bounds were made
+            last_theta = theta;
+            last_bx = x;
+            last_by = y;
         }
         return bound;
     }
@@ -3197,16 +2884,9 @@ public class Ship extends Celestial {
 
     @Override
     public double getMass() {
-        int cmass = 0;
-        for (int a = 0; a < cargoBay.size(); a++) {
-            cmass += cargoBay.get(a).getMass();
-        }
-        for (int a = 0; a < hardpoints.size(); a++) {
-            if (hardpoints.get(a).getMounted() != null) {
-                cmass += hardpoints.get(a).getMounted().getMass();
-            }
-        }
-        return mass + cmass;
+        //the cargo bay keeps its own running total
+        updateStats();
+        return mass + fittedMass + cargoBay.getMass();
     }
 
     public void setMaxFuel(double maxFuel) {
@@ -3214,33 +2894,19 @@ public class Ship extends Celestial {
     }
 
     protected void updateBound() {
-        bound.clear();
-
         if (tex != null) {
-            //calculate dynamic bounds
-            int w = tex.getWidth();
-            int h = tex.getHeight();
-            int s = Math.max(6, w / 20);
-            for (int _y = 0; _y < h; _y += s) {
-                for (int _x = 0; _x < w; _x += s) {
-                    //skip alpha pixels
-                    if ((tex.getRGB(_x, _y) & 0xFF000000) != 0xFF000000) {
-                        continue;
-                    } else {
-                        //convert to a rectangle
-                        int ax = (int) (x + _x);
-                        int ay = (int) (y + _y);
-                        bound.add(new Rectangle(ax - s, ay - s, s * 2, s * 2));
-                    }
-                }
+            //use the shared mask for this sprite and rotation
+            CollisionMask mask = Universe.getCache().getShipMask(getType(), theta);
+            if (mask != null) {
+                mask.place(bound, x, y);
+                return;
             }
+        }
+        //do rectangle detection
+        if (width != 0 && height != 0) {
+            setSingleBound(bound, (int) getX(), (int) getY(), getWidth(), getHeight());
         } else {
-            //do rectangle detection
-            if (width != 0 && height != 0) {
-                bound.add(new Rectangle((int) getX(), (int) getY(), getWidth(), getHeight()));
-            } else {
-                bound.add(new Rectangle((int) getX(), (int) getY(), 50, 50));
-            }
+            setSingleBound(bound, (int) getX(), (int) getY(), 50, 50);
         }
     }
 
@@ -3249,18 +2915,16 @@ public class Ship extends Celestial {
             /*
              * Puts an item into the cargo bay if there is space available.
              */
-            double used = 0;
-            for (int a = 0; a < cargoBay.size(); a++) {
-                used += cargoBay.get(a).getVolume();
-            }
+            double used = cargoBay.getVolume();
+            boolean held = cargoBay.holds(item);
             double fVol = 0;
-            if (cargoBay.contains(item)) {
+            if (held) {
                 fVol = item.getVolume() / item.getQuantity();
             } else {
                 fVol = item.getVolume();
             }
             if ((cargo - used) > fVol) {
-                if (!cargoBay.contains(item)) {
+                if (!held) {
                     cargoBay.add(item);
                 } else {
                     item.setQuantity(item.getQuantity() + 1);
@@ -3282,6 +2946,60 @@ public class Ship extends Celestial {
         }
     }
 
+    public int getCargoRoomFor(Item item) {
+        /*
+         * How many units of an item would fit in the cargo bay. Like
+         * addToCargoBay, each unit has to leave a little room behind it.
+         */
+        double unit = 0;
+        if (item.getDef() != null) {
+            unit = item.getDef().getVolume();
+        }
+        double free = cargo - getBayUsed();
+        if (unit <= 0) {
+            return free > 0 ? Integer.MAX_VALUE : 0;
+        }
+        return Math.max(0, (int) Math.ceil(free / unit) - 1);
+    }
+
+    public int addToCargoBay(Item item, int quantity) {
+        /*
+         * Puts as many units of an item as will fit, up to quantity, into the
+         * cargo bay as a new stack. Returns how many were added.
+         */
+        int n = Math.min(quantity, getCargoRoomFor(item));
+        if (n > 0) {
+            Item tmp = new Item(item.getName());
+            tmp.setQuantity(n);
+            cargoBay.add(tmp);
+            return n;
+        }
+        return 0;
+    }
+
+    public int removeFromCargoBay(Item item, int quantity) {
+        /*
+         * Removes up to quantity units of an item's type from the cargo bay.
+         * Returns how many were removed.
+         */
+        int removed = 0;
+        //copy, removing a stack changes the bay's list of stacks
+        ArrayList<Item> stacks = new ArrayList<>(cargoBay.getStacks(item.getName()));
+        for (int a = 0; a < stacks.size() && removed < quantity; a++) {
+            Item tmp = stacks.get(a);
+            if (tmp.isSameType(item)) {
+                int take = Math.min(quantity - removed, tmp.getQuantity());
+                if (take >= tmp.getQuantity()) {
+                    cargoBay.remove(tmp);
+                } else {
+                    tmp.setQuantity(tmp.getQuantity() - take);
+                }
+                removed += take;
+            }
+        }
+        return removed;
+    }
+
     public void ejectModule(Hardpoint hardpoint) {
         CargoPod pod = new CargoPod(hardpoint.getMounted());
         hardpoint.unmount(hardpoint.getMounted());
@@ -3311,7 +3029,7 @@ public class Ship extends Celestial {
     }
 
     public void ejectCargo(Item item) {
-        if (cargoBay.contains(item)) {
+        if (cargoBay.holds(item)) {
             //if this equipment, stop the sound
             if (item instanceof Equipment) {
                 Equipment tmp = (Equipment) item;
@@ -3341,9 +3059,10 @@ public class Ship extends Celestial {
             //add to host vector
             pod.setVx(getVx() + pdx);
             pod.setVy(getVy() + pdy);
-            pod.setCurrentSystem(currentSystem);
-            //deploy
-            getCurrentSystem().putEntityInSystem(pod);
+            final SolarSystem system = currentSystem;
+            pod.setCurrentSystem(system);
+            //deploy, the cargo window ejects from the UI thread
+            getUniverse().defer(() -> system.putEntityInSystem(pod));
         }
     }
 
@@ -3426,31 +3145,11 @@ public class Ship extends Celestial {
     }
 
     public int getNumInCargoBay(Item item) {
-        int count = 0;
-        if (item != null) {
-            String iname = item.getName();
-            String itype = item.getType();
-            String group = item.getGroup();
-            for (int a = 0; a < cargoBay.size(); a++) {
-                Item tmp = cargoBay.get(a);
-                if (iname.equals(tmp.getName())) {
-                    if (itype.equals(tmp.getType())) {
-                        if (group.equals(tmp.getGroup())) {
-                            count += tmp.getQuantity();
-                        }
-                    }
-                }
-            }
-        }
-        return count;
+        return cargoBay.getQuantity(item);
     }
 
     public double getBayUsed() {
-        double cmass = 0;
-        for (int a = 0; a < cargoBay.size(); a++) {
-            cmass += cargoBay.get(a).getVolume();
-        }
-        return cmass;
+        return cargoBay.getVolume();
     }
 
     public void addInitialCargo(String cargo) {
@@ -3471,46 +3170,28 @@ public class Ship extends Celestial {
     }
 
     public boolean hasInCargo(Item item) {
-        return cargoBay.contains(item);
+        return cargoBay.holds(item);
     }
 
     public boolean hasInCargo(String item) {
-        for (int a = 0; a < cargoBay.size(); a++) {
-            if (cargoBay.get(a).getName().equals(item)) {
-                return true;
-            }
-        }
-        return false;
+        return cargoBay.hasWare(item);
     }
 
     public boolean hasGroupInCargo(String group) {
-        for (int a = 0; a < cargoBay.size(); a++) {
-            if (cargoBay.get(a).getGroup().equals(group)) {
-                return true;
-            }
-        }
-        return false;
+        return cargoBay.hasGroup(group);
     }
 
-    public ArrayList<Item> getCargoBay() {
+    public CargoBay getCargoBay() {
         return cargoBay;
     }
 
-    protected void installHardpoints(Term relevant) throws NumberFormatException {
+    protected void installHardpoints(ShipDef relevant) {
         /*
          * Equips the ship with hardpoints
          */
-        String complex = relevant.getValue("hardpoint");
-        if (complex != null) {
-            String[] arr = complex.split("/");
-            for (int a = 0; a < arr.length; a++) {
-                String[] re = arr[a].split(",");
-                String hType = re[0];
-                int hSize = Integer.parseInt(re[1]);
-                double hr = Double.parseDouble(re[2]);
-                double ht = Double.parseDouble(re[3]);
-                hardpoints.add(new Hardpoint(this, hType, hSize, hr, ht));
-            }
+        HardpointDef[] arr = relevant.getHardpoints();
+        for (int a = 0; a < arr.length; a++) {
+            hardpoints.add(new Hardpoint(this, arr[a].getType(), arr[a].getSize(), arr[a].getR(), arr[a].getTheta()));
         }
     }
 
@@ -3542,7 +3223,12 @@ public class Ship extends Celestial {
     }
 
     public void installFaction() {
-        myFaction = new Faction(faction);
+        if (isPlayerFaction()) {
+            //the player's standings change, so it gets its own copy
+            myFaction = Universe.getFactions().getCopy(faction);
+        } else {
+            myFaction = Universe.getFactions().get(faction);
+        }
     }
 
     /*
@@ -3605,17 +3291,46 @@ public class Ship extends Celestial {
         /*
          * Returns the range of the closest range onlined weapon.
          */
-        double range = Double.MAX_VALUE;
-        for (int a = 0; a < hardpoints.size(); a++) {
-            if (hardpoints.get(a).isEnabled()) {
-                if (hardpoints.get(a).notNothing()) {
-                    if (hardpoints.get(a).getMounted().getRange() < range) {
-                        range = hardpoints.get(a).getMounted().getRange();
+        updateStats();
+        return nearWeaponRange;
+    }
+
+    public double getFarWeaponRange() {
+        /*
+         * Returns the range of the longest range onlined weapon, 0 if there
+         * are none.
+         */
+        updateStats();
+        return farWeaponRange;
+    }
+
+    public void invalidateStats() {
+        /*
+         * Called when equipment is mounted, unmounted, onlined or offlined.
+         */
+        statsValid = false;
+    }
+
+    private void updateStats() {
+        if (!statsValid) {
+            double fMass = 0;
+            double near = Double.MAX_VALUE;
+            double far = 0;
+            for (int a = 0; a < hardpoints.size(); a++) {
+                Equipment mounted = hardpoints.get(a).getMounted();
+                if (mounted != null) {
+                    fMass += mounted.getMass();
+                    if (mounted.isEnabled() && hardpoints.get(a).notNothing()) {
+                        near = Math.min(near, mounted.getRange());
+                        far = Math.max(far, mounted.getRange());
                     }
                 }
             }
+            fittedMass = fMass;
+            nearWeaponRange = near;
+            farWeaponRange = far;
+            statsValid = true;
         }
-        return range;
     }
 
     /*
@@ -3643,6 +3358,7 @@ public class Ship extends Celestial {
 
     public void setHardpoints(ArrayList<Hardpoint> hardpoints) {
         this.hardpoints = hardpoints;
+        invalidateStats();
     }
 
     public Ship getTarget() {
@@ -3659,6 +3375,9 @@ public class Ship extends Celestial {
 
     public void setBehavior(Behavior behavior) {
         this.behavior = behavior;
+        if (currentSystem != null) {
+            currentSystem.updatePopulation(this);
+        }
     }
 
     public String getEquip() {
@@ -3683,6 +3402,26 @@ public class Ship extends Celestial {
 
     public void setFaction(String faction) {
         this.faction = faction;
+        factionId = Universe.getCache().getDefinitions().getFactionId(faction);
+        if (currentSystem != null) {
+            currentSystem.updatePopulation(this);
+        }
+    }
+
+    @Override
+    public void setState(State state) {
+        super.setState(state);
+        if (currentSystem != null) {
+            currentSystem.updatePopulation(this);
+        }
+    }
+
+    public int getFactionId() {
+        return factionId;
+    }
+
+    public boolean isPlayerFaction() {
+        return factionId != -1 && factionId == Universe.getCache().getDefinitions().getPlayerFactionId();
     }
 
     public int getStandingsToMe(String faction) {
@@ -3697,10 +3436,10 @@ public class Ship extends Celestial {
     public int getStandingsToMe(Ship ship) {
         try {
             if (myFaction != null) {
-                if (ship.getFaction().hashCode() == PLAYER_FACTION.hashCode()) {
-                    return (int) ship.getMyFaction().getStanding(getFaction());
+                if (ship.isPlayerFaction()) {
+                    return (int) ship.getMyFaction().getStanding(factionId);
                 } else {
-                    return (int) myFaction.getStanding(ship.getFaction());
+                    return (int) myFaction.getStanding(ship.getFactionId());
                 }
             } else {
                 installFaction();
@@ -3784,19 +3523,36 @@ public class Ship extends Celestial {
         this.autopilot = autopilot;
     }
 
-    public long getCash() {
+    public Ship getWallet() {
+        /*
+         * Ships with a home base spend its money, which may be in another
+         * system. Lock the wallet to check a balance and spend it in one step.
+         */
         if (homeBase == null) {
-            return cash;
+            return this;
         } else {
-            return homeBase.getCash();
+            return homeBase.getWallet();
+        }
+    }
+
+    public long getCash() {
+        Ship wallet = getWallet();
+        synchronized (wallet) {
+            return wallet.cash;
         }
     }
 
     public void setCash(long cash) {
-        if (homeBase == null) {
-            this.cash = cash;
-        } else {
-            homeBase.setCash(cash);
+        Ship wallet = getWallet();
+        synchronized (wallet) {
+            wallet.cash = cash;
+        }
+    }
+
+    public void addCash(long delta) {
+        Ship wallet = getWallet();
+        synchronized (wallet) {
+            wallet.cash += delta;
         }
     }
 
@@ -3978,26 +3734,22 @@ public class Ship extends Celestial {
     }
 
     public double getJumpFuelCost(SolarSystem destination) {
-        //calculate distance between current system and destination
-        double cx = currentSystem.getX();
-        double cy = currentSystem.getY();
-        double tx = destination.getX();
-        double ty = destination.getY();
-        double dist = magnitude((cx - tx), (cy - ty));
-        //fuel cost is linear
-        double fuelCost = dist * 50;
-        return fuelCost;
+        //distances between systems are worked out once
+        return getUniverse().getStarMap().getJumpFuelCost(currentSystem, destination);
     }
 
-    public boolean canJump(SolarSystem destination) {
-        double safety;
+    private double getJumpSafetyFuel() {
         if (behavior == Behavior.UNIVERSE_TRADE) {
-            safety = TRADER_JD_SAFETY_FUEL;
+            return TRADER_JD_SAFETY_FUEL;
         } else {
-            safety = JUMP_SAFETY_FUEL;
+            return JUMP_SAFETY_FUEL;
         }
+    }
+
+    public boolean canJump(SolarSystem destination) {
+        double safety = getJumpSafetyFuel();
         //make sure we have a jump drive group device
-        if (hasGroupInCargo("jumpdrive")) {
+        if (hasJumpDrive()) {
             //fuel cost is linear
             if (fuel - getJumpFuelCost(destination) >= safety * maxFuel) {
                 return true;
@@ -4006,6 +3758,10 @@ public class Ship extends Celestial {
         return false;
     }
 
+    public boolean hasJumpDrive() {
+        return cargoBay.hasGroup("jumpdrive");
+    }
+
     public boolean hasSalvageSoftware() {
         return hasGroupInCargo("salvagesoftware");
     }
@@ -4037,12 +3793,14 @@ public class Ship extends Celestial {
          * player's current ship.
          */
         message.setWasSent(true);
-        if (faction.equals(PLAYER_FACTION)) {
+        if (isPlayerFaction()) {
             stopSound(notifyMessage);
             playSound(notifyMessage);
             if (this == getUniverse().getPlayerShip()) {
-                //add to que
-                messages.add(message);
+                //add to que, ships in any system can send one
+                synchronized (messages) {
+                    messages.add(message);
+                }
             } else {
                 //forward
                 getUniverse().getPlayerShip().receiveMessage(message);
@@ -4065,6 +3823,10 @@ public class Ship extends Celestial {
         return messages;
     }
 
+    public void setMessages(ArrayList<AstralMessage> messages) {
+        this.messages = messages;
+    }
+
     public void hail() {
         /*
          * Used by the player to hail an NPC. The NPC has a direct line to
@@ -4231,10 +3993,10 @@ public class Ship extends Celestial {
         cmdAbortDock();
         //standing loss, not as bad as actually destroying the ship
         System.out.println(getName() + " bailed in " + currentSystem.getName());
-        if (lastBlow.getFaction().equals(PLAYER_FACTION)) {
+        if (lastBlow.isPlayerFaction()) {
             //adjust the player's standings accordingly
             if (!faction.equals("Neutral")) {
-                getUniverse().getPlayerShip().getMyFaction().derivedModification(myFaction, -0.5);
+                adjustPlayerStandings(-0.5);
             }
         }
         //mark this ship as bailed
@@ -4267,7 +4029,7 @@ public class Ship extends Celestial {
             //make sure it won't be removed by setting bailed to false
             bailed = false;
             //store new faction
-            faction = claimant.getFaction().toString();
+            setFaction(claimant.getFaction());
             installFaction();
             //push and pull
             getCurrentSystem().pullEntityFromSystem(this);
@@ -4285,6 +4047,10 @@ public class Ship extends Celestial {
 
     public void setGroup(String group) {
         this.group = group;
+        //keep group lookups current
+        if (getUniverse() != null) {
+            getUniverse().getRegistry().update(this);
+        }
     }
 
     public boolean hasPlotOffer() {
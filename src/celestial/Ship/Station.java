@@ -20,6 +20,8 @@ package celestial.Ship;
 
 import cargo.Item;
 import celestial.Asteroid;
+import engine.CollisionFilter;
+import engine.Definitions.StationDef;
 import java.awt.AlphaComposite;
 import java.awt.Color;
 import java.awt.Graphics;
@@ -29,9 +31,9 @@ import java.awt.RenderingHints;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.HashMap;
 import javax.swing.ImageIcon;
-import lib.Faction;
-import lib.Parser;
+import universe.SolarSystem;
 import universe.Universe;
 
 /**
@@ -46,6 +48,8 @@ public class Station extends Ship {
     //products and resources for production
     protected ArrayList<Item> stationSelling = new ArrayList<>();
     protected ArrayList<Item> stationBuying = new ArrayList<>();
+    //the same wares by name, with their current price
+    private transient volatile HashMap<String, WareSlot> wareIndex;
     //manufacturing
     protected ArrayList<Process> processes = new ArrayList<>();
     //cheating is needed sometimes
@@ -58,6 +62,15 @@ public class Station extends Ship {
         super(name, type);
     }
 
+    private static class WareSlot {
+
+        //this station's entries for the ware, null if it isn't traded that way
+        Item buying;
+        Item selling;
+        //only recomputed when the stock changes
+        int price;
+    }
+
     @Override
     public void alive() {
         //kill velocity
@@ -65,7 +78,7 @@ public class Station extends Ship {
         vy = 0;
         //setup faction if needed
         if (myFaction == null) {
-            myFaction = new Faction(faction);
+            installFaction();
         }
         super.alive();
         //check if out of business
@@ -76,7 +89,7 @@ public class Station extends Ship {
                     docks.get(a).kickOut();
                 }
                 //so sad
-                state = State.DYING;
+                setState(State.DYING);
                 System.out.println(getName() + " was removed because it is out of business.");
             }
         }
@@ -106,7 +119,7 @@ public class Station extends Ship {
         if (!isImmortal()) {
             super.dying();
             //is this a player station?
-            if (faction.equals("Player")) {
+            if (isPlayerFaction()) {
                 //did it need an asteroid?
                 if (needAsteroid) {
                 //lets avoid the X3R problem and put the asteroid back
@@ -135,8 +148,8 @@ public class Station extends Ship {
                 }
             }
         } else {
-            //bring it back
-            state = State.ALIVE;
+            //bring it back, and count it again
+            setState(State.ALIVE);
             shield = maxShield;
             hull = maxHull;
             System.out.println(getName()+" was killed but was brought back because it is immortal.");
@@ -157,98 +170,94 @@ public class Station extends Ship {
         /*
          * Loads the stats for this ship from the ships file.
          */
-        //create parser
-        Parser parse = Universe.getCache().getStationCache();
-        //get the term with this ship's type
-        ArrayList<Parser.Term> terms = parse.getTermsOfType("Station");
-        Parser.Term relevant = null;
-        for (int a = 0; a < terms.size(); a++) {
-            String termName = terms.get(a).getValue("type");
-            if (termName.equals(getType())) {
-                //get the stats we want
-                relevant = terms.get(a);
-                //and end
-                break;
-            }
-        }
-        //now decode stats
-        accel = Double.parseDouble(relevant.getValue("accel"));
-        turning = Double.parseDouble(relevant.getValue("turning"));
-        shield = maxShield = Double.parseDouble(relevant.getValue("shield"));
-        shieldRechargeRate = Double.parseDouble(relevant.getValue("shieldRecharge"));
-        maxHull = hull = Double.parseDouble(relevant.getValue("hull"));
-        maxFuel = fuel = Double.parseDouble(relevant.getValue("fuel"));
-        String needAst = relevant.getValue("needAsteroid");
-        if (needAst != null) {
-            needAsteroid = Boolean.parseBoolean(needAst);
+        //get the definition for this station's type
+        StationDef relevant = Universe.getCache().getDefinitions().getStation(getType());
+        //now copy stats
+        accel = relevant.getAccel();
+        turning = relevant.getTurning();
+        shield = maxShield = relevant.getShield();
+        shieldRechargeRate = relevant.getShieldRecharge();
+        maxHull = hull = relevant.getHull();
+        maxFuel = fuel = relevant.getFuel();
+        needAsteroid = relevant.isNeedAsteroid();
+        if (needAsteroid) {
             System.out.println(getName() + " Needs an asteroid");
-        } else {
-            needAsteroid = false;
         }
         //exemption block
-        String exempt = relevant.getValue("exempt");
-        exemptionSetup(exempt);
+        exemptionSetup(relevant.isExempt());
         //more stats
-        setMass(Double.parseDouble(relevant.getValue("mass")));
+        setMass(relevant.getMass());
         computeComplexRectangularBounds(relevant);
         computeDockBounds(relevant);
         computeProcesses(relevant);
         randomizeInitialGoods();
         //bring the ship to life
-        state = State.ALIVE;
+        setState(State.ALIVE);
     }
 
     public boolean buysWare(Item ware) {
-        {
-            for (int a = 0; a < stationBuying.size(); a++) {
-                if (stationBuying.get(a).getName().equals(ware.getName())) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        WareSlot slot = getWareIndex().get(ware.getName());
+        return slot != null && slot.buying != null;
     }
 
     public boolean sellsWare(Item ware) {
-        {
-            for (int a = 0; a < stationSelling.size(); a++) {
-                if (stationSelling.get(a).getName().equals(ware.getName())) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        WareSlot slot = getWareIndex().get(ware.getName());
+        return slot != null && slot.selling != null;
     }
 
     public int getPrice(Item item) {
-        int max = 0;
-        int min = 0;
-        int q = 0;
-        int s = 1;
-        //get the right commodity
-        boolean found = false;
-        for (int a = 0; a < stationBuying.size(); a++) {
-            if (stationBuying.get(a).getName().equals(item.getName())) {
-                max = stationBuying.get(a).getMaxPrice();
-                min = stationBuying.get(a).getMinPrice();
-                q = stationBuying.get(a).getQuantity();
-                s = stationBuying.get(a).getStore();
-                found = true;
-                break;
-            }
+        WareSlot slot = getWareIndex().get(item.getName());
+        if (slot != null) {
+            return slot.price;
         }
-        if (!found) {
+        return 0;
+    }
+
+    private HashMap<String, WareSlot> getWareIndex() {
+        /*
+         * Indexes the ware lists by name. It is built in a local map and
+         * published when finished because traders in other systems price
+         * against this station.
+         */
+        HashMap<String, WareSlot> ret = wareIndex;
+        if (ret == null) {
+            ret = new HashMap<>();
+            for (int a = 0; a < stationBuying.size(); a++) {
+                WareSlot slot = getSlot(ret, stationBuying.get(a).getName());
+                if (slot.buying == null) {
+                    slot.buying = stationBuying.get(a);
+                }
+            }
             for (int a = 0; a < stationSelling.size(); a++) {
-                if (stationSelling.get(a).getName().equals(item.getName())) {
-                    max = stationSelling.get(a).getMaxPrice();
-                    min = stationSelling.get(a).getMinPrice();
-                    q = stationSelling.get(a).getQuantity();
-                    s = stationSelling.get(a).getStore();
-                    found = true;
-                    break;
+                WareSlot slot = getSlot(ret, stationSelling.get(a).getName());
+                if (slot.selling == null) {
+                    slot.selling = stationSelling.get(a);
                 }
             }
+            for (WareSlot slot : ret.values()) {
+                slot.price = computePrice(slot);
+            }
+            wareIndex = ret;
+        }
+        return ret;
+    }
+
+    private static WareSlot getSlot(HashMap<String, WareSlot> index, String ware) {
+        WareSlot slot = index.get(ware);
+        if (slot == null) {
+            slot = new WareSlot();
+            index.put(ware, slot);
         }
+        return slot;
+    }
+
+    private static int computePrice(WareSlot slot) {
+        //the buying entry sets the price if the ware is on both lists
+        Item rel = slot.buying != null ? slot.buying : slot.selling;
+        int max = rel.getMaxPrice();
+        int min = rel.getMinPrice();
+        int q = rel.getQuantity();
+        int s = rel.getStore();
         //calculate price
         int d = max - min;
         float per = (float) q / (float) s;
@@ -262,113 +271,145 @@ public class Station extends Ship {
         return price;
     }
 
-    public void buy(Ship ship, Item item, int quantity) {
+    public TradeReceipt buy(Ship ship, Item item, int quantity) {
+        /*
+         * Sells up to quantity of a product to the ship at the current
+         * price. Stock, cash and cargo room are checked once and the whole
+         * amount moves in one step.
+         */
         //get current offer
         int price = getPrice(item);
-        Item tmp = new Item(item.getName());
-        //repeat buy procedure
-        for (int lx = 0; lx < quantity; lx++) {
-            Item rel = null;
-            //validate the item is available
-            for (int a = 0; a < stationSelling.size(); a++) {
-                if (stationSelling.get(a).getName().equals(item.getName())) {
-                    //make sure there is something available
-                    if (stationSelling.get(a).getQuantity() > 0) {
-                        rel = stationSelling.get(a);
+        WareSlot slot = getWareIndex().get(item.getName());
+        int done = 0;
+        if (slot != null && slot.selling != null && quantity > 0) {
+            Item rel = slot.selling;
+            if (rel.getType().equals("ship")) {
+                done = buyShips(ship, rel, price, quantity);
+            } else {
+                //the buyer's home base may be spending in another system too
+                synchronized (ship.getWallet()) {
+                    //limited by stock and what the ship can pay for
+                    int n = Math.min(quantity, rel.getQuantity());
+                    if (price > 0) {
+                        n = (int) Math.min(n, ship.getCash() / price);
                     }
+                    if (n > 0) {
+                        //limited by cargo room
+                        n = ship.addToCargoBay(rel, n);
+                        //decrement stocks
+                        rel.setQuantity(rel.getQuantity() - n);
+                        //pay for it
+                        ship.addCash(-(long) n * price);
+                        done = n;
+                    }
+                }
+                //transfer funds
+                addCash((long) done * price);
+            }
+        }
+        stockChanged(item);
+        return new TradeReceipt(item.getName(), quantity, done, price);
+    }
+
+    private int buyShips(Ship ship, Item rel, int price, int quantity) {
+        /*
+         * Ships each need a free hanger, so they are bought one at a time.
+         */
+        int done = 0;
+        for (int lx = 0; lx < quantity; lx++) {
+            //validate there is one available
+            if (rel.getQuantity() <= 0) {
+                break;
+            }
+            //make a ship
+            Ship newShip = new Ship("Your " + rel.getName(), rel.getName());
+            //initialize it to the correct faction
+            newShip.setFaction(ship.getFaction());
+            newShip.init(false);
+            //find an open hanger
+            PortContainer pick = null;
+            for (int a = 0; a < docks.size(); a++) {
+                if (docks.get(a).canFit(newShip) && docks.get(a).isAvailable(newShip)) {
+                    //got one
+                    pick = docks.get(a);
                     break;
                 }
             }
-            if (rel != null) {
-                //validate the player can cover the charge
-                if (ship.getCash() - price >= 0) {
-                    //branch based on regular item or ship
-                    if (rel.getType().equals("ship")) {
-                        /*
-                         * This one is a little more complicated.
-                         */
-                        //make a ship
-                        Ship newShip = new Ship("Your " + rel.getName(), rel.getName());
-                        //initialize it to the correct faction
-                        newShip.setFaction(ship.getFaction());
-                        newShip.init(false);
-                        //find an open hanger
-                        PortContainer pick = null;
-                        for (int a = 0; a < docks.size(); a++) {
-                            if (docks.get(a).canFit(newShip) && docks.get(a).isAvailable(newShip)) {
-                                //got one
-                                pick = docks.get(a);
-                                break;
-                            }
-                        }
-                        if (pick != null) {
-                            //decrement stocks
-                            rel.setQuantity(rel.getQuantity() - 1);
-                            //drop it in the current solar system
-                            newShip.setCurrentSystem(currentSystem);
-                            currentSystem.putEntityInSystem(newShip);
-                            //drop it in that port
-                            pick.setClient(newShip);
-                            newShip.setPort(pick);
-                            //allow the port to naturally pick it up when it collides
-                            newShip.setX(pick.getPortX());
-                            newShip.setY(pick.getPortY());
-                            newShip.setAutopilot(Autopilot.DOCK_STAGE3);
-                            //transfer funds
-                            ship.setCash(ship.getCash() - price);
-                            setCash(getCash() + price);
-                            //make sure it doesn't have funds
-                            newShip.setCash(0);
-                        }
-                    } else {
-                        /*
-                         * This is pretty simple
-                         */
-                        //attempt transfer of item
-                        if (ship.addToCargoBay(tmp)) {
-                            //decrement stocks
-                            rel.setQuantity(rel.getQuantity() - 1);
-                            //transfer funds
-                            ship.setCash(ship.getCash() - price);
-                            setCash(getCash() + price);
-                        }
+            if (pick != null) {
+                //make sure the buyer can cover the charge, and take it
+                synchronized (ship.getWallet()) {
+                    if (ship.getCash() - price < 0) {
+                        break;
                     }
+                    ship.addCash(-price);
                 }
+                addCash(price);
+                //decrement stocks
+                rel.setQuantity(rel.getQuantity() - 1);
+                //drop it in the current solar system
+                final SolarSystem system = currentSystem;
+                newShip.setCurrentSystem(system);
+                getUniverse().defer(() -> system.putEntityInSystem(newShip));
+                //drop it in that port
+                pick.setClient(newShip);
+                newShip.setPort(pick);
+                //allow the port to naturally pick it up when it collides
+                newShip.setX(pick.getPortX());
+                newShip.setY(pick.getPortY());
+                newShip.setAutopilot(Autopilot.DOCK_STAGE3);
+                //make sure it doesn't have funds
+                newShip.setCash(0);
+                done++;
             }
         }
+        return done;
     }
 
-    public void sell(Ship ship, Item item, int quantity) {
+    public TradeReceipt sell(Ship ship, Item item, int quantity) {
+        /*
+         * Buys up to quantity of a resource from the ship at the current
+         * price, in one step.
+         */
         //get current offer
         int price = getPrice(item);
-        //repeat sell procedure
-        for (int lx = 0; lx < quantity; lx++) {
-            Item rel = null;
-            //validate the item is in the cargo bay
-            for (int a = 0; a < ship.getCargoBay().size(); a++) {
-                if (ship.getCargoBay().get(a).getName().equals(item.getName())) {
-                    rel = ship.getCargoBay().get(a);
-                    break;
+        WareSlot slot = getWareIndex().get(item.getName());
+        int done = 0;
+        if (slot != null && slot.buying != null && quantity > 0) {
+            //ships based here may be spending from other systems too
+            synchronized (getWallet()) {
+                //limited by what the station can pay for
+                int n = quantity;
+                if (price > 0) {
+                    n = (int) Math.min(n, getCash() / price);
                 }
-            }
-            if (rel != null) {
-                //send to station
-                for (int a = 0; a < getStationBuying().size(); a++) {
-                    //make sure station can cover it
-                    if (getCash() - price >= 0) {
-                        if (rel.getName().equals(getStationBuying().get(a).getName())) {
-                            getStationBuying().get(a).setQuantity(getStationBuying().get(a).getQuantity() + 1);
-                            //remove from cargo
-                            ship.removeFromCargoBay(rel);
-                            //pay the ship
-                            ship.setCash(ship.getCash() + price);
-                            //remove funds from station wallet
-                            setCash(getCash() - price);
-                            break;
-                        }
-                    }
+                if (n > 0) {
+                    //limited by what the ship has
+                    n = ship.removeFromCargoBay(item, n);
+                    //send to station
+                    slot.buying.setQuantity(slot.buying.getQuantity() + n);
+                    //remove funds from station wallet
+                    addCash(-(long) n * price);
+                    done = n;
                 }
             }
+            //pay the ship
+            ship.addCash((long) done * price);
+        }
+        stockChanged(item);
+        return new TradeReceipt(item.getName(), quantity, done, price);
+    }
+
+    protected void stockChanged(Item ware) {
+        /*
+         * Must be called whenever the quantity of a ware on the station's
+         * lists changes, it reprices the ware and updates the market.
+         */
+        WareSlot slot = getWareIndex().get(ware.getName());
+        if (slot != null) {
+            slot.price = computePrice(slot);
+        }
+        if (currentSystem != null) {
+            currentSystem.getMarket().update(this, ware);
         }
     }
 
@@ -376,16 +417,18 @@ public class Station extends Ship {
         if (stationSelling.size() > 0) {
             for (int a = 0; a < stationSelling.size(); a++) {
                 stationSelling.get(a).setQuantity(rnd.nextInt(stationSelling.get(a).getStore()));
+                stockChanged(stationSelling.get(a));
             }
         }
         if (stationBuying.size() > 0) {
             for (int a = 0; a < stationBuying.size(); a++) {
                 stationBuying.get(a).setQuantity(rnd.nextInt(stationBuying.get(a).getStore()));
+                stockChanged(stationBuying.get(a));
             }
         }
     }
 
-    protected void computeComplexRectangularBounds(Parser.Term relevant) throws NumberFormatException {
+    protected void computeComplexRectangularBounds(StationDef relevant) {
         //do complex rectangular bounds (useful for stations)
         {
             /*
@@ -393,26 +436,18 @@ public class Station extends Ship {
              * THE SHIP ROTATES! IF YOUR CELESTIAL IS GOING TO BE DOING
              * A LOT OF ROTATING CONSIDER ANOTHER OPTION.
              */
-            String complex = relevant.getValue("rectBound");
-            if (complex != null) {
-                String[] arr = complex.split("/");
-                for (int a = 0; a < arr.length; a++) {
-                    String[] re = arr[a].split(",");
-                    int bx0 = Integer.parseInt(re[0]);
-                    int by0 = Integer.parseInt(re[1]);
-                    int bx1 = Integer.parseInt(re[2]);
-                    int by1 = Integer.parseInt(re[3]);
-                    //calculate rectangular region
-                    int w = bx1 - bx0;
-                    int h = by1 - by0;
-                    Rectangle rect = new Rectangle(bx0, by0, w, h);
-                    boundDef.add(rect);
-                }
+            int[][] arr = relevant.getRectBounds();
+            for (int a = 0; a < arr.length; a++) {
+                //calculate rectangular region
+                int w = arr[a][2] - arr[a][0];
+                int h = arr[a][3] - arr[a][1];
+                Rectangle rect = new Rectangle(arr[a][0], arr[a][1], w, h);
+                boundDef.add(rect);
             }
         }
     }
 
-    protected void computeDockBounds(Parser.Term relevant) throws NumberFormatException {
+    protected void computeDockBounds(StationDef relevant) {
         //do complex rectangular bounds (useful for stations)
         {
             /*
@@ -420,58 +455,53 @@ public class Station extends Ship {
              * THE SHIP ROTATES! IF YOUR CELESTIAL IS GOING TO BE DOING
              * A LOT OF ROTATING CONSIDER ANOTHER OPTION.
              */
-            String complex = relevant.getValue("dock");
-            if (complex != null) {
-                String[] arr = complex.split("/");
-                for (int a = 0; a < arr.length; a++) {
-                    String[] re = arr[a].split(",");
-                    int bx0 = Integer.parseInt(re[0]);
-                    int by0 = Integer.parseInt(re[1]);
-                    int bx1 = Integer.parseInt(re[2]);
-                    int by1 = Integer.parseInt(re[3]);
-                    int ax = Integer.parseInt(re[4]);
-                    int ay = Integer.parseInt(re[5]);
-                    //calculate rectangular region
-                    int w = bx1 - bx0;
-                    int h = by1 - by0;
-                    docks.add(new PortContainer(this, bx0, by0, w, h, ax, ay));
-                }
+            int[][] arr = relevant.getDocks();
+            for (int a = 0; a < arr.length; a++) {
+                //calculate rectangular region
+                int w = arr[a][2] - arr[a][0];
+                int h = arr[a][3] - arr[a][1];
+                docks.add(new PortContainer(this, arr[a][0], arr[a][1], w, h, arr[a][4], arr[a][5]));
             }
         }
     }
 
-    protected void computeProcesses(Parser.Term relevant) throws NumberFormatException {
+    protected void computeProcesses(StationDef relevant) {
         //generates the processes that were linked to this station
         {
-            String raw = relevant.getValue("process");
-            if (raw != null) {
-                String[] arr = raw.split("/");
-                for (int a = 0; a < arr.length; a++) {
-                    Process p = new Process(this, arr[a], stationSelling, stationBuying);
-                    if (p != null) {
-                        processes.add(p);
-                    }
-                }
+            String[] arr = relevant.getProcesses();
+            for (int a = 0; a < arr.length; a++) {
+                Process p = new Process(this, arr[a], stationSelling, stationBuying);
+                processes.add(p);
             }
         }
     }
 
     @Override
     protected void updateBound() {
-        bound.clear();
         if (boundDef.size() < 1) {
-            bound.add(new Rectangle((int) getX(), (int) getY(), getWidth(), getHeight()));
+            setSingleBound(bound, (int) getX(), (int) getY(), getWidth(), getHeight());
         } else {
-            //create complex rectangular bounds
+            //create complex rectangular bounds, reusing the old rectangles
+            if (bound.size() != boundDef.size()) {
+                bound.clear();
+                for (int a = 0; a < boundDef.size(); a++) {
+                    bound.add(new Rectangle());
+                }
+            }
             for (int a = 0; a < boundDef.size(); a++) {
                 Rectangle tmp = boundDef.get(a);
                 int bx = (int) getX() + tmp.x;
                 int by = (int) getY() + tmp.y;
-                bound.add(new Rectangle(bx, by, tmp.width, tmp.height));
+                bound.get(a).setBounds(bx, by, tmp.width, tmp.height);
             }
         }
     }
 
+    @Override
+    public int getCollisionLayer() {
+        return CollisionFilter.STATION;
+    }
+
     public boolean canDock(Ship ship) {
         for (int a = 0; a < docks.size(); a++) {
             if (docks.get(a).canFit(ship) && docks.get(a).isAvailable(ship)) {
@@ -524,10 +554,11 @@ public class Station extends Ship {
 
     @Override
     public void render(Graphics g, double dx, double dy) {
-        theta = 0;
-        if (tex != null) {
+        //the tick may drop the buffer, so hold on to this one
+        BufferedImage buffer = tex;
+        if (buffer != null) {
             //setup the buffer's graphics
-            Graphics2D f = tex.createGraphics();
+            Graphics2D f = buffer.createGraphics();
             //clear the buffer
             f.setComposite(AlphaComposite.getInstance(AlphaComposite.CLEAR, 0.0f));
             f.fillRect(0, 0, getWidth(), getHeight());
@@ -550,9 +581,7 @@ public class Station extends Ship {
             }
             drawHealthBars(g, dx, dy);
             //draw the buffer onto the main frame
-            g.drawImage(tex, (int) (getX() - dx), (int) (getY() - dy), null);
-        } else {
-            initGraphics();
+            g.drawImage(buffer, (int) (getX() - dx), (int) (getY() - dy), null);
         }
     }
 
@@ -601,6 +630,7 @@ public class Station extends Ship {
 
     public void setStationSelling(ArrayList<Item> stationSelling) {
         this.stationSelling = stationSelling;
+        wareIndex = null;
     }
 
     public ArrayList<Item> getStationBuying() {
@@ -609,6 +639,7 @@ public class Station extends Ship {
 
     public void setStationBuying(ArrayList<Item> stationBuying) {
         this.stationBuying = stationBuying;
+        wareIndex = null;
     }
 
     public ArrayList<Process> getProcesses() {
@@ -636,13 +667,9 @@ public class Station extends Ship {
         this.exemptFromEconomics = exemptFromEconomics;
     }
 
-    private void exemptionSetup(String exempt) {
+    private void exemptionSetup(boolean exempt) {
         //exemption block
-        if (exempt != null) {
-            exemptFromEconomics = Boolean.parseBoolean(exempt);
-        } else {
-            exemptFromEconomics = false;
-        }
+        exemptFromEconomics = exempt;
         if (exemptFromEconomics) {
             System.out.println(getName() + " is exempted from economics.");
         }
@@ -659,9 +686,11 @@ public class Station extends Ship {
          */
         for (int a = 0; a < stationBuying.size(); a++) {
             stationBuying.get(a).setQuantity(0);
+            stockChanged(stationBuying.get(a));
         }
         for (int a = 0; a < stationSelling.size(); a++) {
             stationSelling.get(a).setQuantity(0);
+            stockChanged(stationSelling.get(a));
         }
         setCash(0);
         exemptFromEconomics = false;
@@ -0,0 +1,68 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * What actually happened when a ship bought from or sold to a station. The
+ * whole trade happens at one price, the price when it started.
+ */
+package celestial.Ship;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class TradeReceipt {
+
+    private final String ware;
+    private final int requested;
+    private final int quantity;
+    private final int price;
+
+    public TradeReceipt(String ware, int requested, int quantity, int price) {
+        this.ware = ware;
+        this.requested = requested;
+        this.quantity = quantity;
+        this.price = price;
+    }
+
+    public String getWare() {
+        return ware;
+    }
+
+    public int getRequested() {
+        return requested;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public int getPrice() {
+        return price;
+    }
+
+    public long getTotal() {
+        return (long) quantity * price;
+    }
+
+    public boolean isComplete() {
+        return quantity == requested;
+    }
+
+    @Override
+    public String toString() {
+        return quantity + "/" + requested + " " + ware + " @ " + price + " = " + getTotal();
+    }
+}
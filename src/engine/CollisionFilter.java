@@ -0,0 +1,104 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Decides which kinds of entities are allowed to collide with each other.
+ * Each entity class reports a layer, and the layer table is read from
+ * COLLISION.txt so modders can change it.
+ */
+package engine;
+
+import java.util.ArrayList;
+import lib.Parser;
+import lib.Parser.Term;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class CollisionFilter {
+
+    //layers
+    public static final int SHIP = 0;
+    public static final int STATION = 1;
+    public static final int PROJECTILE = 2;
+    public static final int EXPLOSION = 3;
+    public static final int CARGO = 4;
+    public static final int JUMPHOLE = 5;
+    public static final int PLANET = 6;
+    //names used in the resource file, by layer
+    private static final String[] NAMES = {
+        "ship", "station", "projectile", "explosion", "cargo", "jumphole", "planet"
+    };
+    //which layers each layer hits, as bits
+    private final int[] hits = new int[NAMES.length];
+
+    public CollisionFilter(Parser parse) {
+        ArrayList<Term> layers = parse.getTermsOfType("Layer");
+        for (int a = 0; a < layers.size(); a++) {
+            int layer = toLayer(layers.get(a).getValue("name"));
+            if (layer != -1) {
+                hits[layer] = 0;
+                String list = layers.get(a).getValue("hits");
+                if (list != null) {
+                    String[] arr = list.split("/");
+                    for (int b = 0; b < arr.length; b++) {
+                        int other = toLayer(arr[b].trim());
+                        if (other != -1) {
+                            hits[layer] |= bit(other);
+                        } else if (arr[b].trim().length() > 0) {
+                            System.out.println("Warning: unknown collision layer " + arr[b]);
+                        }
+                    }
+                }
+            } else {
+                System.out.println("Warning: unknown collision layer " + layers.get(a).getValue("name"));
+            }
+        }
+    }
+
+    public boolean canCollide(int layerA, int layerB) {
+        /*
+         * Both layers have to list each other.
+         */
+        return (hits[layerA] & bit(layerB)) != 0 && (hits[layerB] & bit(layerA)) != 0;
+    }
+
+    public boolean isActive(int layer) {
+        /*
+         * Layers that hit nothing don't need to be tested at all.
+         */
+        return hits[layer] != 0;
+    }
+
+    public int getHits(int layer) {
+        return hits[layer];
+    }
+
+    public static int bit(int layer) {
+        return 1 << layer;
+    }
+
+    public static int toLayer(String name) {
+        if (name != null) {
+            for (int a = 0; a < NAMES.length; a++) {
+                if (NAMES[a].equals(name)) {
+                    return a;
+                }
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * A precomputed set of collision boxes for one sprite at one rotation. The
+ * boxes are stored as offsets from the sprite's top left corner so a single
+ * mask can be shared by every ship of the same type.
+ */
+package engine;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class CollisionMask {
+
+    //number of rotation steps masks are generated for
+    public static final int ANGLES = 64;
+    //box offsets
+    private final int[] offX;
+    private final int[] offY;
+    //edge length of each box
+    private final int size;
+
+    private CollisionMask(int[] offX, int[] offY, int size) {
+        this.offX = offX;
+        this.offY = offY;
+        this.size = size;
+    }
+
+    public static CollisionMask build(Image raw, int w, int h, int angle) {
+        /*
+         * Renders the sprite at the given rotation step exactly the way
+         * Ship.render() does, then samples it on a coarse grid. Every opaque
+         * sample becomes a box.
+         */
+        BufferedImage tmp = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D f = tmp.createGraphics();
+        f.setComposite(AlphaComposite.Src);
+        f.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        f.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        AffineTransform rot = new AffineTransform();
+        rot.rotate(toTheta(angle) - (Math.PI / 2), w / 2, h / 2);
+        f.transform(rot);
+        f.drawImage(raw, 0, 0, null);
+        f.dispose();
+        //sample
+        int s = Math.max(6, w / 20);
+        ArrayList<Integer> xs = new ArrayList<>();
+        ArrayList<Integer> ys = new ArrayList<>();
+        for (int _y = 0; _y < h; _y += s) {
+            for (int _x = 0; _x < w; _x += s) {
+                //skip alpha pixels
+                if ((tmp.getRGB(_x, _y) & 0xFF000000) == 0xFF000000) {
+                    xs.add(_x - s);
+                    ys.add(_y - s);
+                }
+            }
+        }
+        int[] ox = new int[xs.size()];
+        int[] oy = new int[ys.size()];
+        for (int a = 0; a < ox.length; a++) {
+            ox[a] = xs.get(a);
+            oy[a] = ys.get(a);
+        }
+        return new CollisionMask(ox, oy, s * 2);
+    }
+
+    public static int toAngle(double theta) {
+        /*
+         * Quantizes an angle in radians to a rotation step.
+         */
+        double step = (2 * Math.PI) / ANGLES;
+        int ret = (int) Math.round(theta / step) % ANGLES;
+        if (ret < 0) {
+            ret += ANGLES;
+        }
+        return ret;
+    }
+
+    public static double toTheta(int angle) {
+        return angle * ((2 * Math.PI) / ANGLES);
+    }
+
+    public void place(ArrayList<Rectangle> bound, double x, double y) {
+        /*
+         * Translates the mask to a world position, reusing the rectangles
+         * already in the list so nothing is allocated once the list is the
+         * right size.
+         */
+        while (bound.size() > offX.length) {
+            bound.remove(bound.size() - 1);
+        }
+        while (bound.size() < offX.length) {
+            bound.add(new Rectangle());
+        }
+        int ix = (int) x;
+        int iy = (int) y;
+        for (int a = 0; a < offX.length; a++) {
+            bound.get(a).setBounds(ix + offX[a], iy + offY[a], size, size);
+        }
+    }
+
+    public int getCount() {
+        return offX.length;
+    }
+
+    public int getOffX(int box) {
+        return offX[box];
+    }
+
+    public int getOffY(int box) {
+        return offY[box];
+    }
+
+    public int getSize() {
+        return size;
+    }
+}
@@ -0,0 +1,712 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Ship, station, item, weapon and process definitions decoded from the
+ * resource files once at startup. Objects copy their stats out of these
+ * instead of searching and parsing the text every time one is made.
+ *
+ * Factions are numbered in the order they appear in FACTIONS.txt and their
+ * starting standings are kept as a dense matrix indexed by those numbers.
+ */
+package engine;
+
+import celestial.Ship.Ship;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import lib.Parser;
+import lib.Parser.Term;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class Definitions {
+
+    private final HashMap<String, ItemDef> items = new HashMap<>();
+    private final HashMap<String, WeaponDef> weapons = new HashMap<>();
+    private final HashMap<String, ShipDef> ships = new HashMap<>();
+    private final HashMap<String, StationDef> stations = new HashMap<>();
+    private final HashMap<String, ProcessDef> processes = new HashMap<>();
+    private final HashSet<String> explosions = new HashSet<>();
+    //faction ids and starting standings, row is how that faction feels
+    private final HashMap<String, Integer> factionIds = new HashMap<>();
+    private final String[] factionNames;
+    private final double[][] standings;
+    private final int playerFactionId;
+
+    public Definitions(Parser itemParse, Parser weaponParse, Parser shipParse,
+            Parser stationParse, Parser processParse, Parser explosionParse,
+            Parser factionParse) {
+        //items
+        ArrayList<Term> terms = itemParse.getTermsOfType("Item");
+        for (int a = 0; a < terms.size(); a++) {
+            String key = terms.get(a).getValue("name");
+            if (key != null && !items.containsKey(key)) {
+                try {
+                    items.put(key, new ItemDef(terms.get(a)));
+                } catch (Exception e) {
+                    System.out.println("Warning: could not read item " + key + " (" + e + ")");
+                }
+            }
+        }
+        //weapons
+        terms = weaponParse.getTermsOfType("Weapon");
+        for (int a = 0; a < terms.size(); a++) {
+            String key = terms.get(a).getValue("name");
+            if (key != null && !weapons.containsKey(key)) {
+                try {
+                    weapons.put(key, new WeaponDef(terms.get(a)));
+                } catch (Exception e) {
+                    System.out.println("Warning: could not read weapon " + key + " (" + e + ")");
+                }
+            }
+        }
+        //ships
+        terms = shipParse.getTermsOfType("Ship");
+        for (int a = 0; a < terms.size(); a++) {
+            String key = terms.get(a).getValue("type");
+            if (key != null && !ships.containsKey(key)) {
+                try {
+                    ships.put(key, new ShipDef(terms.get(a)));
+                } catch (Exception e) {
+                    System.out.println("Warning: could not read ship " + key + " (" + e + ")");
+                }
+            }
+        }
+        //stations
+        terms = stationParse.getTermsOfType("Station");
+        for (int a = 0; a < terms.size(); a++) {
+            String key = terms.get(a).getValue("type");
+            if (key != null && !stations.containsKey(key)) {
+                try {
+                    stations.put(key, new StationDef(terms.get(a)));
+                } catch (Exception e) {
+                    System.out.println("Warning: could not read station " + key + " (" + e + ")");
+                }
+            }
+        }
+        //processes
+        terms = processParse.getTermsOfType("Process");
+        for (int a = 0; a < terms.size(); a++) {
+            String key = terms.get(a).getValue("name");
+            if (key != null && !processes.containsKey(key)) {
+                try {
+                    processes.put(key, new ProcessDef(terms.get(a)));
+                } catch (Exception e) {
+                    System.out.println("Warning: could not read process " + key + " (" + e + ")");
+                }
+            }
+        }
+        //explosions only need to exist
+        terms = explosionParse.getTermsOfType("Explosion");
+        for (int a = 0; a < terms.size(); a++) {
+            String key = terms.get(a).getValue("type");
+            if (key != null) {
+                explosions.add(key);
+            }
+        }
+        //number the factions
+        terms = factionParse.getTermsOfType("Faction");
+        ArrayList<String> names = new ArrayList<>();
+        for (int a = 0; a < terms.size(); a++) {
+            String key = terms.get(a).getValue("name");
+            if (key != null && !factionIds.containsKey(key)) {
+                factionIds.put(key, names.size());
+                names.add(key);
+            }
+        }
+        factionNames = names.toArray(new String[names.size()]);
+        //then fill in how they feel about each other
+        standings = new double[factionNames.length][factionNames.length];
+        boolean[] filled = new boolean[factionNames.length];
+        for (int a = 0; a < terms.size(); a++) {
+            int id = getFactionId(terms.get(a).getValue("name"));
+            if (id != -1 && !filled[id]) {
+                filled[id] = true;
+                ArrayList<Parser.Param> vals = terms.get(a).getParams();
+                for (int b = 0; b < vals.size(); b++) {
+                    int other = getFactionId(vals.get(b).getName());
+                    if (other != -1) {
+                        try {
+                            standings[id][other] = Integer.parseInt(vals.get(b).getValue());
+                        } catch (NumberFormatException e) {
+                            //not a standing
+                        }
+                    }
+                }
+            }
+        }
+        playerFactionId = getFactionId(Ship.PLAYER_FACTION);
+    }
+
+    /*
+     * Lookups, these return null when there is no such definition
+     */
+    public ItemDef getItem(String name) {
+        return items.get(name);
+    }
+
+    public WeaponDef getWeapon(String name) {
+        return weapons.get(name);
+    }
+
+    public ShipDef getShip(String type) {
+        return ships.get(type);
+    }
+
+    public StationDef getStation(String type) {
+        return stations.get(type);
+    }
+
+    public ProcessDef getProcess(String name) {
+        return processes.get(name);
+    }
+
+    public boolean hasExplosion(String type) {
+        return explosions.contains(type);
+    }
+
+    /*
+     * Factions
+     */
+    public int getFactionId(String name) {
+        /*
+         * Returns -1 for names that aren't in the factions file.
+         */
+        if (name != null) {
+            Integer tmp = factionIds.get(name);
+            if (tmp != null) {
+                return tmp;
+            }
+        }
+        return -1;
+    }
+
+    public String getFactionName(int id) {
+        return factionNames[id];
+    }
+
+    public int getFactionCount() {
+        return factionNames.length;
+    }
+
+    public int getPlayerFactionId() {
+        return playerFactionId;
+    }
+
+    public double[] getStartingStandings(int id) {
+        /*
+         * The starting standings row for a faction. Shared, copy it before
+         * changing anything.
+         */
+        return standings[id];
+    }
+
+    /*
+     * Definitions. Arrays handed out are shared, don't change them.
+     */
+    public static class ItemDef {
+
+        private final String name;
+        private final String type;
+        private final String description;
+        private final String group;
+        private final int volume;
+        private final double mass;
+        private final double HP;
+        private final int minPrice;
+        private final int maxPrice;
+        private final int store;
+
+        private ItemDef(Term relevant) {
+            name = relevant.getValue("name");
+            type = relevant.getValue("type");
+            volume = Integer.parseInt(relevant.getValue("volume"));
+            mass = Double.parseDouble(relevant.getValue("mass"));
+            HP = Double.parseDouble(relevant.getValue("HP"));
+            minPrice = Integer.parseInt(relevant.getValue("minPrice"));
+            maxPrice = Integer.parseInt(relevant.getValue("maxPrice"));
+            description = relevant.getValue("description");
+            group = relevant.getValue("group");
+            String st = relevant.getValue("store");
+            if (st != null) {
+                store = Integer.parseInt(st);
+            } else {
+                store = 1000;
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public String getGroup() {
+            return group;
+        }
+
+        public int getVolume() {
+            return volume;
+        }
+
+        public double getMass() {
+            return mass;
+        }
+
+        public double getHP() {
+            return HP;
+        }
+
+        public int getMinPrice() {
+            return minPrice;
+        }
+
+        public int getMaxPrice() {
+            return maxPrice;
+        }
+
+        public int getStore() {
+            return store;
+        }
+    }
+
+    public static class WeaponDef {
+
+        private final String name;
+        private final String type;
+        private final double mass;
+        private final double damage;
+        private final double range;
+        private final double speed;
+        private final double coolDown;
+        private final String explosion;
+        private final boolean guided;
+        private final double accel;
+        private final double turning;
+        private final String ammo;
+        private final String fireEffect;
+        private final boolean loop;
+
+        private WeaponDef(Term relevant) {
+            name = relevant.getValue("name");
+            type = relevant.getValue("type");
+            mass = Double.parseDouble(relevant.getValue("mass"));
+            damage = Double.parseDouble(relevant.getValue("damage"));
+            range = Double.parseDouble(relevant.getValue("range"));
+            speed = Double.parseDouble(relevant.getValue("speed"));
+            coolDown = Double.parseDouble(relevant.getValue("refire"));
+            explosion = relevant.getValue("explosion");
+            //guided weapons have steering stats
+            String test = relevant.getValue("guided");
+            guided = test != null && Boolean.parseBoolean(test);
+            if (guided) {
+                accel = Double.parseDouble(relevant.getValue("accel"));
+                turning = Double.parseDouble(relevant.getValue("turning"));
+            } else {
+                accel = 0;
+                turning = 0;
+            }
+            ammo = relevant.getValue("ammo");
+            fireEffect = relevant.getValue("fireEffect");
+            String loopTest = relevant.getValue("loop");
+            loop = loopTest != null && Boolean.parseBoolean(loopTest);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public double getMass() {
+            return mass;
+        }
+
+        public double getDamage() {
+            return damage;
+        }
+
+        public double getRange() {
+            return range;
+        }
+
+        public double getSpeed() {
+            return speed;
+        }
+
+        public double getCoolDown() {
+            return coolDown;
+        }
+
+        public String getExplosion() {
+            return explosion;
+        }
+
+        public boolean isGuided() {
+            return guided;
+        }
+
+        public double getAccel() {
+            return accel;
+        }
+
+        public double getTurning() {
+            return turning;
+        }
+
+        public String getAmmo() {
+            return ammo;
+        }
+
+        public String getFireEffect() {
+            return fireEffect;
+        }
+
+        public boolean isLoop() {
+            return loop;
+        }
+    }
+
+    public static class ShipDef {
+
+        private final String type;
+        private final double accel;
+        private final double turning;
+        private final double shield;
+        private final double shieldRecharge;
+        private final double hull;
+        private final double fuel;
+        private final double mass;
+        private final double sensor;
+        private final double cargo;
+        //0 when the file doesn't give a size
+        private final int width;
+        private final int height;
+        private final HardpointDef[] hardpoints;
+
+        private ShipDef(Term relevant) {
+            type = relevant.getValue("type");
+            accel = Double.parseDouble(relevant.getValue("accel"));
+            turning = Double.parseDouble(relevant.getValue("turning"));
+            shield = Double.parseDouble(relevant.getValue("shield"));
+            shieldRecharge = Double.parseDouble(relevant.getValue("shieldRecharge"));
+            hull = Double.parseDouble(relevant.getValue("hull"));
+            fuel = Double.parseDouble(relevant.getValue("fuel"));
+            mass = Double.parseDouble(relevant.getValue("mass"));
+            sensor = Double.parseDouble(relevant.getValue("sensor"));
+            cargo = Double.parseDouble(relevant.getValue("cargo"));
+            String ws = relevant.getValue("width");
+            String hs = relevant.getValue("height");
+            if (ws != null && hs != null) {
+                width = Integer.parseInt(ws);
+                height = Integer.parseInt(hs);
+            } else {
+                width = 0;
+                height = 0;
+            }
+            //type,size,r,theta separated by slashes
+            String complex = relevant.getValue("hardpoint");
+            if (complex != null) {
+                String[] arr = complex.split("/");
+                hardpoints = new HardpointDef[arr.length];
+                for (int a = 0; a < arr.length; a++) {
+                    String[] re = arr[a].split(",");
+                    hardpoints[a] = new HardpointDef(re[0], Integer.parseInt(re[1]),
+                            Double.parseDouble(re[2]), Double.parseDouble(re[3]));
+                }
+            } else {
+                hardpoints = new HardpointDef[0];
+            }
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public double getAccel() {
+            return accel;
+        }
+
+        public double getTurning() {
+            return turning;
+        }
+
+        public double getShield() {
+            return shield;
+        }
+
+        public double getShieldRecharge() {
+            return shieldRecharge;
+        }
+
+        public double getHull() {
+            return hull;
+        }
+
+        public double getFuel() {
+            return fuel;
+        }
+
+        public double getMass() {
+            return mass;
+        }
+
+        public double getSensor() {
+            return sensor;
+        }
+
+        public double getCargo() {
+            return cargo;
+        }
+
+        public boolean hasSize() {
+            return width != 0 && height != 0;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        public HardpointDef[] getHardpoints() {
+            return hardpoints;
+        }
+    }
+
+    public static class HardpointDef {
+
+        private final String type;
+        private final int size;
+        private final double r;
+        private final double theta;
+
+        private HardpointDef(String type, int size, double r, double theta) {
+            this.type = type;
+            this.size = size;
+            this.r = r;
+            this.theta = theta;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public double getR() {
+            return r;
+        }
+
+        public double getTheta() {
+            return theta;
+        }
+    }
+
+    public static class StationDef {
+
+        private final String type;
+        private final double accel;
+        private final double turning;
+        private final double shield;
+        private final double shieldRecharge;
+        private final double hull;
+        private final double fuel;
+        private final double mass;
+        private final boolean needAsteroid;
+        private final boolean exempt;
+        //x0,y0,x1,y1 for each rectangle
+        private final int[][] rectBounds;
+        //x0,y0,x1,y1,alignX,alignY for each port
+        private final int[][] docks;
+        private final String[] processes;
+
+        private StationDef(Term relevant) {
+            type = relevant.getValue("type");
+            accel = Double.parseDouble(relevant.getValue("accel"));
+            turning = Double.parseDouble(relevant.getValue("turning"));
+            shield = Double.parseDouble(relevant.getValue("shield"));
+            shieldRecharge = Double.parseDouble(relevant.getValue("shieldRecharge"));
+            hull = Double.parseDouble(relevant.getValue("hull"));
+            fuel = Double.parseDouble(relevant.getValue("fuel"));
+            mass = Double.parseDouble(relevant.getValue("mass"));
+            String needAst = relevant.getValue("needAsteroid");
+            needAsteroid = needAst != null && Boolean.parseBoolean(needAst);
+            String ex = relevant.getValue("exempt");
+            exempt = ex != null && Boolean.parseBoolean(ex);
+            rectBounds = parseInts(relevant.getValue("rectBound"), 4);
+            docks = parseInts(relevant.getValue("dock"), 6);
+            String raw = relevant.getValue("process");
+            if (raw != null) {
+                processes = raw.split("/");
+            } else {
+                processes = new String[0];
+            }
+        }
+
+        private static int[][] parseInts(String complex, int count) {
+            /*
+             * Reads slash separated groups of comma separated ints.
+             */
+            if (complex == null) {
+                return new int[0][];
+            }
+            String[] arr = complex.split("/");
+            int[][] ret = new int[arr.length][count];
+            for (int a = 0; a < arr.length; a++) {
+                String[] re = arr[a].split(",");
+                for (int b = 0; b < count; b++) {
+                    ret[a][b] = Integer.parseInt(re[b]);
+                }
+            }
+            return ret;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public double getAccel() {
+            return accel;
+        }
+
+        public double getTurning() {
+            return turning;
+        }
+
+        public double getShield() {
+            return shield;
+        }
+
+        public double getShieldRecharge() {
+            return shieldRecharge;
+        }
+
+        public double getHull() {
+            return hull;
+        }
+
+        public double getFuel() {
+            return fuel;
+        }
+
+        public double getMass() {
+            return mass;
+        }
+
+        public boolean isNeedAsteroid() {
+            return needAsteroid;
+        }
+
+        public boolean isExempt() {
+            return exempt;
+        }
+
+        public int[][] getRectBounds() {
+            return rectBounds;
+        }
+
+        public int[][] getDocks() {
+            return docks;
+        }
+
+        public String[] getProcesses() {
+            return processes;
+        }
+    }
+
+    public static class ProcessDef {
+
+        private final String name;
+        private final double cycle;
+        private final String[] products;
+        private final int[] productQuantities;
+        private final String[] resources;
+        private final int[] resourceQuantities;
+
+        private ProcessDef(Term relevant) {
+            name = relevant.getValue("name");
+            cycle = Double.parseDouble(relevant.getValue("cycle"));
+            //name,quantity separated by slashes
+            String product = relevant.getValue("product");
+            if (product != null) {
+                String[] pArr = product.split("/");
+                products = new String[pArr.length];
+                productQuantities = new int[pArr.length];
+                for (int a = 0; a < pArr.length; a++) {
+                    String[] re = pArr[a].split(",");
+                    products[a] = re[0];
+                    productQuantities[a] = Integer.parseInt(re[1]);
+                }
+            } else {
+                products = new String[0];
+                productQuantities = new int[0];
+            }
+            String resource = relevant.getValue("resource");
+            if (resource != null) {
+                String[] rArr = resource.split("/");
+                resources = new String[rArr.length];
+                resourceQuantities = new int[rArr.length];
+                for (int a = 0; a < rArr.length; a++) {
+                    String[] re = rArr[a].split(",");
+                    resources[a] = re[0];
+                    resourceQuantities[a] = Integer.parseInt(re[1]);
+                }
+            } else {
+                resources = new String[0];
+                resourceQuantities = new int[0];
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double getCycle() {
+            return cycle;
+        }
+
+        public String[] getProducts() {
+            return products;
+        }
+
+        public int[] getProductQuantities() {
+            return productQuantities;
+        }
+
+        public String[] getResources() {
+            return resources;
+        }
+
+        public int[] getResourceQuantities() {
+            return resourceQuantities;
+        }
+    }
+}
@@ -18,9 +18,7 @@
 package engine;
 
 import celestial.Celestial;
-import celestial.Jumphole;
 import celestial.Planet;
-import celestial.Ship.CargoPod;
 import celestial.Ship.Explosion;
 import celestial.Ship.Projectile;
 import celestial.Ship.Ship;
@@ -37,8 +35,10 @@ import gdi.StandingWindow;
 import gdi.StarMapWindow;
 import gdi.TradeWindow;
 import gdi.component.AstralWindow;
+import java.awt.AlphaComposite;
 import java.awt.BasicStroke;
 import java.awt.Color;
+import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Image;
@@ -56,7 +56,13 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.sound.sampled.AudioInputStream;
@@ -85,6 +91,26 @@ public class Engine {
     //graphics and threading
     BufferStrategy bf;
     Element element;
+    //held by the simulation while it ticks and by the renderer while it draws
+    private final Object tickLock = new Object();
+    //most ticks to run in one go when the simulation falls behind
+    public static final int MAX_CATCHUP_TICKS = 5;
+    //movement past this is a jump, not something to interpolate
+    public static final double SNAP_DISTANCE = 1000;
+    //distance past the view edge that graphics are loaded out to
+    public static final double GRAPHICS_MARGIN = 500;
+    //work stealing pool for updating solar systems in parallel
+    private final ForkJoinPool workers = new ForkJoinPool();
+    //frame timing
+    private final Profiler.Phase tickPhase = Profiler.getPhase("tick");
+    private final Profiler.Phase collisionPhase = Profiler.getPhase("collision");
+    private final Profiler.Phase systemsPhase = Profiler.getPhase("systems");
+    private final Profiler.Phase missionPhase = Profiler.getPhase("missions");
+    private final Profiler.Phase hudUpdatePhase = Profiler.getPhase("hud update");
+    private final Profiler.Phase godPhase = Profiler.getPhase("god");
+    private final Profiler.Phase renderPhase = Profiler.getPhase("render");
+    private final Profiler.Phase hudPhase = Profiler.getPhase("hud");
+    private final Profiler.Phase presentPhase = Profiler.getPhase("present");
     //HUD
     protected HUD hud = new HUD(this);
     //Sound
@@ -143,6 +169,8 @@ public class Engine {
         this.windowed = !fullScreen;
         //initialize entities
         entities = new ArrayList<>();
+        //publish frame timings
+        Profiler.register();
         //create components
         element = new Element();
         //halt components
@@ -188,6 +216,8 @@ public class Engine {
 
     public void setUniverse(Universe universe) {
         this.universe = universe;
+        //world changes from other threads are applied by the logic loop
+        universe.setSimulationThread(element.th);
         //add this universe's systems to the entity list
         for (int a = 0; a < universe.getSystems().size(); a++) {
             entities.add(universe.getSystems().get(a));
@@ -441,6 +471,22 @@ public class Engine {
         StandingWindow standingWindow = new StandingWindow();
         PropertyWindow propertyWindow = new PropertyWindow();
         CommWindow commWindow = new CommWindow();
+        //frame timing overlay
+        public static final int PROFILER_SYSTEMS = 5;
+        boolean showProfiler = false;
+        private final Font profilerFont = new Font("Monospaced", Font.PLAIN, 11);
+        private ArrayList<String> profilerLines = new ArrayList<>();
+        private long lastProfilerUpdate = 0;
+        /*
+         * The tick draws the windows into back, then swaps it with ready.
+         * The renderer swaps ready with front when there is a new one and
+         * draws front, so neither waits on the other for more than a swap.
+         */
+        private final Object swapLock = new Object();
+        private BufferedImage back;
+        private BufferedImage ready;
+        private BufferedImage front;
+        private boolean fresh = false;
 
         public HUD(Engine engine) {
             homeWindow = new MenuHomeWindow(engine);
@@ -469,6 +515,7 @@ public class Engine {
         }
 
         public void render(Graphics f) {
+            long start = System.nanoTime();
             if (state == State.RUNNING) {
                 //position health window
                 healthWindow.setX((viewX / 2) - healthWindow.getWidth() / 2);
@@ -520,6 +567,93 @@ public class Engine {
             } catch (Exception ex) {
                 System.out.println("An error ocurred while rendering windows.");
             }
+            //frame timing overlay
+            if (showProfiler) {
+                renderProfiler(f);
+            }
+            hudPhase.end(start);
+        }
+
+        public void publish() {
+            /*
+             * Draws the windows as this tick left them and hands the image
+             * to the renderer. Only called from the tick.
+             */
+            if (back == null) {
+                back = new BufferedImage(viewX, viewY, BufferedImage.TYPE_INT_ARGB);
+            }
+            Graphics2D g = back.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            try {
+                //clear the last drawing
+                g.setComposite(AlphaComposite.getInstance(AlphaComposite.CLEAR, 0.0f));
+                g.fillRect(0, 0, viewX, viewY);
+                g.setComposite(AlphaComposite.SrcOver);
+                render(g);
+            } finally {
+                g.dispose();
+            }
+            synchronized (swapLock) {
+                BufferedImage tmp = ready;
+                ready = back;
+                back = tmp;
+                fresh = true;
+            }
+        }
+
+        public void draw(Graphics f) {
+            //draws the last published windows, called by the renderer
+            synchronized (swapLock) {
+                if (fresh) {
+                    BufferedImage tmp = front;
+                    front = ready;
+                    ready = tmp;
+                    fresh = false;
+                }
+            }
+            if (front != null) {
+                f.drawImage(front, 0, 0, null);
+            }
+        }
+
+        private void renderProfiler(Graphics f) {
+            /*
+             * Lists p50 and p99 for every phase, followed by the slowest
+             * solar systems. The numbers are refreshed twice a second.
+             */
+            long now = System.nanoTime();
+            if (now - lastProfilerUpdate > 500000000L) {
+                lastProfilerUpdate = now;
+                ArrayList<String> lines = new ArrayList<>();
+                lines.add(String.format("%-26s %7s %7s", "phase (ms)", "p50", "p99"));
+                ArrayList<Profiler.Phase> phases = Profiler.getProfiler().getPhases();
+                for (int a = 0; a < phases.size(); a++) {
+                    Profiler.Phase tmp = phases.get(a);
+                    if (!tmp.getName().startsWith(SolarSystem.PROFILER_PREFIX) && tmp.getCount() > 0) {
+                        lines.add(profilerLine(tmp));
+                    }
+                }
+                //slowest systems
+                ArrayList<Profiler.Phase> systems = Profiler.getProfiler().getSlowest(SolarSystem.PROFILER_PREFIX, PROFILER_SYSTEMS);
+                for (int a = 0; a < systems.size(); a++) {
+                    lines.add(profilerLine(systems.get(a)));
+                }
+                profilerLines = lines;
+            }
+            //draw
+            f.setFont(profilerFont);
+            f.setColor(Color.GREEN);
+            for (int a = 0; a < profilerLines.size(); a++) {
+                f.drawString(profilerLines.get(a), viewX - 320, 20 + (a * 13));
+            }
+        }
+
+        private String profilerLine(Profiler.Phase phase) {
+            String name = phase.getName();
+            if (name.length() > 26) {
+                name = name.substring(0, 26);
+            }
+            return String.format("%-26s %7.2f %7.2f", name, phase.getPercentileMillis(0.50), phase.getPercentileMillis(0.99));
         }
 
         @Override
@@ -695,13 +829,14 @@ public class Engine {
                  * Now game logic
                  */
                 if (!windowIntercepted && playerShip != null) {
-                    Rectangle mRect = new Rectangle((int) dx + mouseX, (int) dy + mouseY, 1, 1);
+                    double mx = (int) dx + mouseX;
+                    double my = (int) dy + mouseY;
                     //check to see if it intersected any ships or objects
                     ArrayList<Entity> tmpE = playerShip.getCurrentSystem().getEntities();
                     for (int a = 0; a < tmpE.size(); a++) {
                         if (tmpE.get(a) instanceof Ship) {
                             Ship tmp = (Ship) tmpE.get(a);
-                            if (tmp.collideWith(mRect) && tmp != playerShip) {
+                            if (tmp.intersects(mx, my, 1, 1) && tmp != playerShip) {
                                 playerShip.setTarget(tmp);
                                 break;
                             }
@@ -778,6 +913,9 @@ public class Engine {
                 boolean windowIntercepted = false;
                 if (ke.getKeyCode() == KeyEvent.VK_F1) {
                     menu();
+                } else if (ke.getKeyCode() == KeyEvent.VK_F3) {
+                    //toggle frame timing overlay
+                    showProfiler = !showProfiler;
                 } else if (ke.getKeyCode() == KeyEvent.VK_F5) {
                     //defocus all windows
                     for (int a = 0; a < windows.size(); a++) {
@@ -930,13 +1068,114 @@ public class Engine {
         }
     }
     /*
-     * Responsible for drawing and updating the universe.
+     * The entities of one render layer as they were at the end of a tick,
+     * with where each one was at the start of it.
+     */
+    private static class RenderLayer {
+
+        private final ArrayList<Entity> entities;
+        //last x, last y, x and y of each entity
+        private final double[] positions;
+
+        public RenderLayer(ArrayList<Entity> list) {
+            entities = new ArrayList<>(list);
+            positions = new double[entities.size() * 4];
+            for (int a = 0; a < entities.size(); a++) {
+                Entity tmp = entities.get(a);
+                int p = a * 4;
+                if (tmp instanceof Celestial) {
+                    positions[p] = ((Celestial) tmp).getLastX();
+                    positions[p + 1] = ((Celestial) tmp).getLastY();
+                } else {
+                    positions[p] = tmp.getX();
+                    positions[p + 1] = tmp.getY();
+                }
+                positions[p + 2] = tmp.getX();
+                positions[p + 3] = tmp.getY();
+            }
+        }
+
+        public int size() {
+            return entities.size();
+        }
+
+        public Entity get(int a) {
+            return entities.get(a);
+        }
+
+        public double getLastX(int a) {
+            return positions[a * 4];
+        }
+
+        public double getLastY(int a) {
+            return positions[a * 4 + 1];
+        }
+
+        public double getX(int a) {
+            return positions[a * 4 + 2];
+        }
+
+        public double getY(int a) {
+            return positions[a * 4 + 3];
+        }
+    }
+
+    /*
+     * Everything the renderer needs from one tick. A new one is published
+     * at the end of every tick so frames can be drawn without waiting for
+     * the simulation.
      */
+    private static class RenderState {
+
+        //when the tick finished
+        private final long time = System.nanoTime();
+        //camera at the start and end of the tick
+        private final double lastDx;
+        private final double lastDy;
+        private final double dx;
+        private final double dy;
+        //the player's system
+        private final RenderLayer celestials;
+        private final RenderLayer asteroids;
+        private final RenderLayer stations;
+        private final RenderLayer ships;
+        private final RenderLayer jumpholes;
+
+        public RenderState(SolarSystem system, double lastDx, double lastDy, double dx, double dy) {
+            this.lastDx = lastDx;
+            this.lastDy = lastDy;
+            this.dx = dx;
+            this.dy = dy;
+            celestials = new RenderLayer(system.getCelestialList());
+            asteroids = new RenderLayer(system.getAsteroidList());
+            stations = new RenderLayer(system.getStationList());
+            ships = new RenderLayer(system.getShipList());
+            jumpholes = new RenderLayer(system.getJumpholeList());
+        }
+
+        public double getAlpha(double step) {
+            //how far into the next tick the frame is, from 0 to 1
+            double alpha = (System.nanoTime() - time) / 1000000000.0 / step;
+            return Math.max(0, Math.min(1, alpha));
+        }
+    }
 
+    /*
+     * Responsible for drawing and updating the universe.
+     */
     private class Element implements EngineElement {
         //timing
 
         private long lastFrame;
+        private double accumulator;
+        //camera at the start of the last tick
+        private double lastDx;
+        private double lastDy;
+        //what the last tick left for the renderer
+        private volatile RenderState published;
+        //interpolated camera for the frame being drawn
+        private double camX;
+        private double camY;
         //rendering helpers
         BufferedImage frame = new BufferedImage(viewX, viewY, BufferedImage.TYPE_INT_RGB); //double buffered frame
         Graphics2D f = (Graphics2D) frame.getGraphics(); //graphics context for the frame
@@ -944,14 +1183,26 @@ public class Engine {
         //per system
         Image backplate;
         String lastPlate;
-        //the thread thing
+        //the simulation thread
         Thread th = new Thread(new Runnable() {
             @Override
             public void run() {
                 while (true) {
                     try {
                         periodicUpdate();
-                        //Thread.sleep(5);
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+        });
+        //the render thread
+        Thread rth = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (true) {
+                    try {
+                        periodicRender();
                     } catch (Exception e) {
                         e.printStackTrace();
                     }
@@ -961,22 +1212,91 @@ public class Engine {
 
         public Element() {
             th.start();
+            rth.start();
         }
 
         @Override
         public void periodicUpdate() {
+            /*
+             * Runs the simulation at a fixed rate. Time that built up while
+             * the last ticks ran is paid back with extra ticks, up to a limit
+             * so a long stall doesn't freeze the game catching up.
+             */
+            double step = 1.0 / getTickRate();
+            long now = System.nanoTime();
+            if (lastFrame == 0) {
+                lastFrame = now;
+            }
+            accumulator += (now - lastFrame) / 1000000000.0;
+            lastFrame = now;
+            int ticks = 0;
+            while (accumulator >= step && ticks < MAX_CATCHUP_TICKS) {
+                try {
+                    synchronized (tickLock) {
+                        //game logic
+                        logic(step);
+                        //god
+                        god();
+                    }
+                } catch (IllegalStateException e) {
+                    //lol
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+                accumulator -= step;
+                ticks++;
+            }
+            if (accumulator >= step) {
+                //too far behind, drop the backlog
+                accumulator = 0;
+            }
+            //wait for the next tick
+            sleepFor(step - accumulator);
+        }
+
+        public void periodicRender() {
+            /*
+             * Draws frames as fast as the frame cap allows.
+             */
+            long start = System.nanoTime();
             try {
-                //game logic
-                logic();
-                //god
-                god();
-                //render final
                 render();
             } catch (IllegalStateException e) {
                 //lol
             } catch (Exception e) {
                 e.printStackTrace();
             }
+            int cap = getFrameCap();
+            if (cap > 0) {
+                double spent = (System.nanoTime() - start) / 1000000000.0;
+                sleepFor((1.0 / cap) - spent);
+            } else {
+                Thread.yield();
+            }
+        }
+
+        private void sleepFor(double seconds) {
+            if (seconds > 0) {
+                try {
+                    Thread.sleep((long) (seconds * 1000));
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        private int getTickRate() {
+            if (universe != null && universe.getSettings().TICK_RATE > 0) {
+                return universe.getSettings().TICK_RATE;
+            }
+            return SettingsManager.DEFAULT_TICK_RATE;
+        }
+
+        private int getFrameCap() {
+            if (universe != null) {
+                return universe.getSettings().FRAME_CAP;
+            }
+            return SettingsManager.DEFAULT_FRAME_CAP;
         }
 
         public void generateBackdrop() {
@@ -1073,6 +1393,20 @@ public class Engine {
             //setup graphics
             Graphics g = bf.getDrawGraphics();
             g.setClip(clip);
+            //the world is drawn from the last published tick, the next one can run meanwhile
+            long start = System.nanoTime();
+            drawFrame();
+            renderPhase.end(start);
+            //use ui graphics context to draw
+            start = System.nanoTime();
+            if (!bf.contentsLost()) {
+                g.drawImage(frame, 0, 0, uiX, uiY, null);
+                bf.show();
+            }
+            presentPhase.end(start);
+        }
+
+        private void drawFrame() {
             if (state == State.RUNNING) {
                 /*
                  * This section renders the game
@@ -1087,81 +1421,75 @@ public class Engine {
                 } else {
                     element.generateBackdrop();
                 }
-                //update render view
-                Rectangle view = new Rectangle((int) dx, (int) dy, viewX, viewY);
                 //render entities in current solar system
                 try {
-                    if (playerShip != null) {
-                        SolarSystem current = playerShip.getCurrentSystem();
-                        if (current != null) {
-                            ArrayList<Entity> celestialList = current.getCelestialList();
-                            ArrayList<Entity> asteroidList = current.getAsteroidList();
-                            ArrayList<Entity> stationList = current.getStationList();
-                            ArrayList<Entity> shipList = current.getShipList();
-                            ArrayList<Entity> jumpholeList = current.getJumpholeList();
-
-                            /*
-                             * Render celestials first
-                             */
-                            for (int a = 0; a < celestialList.size(); a++) {
-                                if (celestialList.get(a).collideWith(view)) {
-                                    celestialList.get(a).render(f, dx, dy);
-                                }
+                    RenderState rs = published;
+                    if (playerShip != null && rs != null) {
+                        //how far the renderer is between the last tick and the next one
+                        double alpha = rs.getAlpha(1.0 / getTickRate());
+                        //update render view
+                        updateCamera(rs, alpha);
+                        double vx0 = camX;
+                        double vy0 = camY;
+                        RenderLayer celestialList = rs.celestials;
+                        RenderLayer asteroidList = rs.asteroids;
+                        RenderLayer stationList = rs.stations;
+                        RenderLayer shipList = rs.ships;
+                        RenderLayer jumpholeList = rs.jumpholes;
+
+                        /*
+                         * Render celestials first
+                         */
+                        for (int a = 0; a < celestialList.size(); a++) {
+                            if (celestialList.get(a).intersects(vx0, vy0, viewX, viewY)) {
+                                celestialList.get(a).render(f, renderDx(celestialList, a, alpha), renderDy(celestialList, a, alpha));
                             }
+                        }
 
-                            for (int a = 0; a < asteroidList.size(); a++) {
-                                if (asteroidList.get(a).collideWith(view)) {
-                                    asteroidList.get(a).render(f, dx, dy);
-                                }
+                        for (int a = 0; a < asteroidList.size(); a++) {
+                            if (asteroidList.get(a).intersects(vx0, vy0, viewX, viewY)) {
+                                asteroidList.get(a).render(f, renderDx(asteroidList, a, alpha), renderDy(asteroidList, a, alpha));
                             }
+                        }
 
-                            /*
-                             * Now render stations
-                             */
-                            for (int a = 0; a < stationList.size(); a++) {
-                                if (stationList.get(a).getState() != Entity.State.DEAD) {
-                                    if (stationList.get(a).collideWith(view)) {
-                                        if (stationList.get(a) == playerShip.getTarget()) {
-                                            renderTargetMarker();
-                                        } else {
-                                            renderIFFMarker((Ship) stationList.get(a));
-                                        }
-                                        stationList.get(a).render(f, dx, dy);
+                        /*
+                         * Now render stations
+                         */
+                        for (int a = 0; a < stationList.size(); a++) {
+                            if (stationList.get(a).getState() != Entity.State.DEAD) {
+                                if (stationList.get(a).intersects(vx0, vy0, viewX, viewY)) {
+                                    if (stationList.get(a) == playerShip.getTarget()) {
+                                        renderTargetMarker(stationList, a, alpha);
                                     } else {
-                                        //cleanup graphics on stations outside our view
-                                        Station tmp = (Station) stationList.get(a);
-                                        tmp.disposeGraphics();
+                                        renderIFFMarker(stationList, a, alpha);
                                     }
+                                    stationList.get(a).render(f, renderDx(stationList, a, alpha), renderDy(stationList, a, alpha));
                                 }
                             }
+                        }
 
-                            /*
-                             * Now render ships
-                             */
-                            for (int a = 0; a < shipList.size(); a++) {
-                                if (shipList.get(a).getState() != Entity.State.DEAD) {
-                                    if (shipList.get(a).quickCollideWith(view)) {
-                                        if (shipList.get(a) == playerShip.getTarget()) {
-                                            renderTargetMarker();
-                                        } else {
-                                            renderIFFMarker((Ship) shipList.get(a));
-                                        }
-                                        shipList.get(a).render(f, dx, dy);
+                        /*
+                         * Now render ships
+                         */
+                        for (int a = 0; a < shipList.size(); a++) {
+                            if (shipList.get(a).getState() != Entity.State.DEAD) {
+                                if (shipList.get(a).quickIntersects(vx0, vy0, viewX, viewY)) {
+                                    if (shipList.get(a) == playerShip.getTarget()) {
+                                        renderTargetMarker(shipList, a, alpha);
                                     } else {
-                                        //cleanup graphics on ships outside our view
-                                        Ship tmp = (Ship) shipList.get(a);
-                                        tmp.disposeGraphics();
+                                        renderIFFMarker(shipList, a, alpha);
                                     }
+                                    shipList.get(a).render(f, renderDx(shipList, a, alpha), renderDy(shipList, a, alpha));
                                 }
                             }
+                        }
 
-                            /*
-                             * Render jumpholes last
-                             */
-                            for (int a = 0; a < jumpholeList.size(); a++) {
-                                if (jumpholeList.get(a).quickCollideWith(view)) {
-                                    jumpholeList.get(a).render(f, dx, dy);
-                                }
+                        /*
+                         * Render jumpholes last
+                         */
+                        for (int a = 0; a < jumpholeList.size(); a++) {
+                            if (jumpholeList.get(a).quickIntersects(vx0, vy0, viewX, viewY)) {
+                                jumpholeList.get(a).render(f, renderDx(jumpholeList, a, alpha), renderDy(jumpholeList, a, alpha));
                             }
                         }
                     }
@@ -1180,41 +1508,83 @@ public class Engine {
 
             }
             Toolkit.getDefaultToolkit().sync();
-            //render HUD
-            getHud().render(f);
-            //use ui graphics context to draw
-            if (!bf.contentsLost()) {
-                g.drawImage(frame, 0, 0, uiX, uiY, null);
-                bf.show();
+            //render HUD as the last tick drew it
+            getHud().draw(f);
+        }
+
+        private void updateCamera(RenderState rs, double alpha) {
+            /*
+             * Places the camera between the last two ticks so motion stays
+             * smooth when the frame rate and tick rate differ.
+             */
+            if (Math.abs(rs.dx - rs.lastDx) > SNAP_DISTANCE || Math.abs(rs.dy - rs.lastDy) > SNAP_DISTANCE) {
+                camX = rs.dx;
+                camY = rs.dy;
+            } else {
+                camX = (int) (rs.lastDx + (rs.dx - rs.lastDx) * alpha);
+                camY = (int) (rs.lastDy + (rs.dy - rs.lastDy) * alpha);
             }
         }
 
+        private double renderDx(RenderLayer layer, int a, double alpha) {
+            /*
+             * Returns the x differential to render an entity with so it
+             * shows up at its interpolated position. Entities draw themselves
+             * at their live position, which may already be past the published
+             * tick, so the differential makes up the difference.
+             */
+            double moved = layer.getX(a) - layer.getLastX(a);
+            if (Math.abs(moved) < SNAP_DISTANCE) {
+                return camX + layer.get(a).getX() - (layer.getLastX(a) + moved * alpha);
+            }
+            return camX;
+        }
+
+        private double renderDy(RenderLayer layer, int a, double alpha) {
+            double moved = layer.getY(a) - layer.getLastY(a);
+            if (Math.abs(moved) < SNAP_DISTANCE) {
+                return camY + layer.get(a).getY() - (layer.getLastY(a) + moved * alpha);
+            }
+            return camY;
+        }
+
         /*
          * Updating
          */
-        public void logic() {
-            //get time since last frame
-            long dt = System.nanoTime() - lastFrame;
-            //store current time
-            lastFrame = System.nanoTime();
+        public void logic(double step) {
             //calculate time per frame
-            double tpf = Math.abs(dt / 1000000000.0) * dilation;
+            double tpf = step * dilation;
             //hard limit
             if (tpf > 0.1) {
                 tpf = 0.1;
             }
             if (state == State.RUNNING && universe != null) {
+                long tickStart = System.nanoTime();
+                //remember where things were for interpolation
+                storePositions();
                 //handle player events
                 handlePlayerEvents();
                 //collission test
+                long start = System.nanoTime();
                 try {
                     collissionTest(tpf);
                 } catch (Exception e) {
                     System.out.println("Collission tester dun goof'd");
                 }
+                collisionPhase.end(start);
                 //update game entities
+                start = System.nanoTime();
+                if (universe.getSettings().PARALLEL_SYSTEMS) {
+                    updateParallel(tpf);
+                } else {
+                    for (int a = 0; a < entities.size(); a++) {
+                        entities.get(a).periodicUpdate(tpf);
+                    }
+                }
+                //apply spawns, jumps and removals queued by other threads
+                universe.drainDeferred();
+                systemsPhase.end(start);
                 for (int a = 0; a < entities.size(); a++) {
-                    entities.get(a).periodicUpdate(tpf);
                     if (entities.get(a).getState() == Entity.State.DEAD) {
                         //remove the entity
                         entities.remove(a);
@@ -1223,7 +1593,9 @@ public class Engine {
                 //update sound
                 sound.periodicUpdate();
                 //update hud
+                start = System.nanoTime();
                 hud.periodicUpdate();
+                hudUpdatePhase.end(start);
                 //update differentials for rendering
                 dx = (int) playerShip.getX() - (viewX / 2) + (playerShip.getWidth() / 2);
                 dy = (int) playerShip.getY() - (viewY / 2) + (playerShip.getHeight() / 2);
@@ -1231,7 +1603,10 @@ public class Engine {
                 pvy = playerShip.getVy();
                 //recover player ship
                 playerShip = universe.getPlayerShip();
+                //hand the renderer this tick
+                publishRenderState();
                 //update player missions
+                start = System.nanoTime();
                 for (int a = 0; a < universe.getPlayerMissions().size(); a++) {
                     universe.getPlayerMissions().get(a).periodicUpdate(tpf);
                 }
@@ -1243,91 +1618,147 @@ public class Engine {
                         universe.getPlayerCampaigns().remove(universe.getPlayerCampaigns().get(a));
                     }
                 }
+                missionPhase.end(start);
+                //draw the windows for the renderer
+                hud.publish();
+                tickPhase.end(tickStart);
             } else if (state == State.MENU) {
                 //update HUD
                 getHud().periodicUpdate();
+                getHud().publish();
             } else {
                 //
             }
         }
 
-        private void god() {
-            if (universe != null) {
-                if (universe.getGod() != null) {
-                    universe.getGod().periodicUpdate();
+        private void updateParallel(final double tpf) {
+            /*
+             * Updates every solar system at once on the worker pool. Jumps
+             * and other cross-system changes are queued by the universe and
+             * applied one at a time once every system is done.
+             */
+            ArrayList<Callable<Object>> jobs = new ArrayList<>();
+            for (int a = 0; a < entities.size(); a++) {
+                final Entity tmp = entities.get(a);
+                jobs.add(Executors.callable(() -> tmp.periodicUpdate(tpf)));
+            }
+            universe.beginDeferring();
+            try {
+                List<Future<Object>> done = workers.invokeAll(jobs);
+                for (int a = 0; a < done.size(); a++) {
+                    try {
+                        done.get(a).get();
+                    } catch (ExecutionException e) {
+                        e.printStackTrace();
+                    }
                 }
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            } finally {
+                universe.endDeferring();
             }
         }
 
-        private void collissionTest(double tpf) throws Exception {
+        private void storePositions() {
+            lastDx = dx;
+            lastDy = dy;
+            if (playerShip != null && playerShip.getCurrentSystem() != null) {
+                ArrayList<Entity> tmp = playerShip.getCurrentSystem().getEntities();
+                for (int a = 0; a < tmp.size(); a++) {
+                    if (tmp.get(a) instanceof Celestial) {
+                        ((Celestial) tmp.get(a)).storePosition();
+                    }
+                }
+            }
+        }
+
+        private void publishRenderState() {
             /*
-             * 1. Collissions are not tested on planets
-             * 2. Collissions are only tested between entities in the same solar system.
+             * Copies what the renderer needs out of this tick while the tick
+             * lock is still held.
              */
-            for (int a = 0; a < universe.getSystems().size(); a++) {
-                ArrayList<Entity> objects = universe.getSystems().get(a).getEntities();
-                for (int b = 0; b < objects.size(); b++) {
-                    if ((objects.get(b) instanceof Planet == false) || (objects.get(b) instanceof Jumphole)) {
-                        for (int c = 0; c < objects.size(); c++) {
-                            if ((objects.get(c) instanceof Planet == false) || (objects.get(c) instanceof Jumphole)) {
-                                if (objects.get(b) != objects.get(c)) {
-                                    if (objects.get(b).collideWith(objects.get(c))) {
-                                        elasticCollision(objects.get(b), objects.get(c), tpf);
-                                    }
-                                }
-                            }
+            SolarSystem current = playerShip != null ? playerShip.getCurrentSystem() : null;
+            if (current != null) {
+                RenderState rs = new RenderState(current, lastDx, lastDy, dx, dy);
+                prepareGraphics(rs);
+                published = rs;
+            } else {
+                published = null;
+            }
+        }
+
+        private void prepareGraphics(RenderState rs) {
+            /*
+             * Loads the graphics of whatever is near the view and drops them
+             * from ships and stations that left it. This changes sizes and
+             * bounds, so it is done here in the tick and never by the
+             * renderer. The margin covers the camera moving before the next
+             * tick is published.
+             */
+            double vx0 = rs.dx - GRAPHICS_MARGIN;
+            double vy0 = rs.dy - GRAPHICS_MARGIN;
+            double vw = viewX + 2 * GRAPHICS_MARGIN;
+            double vh = viewY + 2 * GRAPHICS_MARGIN;
+            //the same tests the renderer uses for each layer
+            RenderLayer[] layers = {rs.celestials, rs.asteroids, rs.jumpholes};
+            for (int l = 0; l < layers.length; l++) {
+                RenderLayer layer = layers[l];
+                for (int a = 0; a < layer.size(); a++) {
+                    Entity tmp = layer.get(a);
+                    //ships and stations are handled by their own layers
+                    if (tmp instanceof Celestial && !(tmp instanceof Ship)) {
+                        Celestial cel = (Celestial) tmp;
+                        boolean near = layer == rs.jumpholes ? cel.quickIntersects(vx0, vy0, vw, vh) : cel.intersects(vx0, vy0, vw, vh);
+                        if (near && !cel.hasGraphics()) {
+                            cel.initGraphics();
                         }
                     }
                 }
             }
+            for (int a = 0; a < rs.stations.size(); a++) {
+                Station tmp = (Station) rs.stations.get(a);
+                if (tmp.getState() != Entity.State.DEAD) {
+                    boolean near = tmp.intersects(vx0, vy0, vw, vh);
+                    if (near && !tmp.hasGraphics()) {
+                        tmp.initGraphics();
+                    } else if (!near && tmp.hasGraphics()) {
+                        tmp.disposeGraphics();
+                    }
+                }
+            }
+            for (int a = 0; a < rs.ships.size(); a++) {
+                Ship tmp = (Ship) rs.ships.get(a);
+                if (tmp.getState() != Entity.State.DEAD) {
+                    boolean near = tmp.quickIntersects(vx0, vy0, vw, vh);
+                    if (near && !tmp.hasGraphics()) {
+                        tmp.initGraphics();
+                    } else if (!near && tmp.hasGraphics()) {
+                        tmp.disposeGraphics();
+                    }
+                }
+            }
         }
 
-        private void elasticCollision(Entity a, Entity b, double tpf) {
-            //inform them of the collision for any special events
-            if (!(a instanceof Explosion) && !(b instanceof Explosion)) {
-                a.informOfCollisionWith(b);
-                b.informOfCollisionWith(a);
+        private void god() {
+            if (universe != null) {
+                if (universe.getGod() != null) {
+                    long start = System.nanoTime();
+                    universe.getGod().periodicUpdate();
+                    godPhase.end(start);
+                }
             }
-            //physics time
-            if (a instanceof Celestial && b instanceof Celestial) {
-                /*
-                 * I don't really want this physics being applied between projectiles
-                 * and their targets.
-                 */
-                if (!(a instanceof CargoPod || b instanceof CargoPod)) {
-                    if (!(a instanceof Projectile || b instanceof Projectile)) {
-                        if (!(a instanceof Jumphole || b instanceof Jumphole)) {
-                            if (!(a instanceof Explosion || b instanceof Explosion)) {
-                                Celestial dummyA = (Celestial) a;
-                                Celestial dummyB = (Celestial) b;
-                                //get velocity and mass
-                                double aVx = dummyA.getVx();
-                                double aVy = dummyA.getVy();
-                                double aM = dummyA.getMass();
-                                double bVx = dummyB.getVx();
-                                double bVy = dummyB.getVy();
-                                double bM = dummyB.getMass();
-                                //push them apart to avoid double counting and overlap
-                                dummyA.setX(dummyA.getX() - aVx * tpf * 2.0);
-                                dummyA.setY(dummyA.getY() - aVy * tpf * 2.0);
-                                dummyB.setX(dummyB.getX() - bVx * tpf * 2.0);
-                                dummyB.setY(dummyB.getY() - bVy * tpf * 2.0);
-                                //determine center of mass's velocity
-                                double cVx = (aVx * aM + bVx * bM) / (aM + bM);
-                                double cVy = (aVy * aM + bVy * bM) / (aM + bM);
-                                //reverse directions and de-reference frame
-                                double aVx2 = -aVx + cVx;
-                                double aVy2 = -aVy + cVy;
-                                double bVx2 = -bVx + cVx;
-                                double bVy2 = -bVy + cVy;
-                                //store
-                                dummyA.setVx(aVx2);
-                                dummyA.setVy(aVy2);
-                                dummyB.setVx(bVx2);
-                                dummyB.setVy(bVy2);
-                            }
-                        }
-                    }
+        }
+
+        private void collissionTest(double tpf) throws Exception {
+            /*
+             * Collissions are only tested between entities in the same solar
+             * system, and out of sector systems running at reduced fidelity
+             * aren't tested at all.
+             */
+            for (int a = 0; a < universe.getSystems().size(); a++) {
+                SolarSystem system = universe.getSystems().get(a);
+                if (!system.isCoarse()) {
+                    system.collissionTest(tpf);
                 }
             }
         }
@@ -1358,14 +1789,15 @@ public class Engine {
         /*
          * special marker rendering
          */
-        protected void renderTargetMarker() {
+        protected void renderTargetMarker(RenderLayer layer, int a, double alpha) {
             //draw a marker around the player's target
-            if (playerShip.getTarget() != null) {
-                if (!(playerShip.getTarget() instanceof Station)) {
-                    int tx = (int) (playerShip.getTarget().getX() - dx);
-                    int ty = (int) (playerShip.getTarget().getY() - dy);
-                    int tw = playerShip.getTarget().getWidth();
-                    int th = playerShip.getTarget().getHeight();
+            Ship target = (Ship) layer.get(a);
+            if (target != null) {
+                if (!(target instanceof Station)) {
+                    int tx = (int) (target.getX() - renderDx(layer, a, alpha));
+                    int ty = (int) (target.getY() - renderDy(layer, a, alpha));
+                    int tw = target.getWidth();
+                    int th = target.getHeight();
                     f.setColor(Color.YELLOW);
                     f.setStroke(new BasicStroke(3));
                     f.drawOval(tx, ty, tw, th);
@@ -1373,13 +1805,14 @@ public class Engine {
             }
         }
 
-        protected void renderIFFMarker(Ship ship) {
+        protected void renderIFFMarker(RenderLayer layer, int a, double alpha) {
+            Ship ship = (Ship) layer.get(a);
             if (!(ship instanceof Projectile) && ship != playerShip) {
                 if (!(ship instanceof Explosion)) {
                     if (!(ship instanceof Station)) {
                         //draw a marker to indicate standings
-                        int tx = (int) (ship.getX() - dx);
-                        int ty = (int) (ship.getY() - dy);
+                        int tx = (int) (ship.getX() - renderDx(layer, a, alpha));
+                        int ty = (int) (ship.getY() - renderDy(layer, a, alpha));
                         int tw = ship.getWidth();
                         int th = ship.getHeight();
                         int standing = ship.getStandingsToMe(playerShip);
@@ -56,6 +56,14 @@ public interface Entity {
     
     public boolean quickCollideWith(Rectangle target);
 
+    /*
+     * Allocation free versions of the rectangle tests, the box is given as
+     * its corner and size in world coordinates.
+     */
+    public boolean intersects(double bx, double by, double bw, double bh);
+
+    public boolean quickIntersects(double bx, double by, double bw, double bh);
+
     public void informOfCollisionWith(Entity target);
     /*
      * Position information
@@ -25,8 +25,12 @@ import celestial.Celestial;
 import celestial.Ship.Ship;
 import celestial.Ship.Ship.Behavior;
 import celestial.Ship.Station;
+import java.awt.Rectangle;
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.Random;
 import lib.Binling;
 import lib.Faction;
@@ -52,6 +56,12 @@ public class God implements EngineElement {
         '3', '4', '5', '6', '7', '8', '9', '0'};
     //timing
     private long lastFrame;
+    //seconds between cycles
+    public static final double CYCLE_PERIOD = 120;
+    //true while a cycle is running on its thread
+    private volatile boolean cycling = false;
+    //what the cycle may look at, taken before its thread starts
+    private Survey survey;
 
     public God(Universe universe) {
         this.universe = universe;
@@ -74,20 +84,29 @@ public class God implements EngineElement {
         long dt = System.nanoTime() - lastFrame;
         //calculate time per frame
         double tpf = Math.abs(dt / 1000000000.0);
-        //only run it every 16 minutes because it's a performance hog!
-        if (tpf > 960 || firstRun) {
+        //the counts are kept by the systems so this is cheap, but don't overlap
+        if ((tpf > CYCLE_PERIOD || firstRun) && !cycling) {
             firstRun = false;
+            cycling = true;
             //store time
             lastFrame = System.nanoTime();
+            //this runs in the tick, so copy what the cycle needs now
+            survey = new Survey(universe.getSystems());
             //update
             Thread s = new Thread(new Runnable() {
                 @Override
                 public void run() {
-                    checkStations();
-                    checkPatrols();
-                    checkTraders();
-                    checkMerchants();
-                    System.out.println("God cycled.");
+                    try {
+                        long start = System.nanoTime();
+                        checkStations();
+                        checkPatrols();
+                        checkTraders();
+                        checkMerchants();
+                        Profiler.getPhase("god cycle").end(start);
+                        System.out.println("God cycled.");
+                    } finally {
+                        cycling = false;
+                    }
                 }
             });
             s.start();
@@ -126,18 +145,39 @@ public class God implements EngineElement {
         //make sure none are ontop of each other
         for (int a = 0; a < universe.getSystems().size(); a++) {
             SolarSystem curr = universe.getSystems().get(a);
-            ArrayList<Entity> stations = curr.getStationList();
-            for (int y = 0; y < stations.size(); y++) {
-                Station prim = (Station) stations.get(y);
-                for (int x = 0; x < stations.size(); x++) {
-                    Station sub = (Station) stations.get(x);
+            //the stations as they were when the cycle started
+            ArrayList<StationShape> stations = survey.getStations(curr);
+            //sweep along x so only stations whose extents overlap get the full test
+            final Rectangle[] box = new Rectangle[stations.size()];
+            Integer[] order = new Integer[stations.size()];
+            for (int b = 0; b < box.length; b++) {
+                box[b] = stations.get(b).extent;
+                order[b] = b;
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer o1, Integer o2) {
+                    return Integer.compare(box[o1].x, box[o2].x);
+                }
+            });
+            for (int y = 0; y < order.length; y++) {
+                StationShape prim = stations.get(order[y]);
+                Rectangle pb = box[order[y]];
+                //each pair only needs testing once, and the rest start further right
+                for (int x = y + 1; x < order.length && box[order[x]].x < pb.x + pb.width; x++) {
+                    StationShape shape = stations.get(order[x]);
+                    Station sub = shape.station;
                     //make sure they aren't the same
-                    if (stations.get(y) != stations.get(x)) {
+                    if (prim.station != sub && pb.intersects(box[order[x]])) {
                         //check for collission
-                        if (prim.collideWith(sub)) {
+                        if (prim.collideWith(shape)) {
                             //push the sub station away
-                            sub.setX(rnd.nextInt(64000) - 32000);
-                            sub.setY(rnd.nextInt(64000) - 32000);
+                            double sx = rnd.nextInt(64000) - 32000;
+                            double sy = rnd.nextInt(64000) - 32000;
+                            universe.defer(() -> {
+                                sub.setX(sx);
+                                sub.setY(sy);
+                            });
                             //report
                             System.out.println("Station " + sub + " was moved.");
                         }
@@ -147,6 +187,94 @@ public class God implements EngineElement {
         }
     }
 
+    private static class Survey {
+
+        /*
+         * Copies of the positions and bounds the cycle reads, taken on the
+         * simulation thread. The counts come from each system's population,
+         * which is safe to ask from any thread.
+         */
+        private final IdentityHashMap<SolarSystem, Point2D.Double[]> hosts = new IdentityHashMap<>();
+        private final IdentityHashMap<SolarSystem, ArrayList<StationShape>> stations = new IdentityHashMap<>();
+
+        public Survey(ArrayList<SolarSystem> systems) {
+            for (int a = 0; a < systems.size(); a++) {
+                SolarSystem sys = systems.get(a);
+                //anything in the celestial list can be spawned near
+                ArrayList<Entity> celestials = sys.getCelestialList();
+                Point2D.Double[] spots = new Point2D.Double[celestials.size()];
+                for (int b = 0; b < spots.length; b++) {
+                    spots[b] = new Point2D.Double(celestials.get(b).getX(), celestials.get(b).getY());
+                }
+                hosts.put(sys, spots);
+                ArrayList<Entity> list = sys.getStationList();
+                ArrayList<StationShape> shapes = new ArrayList<>(list.size());
+                for (int b = 0; b < list.size(); b++) {
+                    shapes.add(new StationShape((Station) list.get(b)));
+                }
+                stations.put(sys, shapes);
+            }
+        }
+
+        public Point2D.Double pickHost(SolarSystem system, Random rnd) {
+            Point2D.Double[] spots = hosts.get(system);
+            return spots[rnd.nextInt(spots.length)];
+        }
+
+        public ArrayList<StationShape> getStations(SolarSystem system) {
+            return stations.get(system);
+        }
+    }
+
+    private static class StationShape {
+
+        /*
+         * Where a station was and the space it took up.
+         */
+        private final Station station;
+        private final double x;
+        private final double y;
+        private final double width;
+        private final double height;
+        private final ArrayList<Rectangle> bounds = new ArrayList<>();
+        //the smallest rectangle holding all of the bounds
+        private final Rectangle extent = new Rectangle();
+
+        public StationShape(Station station) {
+            this.station = station;
+            x = station.getX();
+            y = station.getY();
+            width = station.getWidth();
+            height = station.getHeight();
+            ArrayList<Rectangle> live = station.getBounds();
+            for (int a = 0; a < live.size(); a++) {
+                Rectangle box = new Rectangle(live.get(a));
+                if (bounds.isEmpty()) {
+                    extent.setBounds(box);
+                } else {
+                    extent.add(box);
+                }
+                bounds.add(box);
+            }
+        }
+
+        public boolean collideWith(StationShape target) {
+            //the same tests as Celestial.collideWith(), on the copies
+            if (!Celestial.overlaps(x, y, Math.max(width, 50), Math.max(height, 50),
+                    target.x, target.y, Math.max(target.width, 50), Math.max(target.height, 50))) {
+                return false;
+            }
+            for (int a = 0; a < bounds.size(); a++) {
+                for (int b = 0; b < target.bounds.size(); b++) {
+                    if (bounds.get(a).intersects(target.bounds.get(b))) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
     /*
      * Implementations
      */
@@ -202,7 +330,7 @@ public class God implements EngineElement {
                 //System.out.println(faction.getStations().get(a).getString() + " " + count[a]);
                 while (count[a] < density) {
                     //celestials
-                    Celestial host = null;
+                    Point2D.Double host = null;
                     SolarSystem pick = null;
                     //branch based on entity type
                     if (faction.isEmpire()) {
@@ -215,8 +343,7 @@ public class God implements EngineElement {
                             pick = universe.getSystems().get(rnd.nextInt(universe.getSystems().size()));
                         }
                         //pick a planet in this system
-                        ArrayList<Entity> planets = pick.getCelestialList();
-                        host = (Celestial) planets.get(rnd.nextInt(planets.size()));
+                        host = survey.pickHost(pick, rnd);
                     } else {
                         //space belonging to this faction's host
                         ArrayList<SolarSystem> sov = faction.getSovHost();
@@ -227,8 +354,7 @@ public class God implements EngineElement {
                             pick = universe.getSystems().get(rnd.nextInt(universe.getSystems().size()));
                         }
                         //pick a planet in this system
-                        ArrayList<Entity> planets = pick.getCelestialList();
-                        host = (Celestial) planets.get(rnd.nextInt(planets.size()));
+                        host = survey.pickHost(pick, rnd);
                     }
                     //pick a point near the planet
                     double x = host.getX() + rnd.nextInt(10000) - 5000;
@@ -290,7 +416,7 @@ public class God implements EngineElement {
                 double density = faction.getMerchants().get(a).getDouble();
                 //System.out.println(faction.getMerchants().get(a).getString() + " " + count[a]);
                 while (count[a] < density) {
-                    Celestial host = null;
+                    Point2D.Double host = null;
                     SolarSystem pick = null;
                     if (faction.isEmpire()) {
                         //pick a system this faction owns
@@ -302,8 +428,7 @@ public class God implements EngineElement {
                             pick = universe.getSystems().get(rnd.nextInt(universe.getSystems().size()));
                         }
                         //pick a planet in this system
-                        ArrayList<Entity> planets = pick.getCelestialList();
-                        host = (Celestial) planets.get(rnd.nextInt(planets.size()));
+                        host = survey.pickHost(pick, rnd);
                     } else {
                         //space belonging to this faction's host
                         ArrayList<SolarSystem> sov = faction.getSovHost();
@@ -314,8 +439,7 @@ public class God implements EngineElement {
                             pick = universe.getSystems().get(rnd.nextInt(universe.getSystems().size()));
                         }
                         //pick a planet in this system
-                        ArrayList<Entity> planets = pick.getCelestialList();
-                        host = (Celestial) planets.get(rnd.nextInt(planets.size()));
+                        host = survey.pickHost(pick, rnd);
                     }
                     //pick a point near the planet
                     double x = host.getX() + rnd.nextInt(10000) - 5000;
@@ -377,7 +501,7 @@ public class God implements EngineElement {
                 double density = faction.getTraders().get(a).getDouble();
                 //System.out.println(faction.getTraders().get(a).getString() + " " + count[a]);
                 while (count[a] < density) {
-                    Celestial host = null;
+                    Point2D.Double host = null;
                     SolarSystem pick = null;
                     if (faction.isEmpire()) {
                         //pick a system this faction owns
@@ -389,8 +513,7 @@ public class God implements EngineElement {
                             pick = universe.getSystems().get(rnd.nextInt(universe.getSystems().size()));
                         }
                         //pick a planet in this system
-                        ArrayList<Entity> planets = pick.getCelestialList();
-                        host = (Celestial) planets.get(rnd.nextInt(planets.size()));
+                        host = survey.pickHost(pick, rnd);
                     } else {
                         //space belonging to this faction's host
                         ArrayList<SolarSystem> sov = faction.getSovHost();
@@ -401,8 +524,7 @@ public class God implements EngineElement {
                             pick = universe.getSystems().get(rnd.nextInt(universe.getSystems().size()));
                         }
                         //pick a planet in this system
-                        ArrayList<Entity> planets = pick.getCelestialList();
-                        host = (Celestial) planets.get(rnd.nextInt(planets.size()));
+                        host = survey.pickHost(pick, rnd);
                     }
                     //pick a point near the planet
                     double x = host.getX() + rnd.nextInt(10000) - 5000;
@@ -464,7 +586,7 @@ public class God implements EngineElement {
                 double density = faction.getPatrols().get(a).getDouble();
                 //System.out.println(faction.getPatrols().get(a).getString() + " " + count[a]);
                 while (count[a] < density) {
-                    Celestial host = null;
+                    Point2D.Double host = null;
                     SolarSystem pick = null;
                     if (faction.isEmpire()) {
                         //pick a system this faction owns
@@ -476,8 +598,7 @@ public class God implements EngineElement {
                             pick = universe.getSystems().get(rnd.nextInt(universe.getSystems().size()));
                         }
                         //pick a planet in this system
-                        ArrayList<Entity> planets = pick.getCelestialList();
-                        host = (Celestial) planets.get(rnd.nextInt(planets.size()));
+                        host = survey.pickHost(pick, rnd);
                     } else {
                         //space belonging to this faction's host
                         ArrayList<SolarSystem> sov = faction.getSovHost();
@@ -488,8 +609,7 @@ public class God implements EngineElement {
                             pick = universe.getSystems().get(rnd.nextInt(universe.getSystems().size()));
                         }
                         //pick a planet in this system
-                        ArrayList<Entity> planets = pick.getCelestialList();
-                        host = (Celestial) planets.get(rnd.nextInt(planets.size()));
+                        host = survey.pickHost(pick, rnd);
                     }
                     //pick a point near the planet
                     double x = host.getX() + rnd.nextInt(10000) - 5000;
@@ -509,62 +629,18 @@ public class God implements EngineElement {
      * Tools
      */
     public int countStations(Faction faction, SolarSystem system, String type) {
-        int count = 0;
-        {
-            //get station list
-            ArrayList<Entity> stations = system.getStationList();
-            for (int a = 0; a < stations.size(); a++) {
-                Station tmp = (Station) stations.get(a);
-                if (tmp.getState() == Ship.State.ALIVE) {
-                    if (tmp.getFaction().equals(faction.getName())) {
-                        if (tmp.getType().equals(type)) {
-                            count++;
-                        }
-                    }
-                } else if (tmp.getState() == Ship.State.DEAD) {
-                    System.out.println(tmp.getName() + " dead but not cleaned up");
-                }
-            }
-        }
-        return count;
+        //living stations, counted by the system as they come and go
+        return system.getPopulation().countStations(faction.getId(), type);
     }
 
     public int countShipsByLoadout(Faction faction, SolarSystem system, String loadout) {
-        int count = 0;
-        {
-            //get ship list
-            ArrayList<Entity> ships = system.getShipList();
-            for (int a = 0; a < ships.size(); a++) {
-                Ship tmp = (Ship) ships.get(a);
-                if (tmp.getState() == Ship.State.ALIVE) {
-                    if (tmp.getFaction().equals(faction.getName())) {
-                        if (tmp.getTemplate().equals(loadout)) {
-                            count++;
-                        }
-                    }
-                } else if (tmp.getState() == Ship.State.DEAD) {
-                    System.out.println(tmp.getName() + " dead but not cleaned up");
-                }
-            }
-        }
-        return count;
+        //living ships, counted by the system as they come and go
+        return system.getPopulation().countShips(faction.getId(), loadout);
     }
 
     public int countShipsByRole(Faction faction, SolarSystem system, Behavior behavior) {
-        int count = 0;
-        {
-            //get ship list
-            ArrayList<Entity> ships = system.getShipList();
-            for (int a = 0; a < ships.size(); a++) {
-                Ship tmp = (Ship) ships.get(a);
-                if (tmp.getFaction().equals(faction.getName())) {
-                    if (tmp.getBehavior() == behavior) {
-                        count++;
-                    }
-                }
-            }
-        }
-        return count;
+        //living ships, counted by the system as they come and go
+        return system.getPopulation().countShipsByBehavior(faction.getId(), behavior);
     }
 
     private Station makeStation(String type, String name, String faction) {
@@ -663,7 +739,7 @@ public class God implements EngineElement {
         tmp.setBehavior(behavior);
         //finalize
         tmp.setCurrentSystem(system);
-        system.putEntityInSystem(tmp);
+        universe.defer(() -> system.putEntityInSystem(tmp));
         //report
         //System.out.println("Spawned " + loadout.getString() + " in " + system.getName() + " for " + faction.getName());
     }
@@ -680,7 +756,7 @@ public class God implements EngineElement {
         tmp.setCurrentSystem(system);
         tmp.setGroup(group);
         tmp.setPlotShip(plotShip);
-        system.putEntityInSystem(tmp);
+        universe.defer(() -> system.putEntityInSystem(tmp));
         //report
         //System.out.println("Spawned " + loadout.getString() + " in " + system.getName() + " for " + faction.getName());
     }
@@ -694,7 +770,7 @@ public class God implements EngineElement {
         tmp.setY(loc.getY());
         //finalize
         tmp.setCurrentSystem(system);
-        system.putEntityInSystem(tmp);
+        universe.defer(() -> system.putEntityInSystem(tmp));
         //report
         System.out.println("Spawned " + loadout.getString() + " in " + system.getName() + " for " + faction.getName());
     }
@@ -709,7 +785,7 @@ public class God implements EngineElement {
         tmp.setCurrentSystem(system);
         tmp.setGroup(group);
         tmp.setPlotShip(plotShip);
-        system.putEntityInSystem(tmp);
+        universe.defer(() -> system.putEntityInSystem(tmp));
         //report
         System.out.println("Spawned " + type + " in " + system.getName() + " for " + faction.getName());
     }
@@ -0,0 +1,232 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Collects nanosecond timings for the phases of a frame (collision, solar
+ * systems, God, rendering and so on) into rolling windows. Recording a sample
+ * is just a store into a ring buffer, the percentiles are only worked out
+ * when someone asks for them.
+ */
+package engine;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class Profiler implements ProfilerMBean {
+
+    //number of samples kept per phase
+    public static final int WINDOW = 512;
+    //name used to register with JMX
+    public static final String MBEAN_NAME = "HighAlbedo:type=Profiler";
+    private static final Profiler profiler = new Profiler();
+    //every phase, in the order they were first used
+    private final LinkedHashMap<String, Phase> phases = new LinkedHashMap<>();
+
+    private Profiler() {
+    }
+
+    public static Profiler getProfiler() {
+        return profiler;
+    }
+
+    public static Phase getPhase(String name) {
+        /*
+         * Returns the phase with the given name, creating it the first time.
+         * Callers should hang on to the phase instead of looking it up every
+         * frame.
+         */
+        synchronized (profiler.phases) {
+            Phase ret = profiler.phases.get(name);
+            if (ret == null) {
+                ret = new Phase(name);
+                profiler.phases.put(name, ret);
+            }
+            return ret;
+        }
+    }
+
+    public ArrayList<Phase> getPhases() {
+        synchronized (phases) {
+            return new ArrayList<>(phases.values());
+        }
+    }
+
+    public ArrayList<Phase> getSlowest(String prefix, int count) {
+        /*
+         * Returns up to count phases whose names start with prefix, highest
+         * p99 first.
+         */
+        ArrayList<Phase> ret = new ArrayList<>();
+        ArrayList<Phase> tmp = getPhases();
+        ArrayList<Double> worst = new ArrayList<>();
+        for (int a = tmp.size() - 1; a >= 0; a--) {
+            if (tmp.get(a).getName().startsWith(prefix)) {
+                worst.add(0, tmp.get(a).getPercentileMillis(0.99));
+            } else {
+                tmp.remove(a);
+            }
+        }
+        while (ret.size() < count && !tmp.isEmpty()) {
+            int pick = 0;
+            for (int a = 1; a < tmp.size(); a++) {
+                if (worst.get(a) > worst.get(pick)) {
+                    pick = a;
+                }
+            }
+            ret.add(tmp.remove(pick));
+            worst.remove(pick);
+        }
+        return ret;
+    }
+
+    public static void register() {
+        /*
+         * Publishes the profiler to the platform MBean server.
+         */
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(MBEAN_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(profiler, name);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /*
+     * MBean
+     */
+    @Override
+    public String[] getPhaseNames() {
+        ArrayList<Phase> tmp = getPhases();
+        String[] ret = new String[tmp.size()];
+        for (int a = 0; a < tmp.size(); a++) {
+            ret[a] = tmp.get(a).getName();
+        }
+        return ret;
+    }
+
+    @Override
+    public String[] getSummary() {
+        ArrayList<Phase> tmp = getPhases();
+        String[] ret = new String[tmp.size()];
+        for (int a = 0; a < tmp.size(); a++) {
+            ret[a] = tmp.get(a).toString();
+        }
+        return ret;
+    }
+
+    @Override
+    public double getP50Millis(String phase) {
+        return getPercentileMillis(phase, 0.50);
+    }
+
+    @Override
+    public double getP99Millis(String phase) {
+        return getPercentileMillis(phase, 0.99);
+    }
+
+    private double getPercentileMillis(String phase, double p) {
+        Phase tmp;
+        synchronized (phases) {
+            tmp = phases.get(phase);
+        }
+        if (tmp != null) {
+            return tmp.getPercentileMillis(p);
+        } else {
+            return 0;
+        }
+    }
+
+    @Override
+    public void reset() {
+        ArrayList<Phase> tmp = getPhases();
+        for (int a = 0; a < tmp.size(); a++) {
+            tmp.get(a).reset();
+        }
+    }
+
+    public static class Phase {
+        /*
+         * Rolling window of samples for one phase.
+         */
+
+        private final String name;
+        private final long[] samples = new long[WINDOW];
+        private int next = 0;
+        private int count = 0;
+
+        public Phase(String name) {
+            this.name = name;
+        }
+
+        public synchronized void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % WINDOW;
+            if (count < WINDOW) {
+                count++;
+            }
+        }
+
+        public void end(long start) {
+            /*
+             * Records the time since start, which should come from
+             * System.nanoTime().
+             */
+            record(System.nanoTime() - start);
+        }
+
+        public double getPercentileMillis(double p) {
+            long[] tmp;
+            synchronized (this) {
+                tmp = Arrays.copyOf(samples, count);
+            }
+            if (tmp.length == 0) {
+                return 0;
+            }
+            Arrays.sort(tmp);
+            int at = (int) Math.ceil(p * tmp.length) - 1;
+            at = Math.max(0, Math.min(tmp.length - 1, at));
+            return tmp[at] / 1000000.0;
+        }
+
+        public synchronized int getCount() {
+            return count;
+        }
+
+        public synchronized void reset() {
+            next = 0;
+            count = 0;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s p50 %.3fms p99 %.3fms", name, getPercentileMillis(0.50), getPercentileMillis(0.99));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * JMX view of the profiler so frame timings can be watched from JConsole or
+ * VisualVM while the game runs.
+ */
+package engine;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public interface ProfilerMBean {
+
+    public String[] getPhaseNames();
+
+    public String[] getSummary();
+
+    public double getP50Millis(String phase);
+
+    public double getP99Millis(String phase);
+
+    public void reset();
+}
@@ -51,6 +51,12 @@ public class ResourceCache {
     private Parser planetCache = new Parser("PLANET.txt");
     private Parser missionCache = new Parser("MISSIONS.txt");
     private Parser nameCache = new Parser("NAMES.txt");
+    private Parser collisionCache = new Parser("COLLISION.txt");
+    //collision layers
+    private CollisionFilter collisionFilter = new CollisionFilter(collisionCache);
+    //decoded definitions
+    private Definitions definitions = new Definitions(itemCache, weaponCache, shipCache,
+            stationCache, processCache, explosionCache, factionCache);
 
     public ResourceCache() {
         try {
@@ -78,6 +84,19 @@ public class ResourceCache {
         return null;
     }
 
+    public CollisionMask getShipMask(String sprite, double theta) {
+        /*
+         * Returns the shared collision mask for a ship sprite at the given
+         * rotation. Masks are generated the first time they are asked for.
+         */
+        for (int a = 0; a < ships.size(); a++) {
+            if (ships.get(a).matches(sprite)) {
+                return ships.get(a).getMask(CollisionMask.toAngle(theta));
+            }
+        }
+        return null;
+    }
+
     public Image getStationSprite(String sprite) {
         for (int a = 0; a < getStations().size(); a++) {
             if (getStations().get(a).matches(sprite)) {
@@ -245,6 +264,18 @@ public class ResourceCache {
         return nameCache;
     }
 
+    public Parser getCollisionCache() {
+        return collisionCache;
+    }
+
+    public Definitions getDefinitions() {
+        return definitions;
+    }
+
+    public CollisionFilter getCollisionFilter() {
+        return collisionFilter;
+    }
+
     public ArrayList<Spriteling> getStations() {
         return stations;
     }
@@ -258,6 +289,8 @@ public class ResourceCache {
         private final String name;
         private final Image sprite;
         private final int hash;
+        //collision masks by rotation step
+        private final CollisionMask[] masks = new CollisionMask[CollisionMask.ANGLES];
 
         public Spriteling(String name, Image sprite) {
             //hash
@@ -282,5 +315,17 @@ public class ResourceCache {
         public int getHash() {
             return hash;
         }
+
+        public CollisionMask getMask(int angle) {
+            if (masks[angle] == null) {
+                int w = sprite.getWidth(null);
+                int h = sprite.getHeight(null);
+                if (w <= 0 || h <= 0) {
+                    return null;
+                }
+                masks[angle] = CollisionMask.build(sprite, w, h, angle);
+            }
+            return masks[angle];
+        }
     }
 }
@@ -30,7 +30,17 @@ public class SettingsManager implements Serializable {
     public int RENDER_SIZE = 2048;
     public boolean SOUND_EFFECTS = true;
     public boolean MUSIC = true;
+    public int FRAME_CAP = DEFAULT_FRAME_CAP; //0 is uncapped
+    public int TICK_RATE = DEFAULT_TICK_RATE;
+    public boolean PARALLEL_SYSTEMS = false; //update solar systems on all cores
+    public int OOS_TICK_RATE = DEFAULT_OOS_TICK_RATE; //0 runs every system at full fidelity
     //list of possible settings
     public final int[] RENDER_SIZE_OPTS = {512, 1024, 2048, 4096};
+    public final int[] FRAME_CAP_OPTS = {30, 60, 120, 144, 0};
+    public final int[] OOS_TICK_RATE_OPTS = {2, 4, 10, 0};
+    //defaults
+    public static final int DEFAULT_FRAME_CAP = 60;
+    public static final int DEFAULT_TICK_RATE = 60;
+    public static final int DEFAULT_OOS_TICK_RATE = 4;
 
 }
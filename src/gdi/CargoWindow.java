@@ -19,6 +19,7 @@
  */
 package gdi;
 
+import cargo.CargoBay;
 import cargo.Equipment;
 import cargo.Hardpoint;
 import cargo.Item;
@@ -32,7 +33,10 @@ import gdi.component.AstralList;
 import gdi.component.AstralWindow;
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
+import java.util.List;
 import lib.Faction;
+import universe.SolarSystem;
+import universe.Universe;
 
 public class CargoWindow extends AstralWindow {
 
@@ -100,7 +104,7 @@ public class CargoWindow extends AstralWindow {
                 logicalCargoList.add(ship.getHardpoints().get(a).getMounted());
             }
             //add cargo goods
-            ArrayList<Item> cargo = ship.getCargoBay();
+            List<Item> cargo = ship.getCargoBay().getItems();
             for (int a = 0; a < cargo.size(); a++) {
                 logicalCargoList.add(cargo.get(a));
             }
@@ -306,14 +310,14 @@ public class CargoWindow extends AstralWindow {
                 ship.fit(tmp);
             } else if (command.equals(CMD_STACK)) {
                 Item selected = (Item) cargoList.getItemAtIndex(cargoList.getIndex());
-                ArrayList<Item> cargoBay = ship.getCargoBay();
-                if (cargoBay.contains(selected)) {
+                CargoBay cargoBay = ship.getCargoBay();
+                if (cargoBay.holds(selected)) {
                     stackItem(cargoBay, selected);
                 }
             } else if (command.equals(CMD_SPLIT)) {
                 Item selected = (Item) cargoList.getItemAtIndex(cargoList.getIndex());
-                ArrayList<Item> cargoBay = ship.getCargoBay();
-                if (cargoBay.contains(selected)) {
+                CargoBay cargoBay = ship.getCargoBay();
+                if (cargoBay.holds(selected)) {
                     if (selected.getQuantity() > 1) {
                         Item tmp = new Item(selected.getName());
                         cargoBay.add(tmp);
@@ -321,13 +325,15 @@ public class CargoWindow extends AstralWindow {
                     }
                 }
             } else if (command.equals(CMD_SPLITALL)) {
-                ArrayList<Item> cargoBay = ship.getCargoBay();
+                CargoBay cargoBay = ship.getCargoBay();
                 Item selected = (Item) cargoList.getItemAtIndex(cargoList.getIndex());
                 if (ship.hasInCargo(selected)) {
                     if (selected.getQuantity() > 1) {
-                        for (int a = 0; a < cargoBay.size(); a++) {
-                            Item tmp = cargoBay.get(a);
-                            if (tmp.getName().equals(selected.getName())) {
+                        //copy, removing a stack changes the bay's list of stacks
+                        ArrayList<Item> stacks = new ArrayList<>(cargoBay.getItems());
+                        for (int a = 0; a < stacks.size(); a++) {
+                            Item tmp = stacks.get(a);
+                            if (tmp.isSameType(selected)) {
                                 if (tmp.getType().equals(selected.getType())) {
                                     if (tmp.getGroup().equals(selected.getGroup())) {
                                         cargoBay.remove(tmp);
@@ -412,7 +418,9 @@ public class CargoWindow extends AstralWindow {
                         ret.setY(sy);
                         //finalize
                         ret.setCurrentSystem(ship.getCurrentSystem());
-                        ship.getCurrentSystem().putEntityInSystem(ret);
+                        //placed by the simulation thread
+                        SolarSystem system = ship.getCurrentSystem();
+                        ship.getUniverse().defer(() -> system.putEntityInSystem(ret));
                         //remove item from cargo
                         selected.setQuantity(0);
                         ship.removeFromCargoBay(selected);
@@ -435,7 +443,7 @@ public class CargoWindow extends AstralWindow {
                         }
                         if (count >= 4) {
                             //standings hit
-                            Faction tmp = new Faction(ship.getCurrentSystem().getOwner());
+                            Faction tmp = Universe.getFactions().get(ship.getCurrentSystem().getOwner());
                             ship.getUniverse().getPlayerShip().getMyFaction().derivedModification(tmp, -8.0);
                             //transfer
                             ship.getCurrentSystem().setOwner("Player");
@@ -476,12 +484,12 @@ public class CargoWindow extends AstralWindow {
         }
     }
 
-    private void stackItem(ArrayList<Item> cargoBay, Item selected) {
-        if (cargoBay.contains(selected)) {
+    private void stackItem(CargoBay cargoBay, Item selected) {
+        if (cargoBay.holds(selected)) {
             for (int a = 0; a < cargoBay.size(); a++) {
                 Item tmp = cargoBay.get(a);
                 if (tmp != selected) {
-                    if (selected.getName().equals(tmp.getName())) {
+                    if (selected.isSameType(tmp)) {
                         if (selected.getGroup().equals(tmp.getGroup())) {
                             if (selected.getType().equals(tmp.getType())) {
                                 tmp.setQuantity(selected.getQuantity() + tmp.getQuantity());
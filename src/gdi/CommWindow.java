@@ -75,8 +75,11 @@ public class CommWindow extends AstralWindow {
         setShip(ship);
         if (ship != null) {
             messageLog.clearList();
-            //get ship's message que
-            ArrayList<AstralMessage> que = ship.getMessages();
+            //get a copy of the ship's message que, ships in any system can add to it
+            ArrayList<AstralMessage> que;
+            synchronized (ship.getMessages()) {
+                que = new ArrayList<>(ship.getMessages());
+            }
             //add each one
             for (int a = que.size() - 1; a >= 0; a--) {
                 messageLog.addToList(que.get(a));
@@ -194,6 +194,42 @@ public class MenuHomeWindow extends AstralWindow {
                             getUniverse().getSettings().RENDER_SIZE = getUniverse().getSettings().RENDER_SIZE_OPTS[pick];
                             //refresh
                             populateSettingList();
+                        } else if (set.equals("Frame Cap")) {
+                            int curr = Integer.parseInt(arr[1].trim());
+                            int pick = 0;
+                            //find current in array
+                            for (int a = 0; a < getUniverse().getSettings().FRAME_CAP_OPTS.length; a++) {
+                                if (curr == getUniverse().getSettings().FRAME_CAP_OPTS[a]) {
+                                    pick = a + 1;
+                                    break;
+                                }
+                            }
+                            //modulo
+                            pick %= getUniverse().getSettings().FRAME_CAP_OPTS.length;
+                            //store
+                            getUniverse().getSettings().FRAME_CAP = getUniverse().getSettings().FRAME_CAP_OPTS[pick];
+                            //refresh
+                            populateSettingList();
+                        } else if (set.equals("Out of Sector Tick Rate")) {
+                            int curr = Integer.parseInt(arr[1].trim());
+                            int pick = 0;
+                            //find current in array
+                            for (int a = 0; a < getUniverse().getSettings().OOS_TICK_RATE_OPTS.length; a++) {
+                                if (curr == getUniverse().getSettings().OOS_TICK_RATE_OPTS[a]) {
+                                    pick = a + 1;
+                                    break;
+                                }
+                            }
+                            //modulo
+                            pick %= getUniverse().getSettings().OOS_TICK_RATE_OPTS.length;
+                            //store
+                            getUniverse().getSettings().OOS_TICK_RATE = getUniverse().getSettings().OOS_TICK_RATE_OPTS[pick];
+                            //refresh
+                            populateSettingList();
+                        } else if (set.equals("Parallel Simulation")) {
+                            boolean curr = Boolean.parseBoolean(arr[1].trim());
+                            getUniverse().getSettings().PARALLEL_SYSTEMS = !curr;
+                            populateSettingList();
                         } else if (set.equals("Enable Sound Effects")) {
                             boolean curr = Boolean.parseBoolean(arr[1].trim());
                             getUniverse().getSettings().SOUND_EFFECTS = !curr;
@@ -272,6 +308,9 @@ public class MenuHomeWindow extends AstralWindow {
         settingList.addToList("Planet Detail: " + getUniverse().getSettings().RENDER_SIZE);
         settingList.addToList("Enable Sound Effects: " + getUniverse().getSettings().SOUND_EFFECTS);
         settingList.addToList("Enable Music: " + getUniverse().getSettings().MUSIC);
+        settingList.addToList("Frame Cap: " + getUniverse().getSettings().FRAME_CAP);
+        settingList.addToList("Parallel Simulation: " + getUniverse().getSettings().PARALLEL_SYSTEMS);
+        settingList.addToList("Out of Sector Tick Rate: " + getUniverse().getSettings().OOS_TICK_RATE);
         //settings
 
     }
@@ -38,6 +38,7 @@ import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
 import universe.SolarSystem;
 
 public class PropertyWindow extends AstralWindow {
@@ -197,8 +198,8 @@ public class PropertyWindow extends AstralWindow {
                         //we are pushing
                         long source = player.getCash();
                         if (source >= val) {
-                            selected.setCash(selected.getCash() + val);
-                            player.setCash(player.getCash() - val);
+                            selected.addCash(val);
+                            player.addCash(-val);
                         } else {
                             //insufficient credits
                         }
@@ -207,8 +208,8 @@ public class PropertyWindow extends AstralWindow {
                         long source = selected.getCash();
                         long tfr = -val;
                         if (source >= tfr) {
-                            player.setCash(player.getCash() + tfr);
-                            selected.setCash(selected.getCash() - tfr);
+                            player.addCash(tfr);
+                            selected.addCash(-tfr);
                         } else {
                             //insufficient credits
                         }
@@ -463,7 +464,7 @@ public class PropertyWindow extends AstralWindow {
                 infoList.addToList(" ");
                 infoList.addToList("--Cargo--");
                 infoList.addToList(" ");
-                ArrayList<Item> cargo = selected.getCargoBay();
+                List<Item> cargo = selected.getCargoBay().getItems();
                 for (int a = 0; a < cargo.size(); a++) {
                     infoList.addToList(cargo.get(a));
                 }
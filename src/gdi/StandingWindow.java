@@ -27,6 +27,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import lib.Binling;
 import lib.Faction;
+import universe.Universe;
 
 public class StandingWindow extends AstralWindow {
 
@@ -135,32 +136,34 @@ public class StandingWindow extends AstralWindow {
             infoList.addToList("You:          "
                     + ship.getUniverse().getPlayerShip().getStandingsToMe(simple.getString()));
             infoList.addToList(" ");
+            //one copy for all three lists
+            ArrayList<Binling> standings = selected.getStandings();
             infoList.addToList("--Likes--");
             infoList.addToList(" ");
-            for (int a = 0; a < selected.getStandings().size(); a++) {
-                if (selected.getStandings().get(a).getDouble() > 0) {
-                    if (!selected.getStandings().get(a).getString().equals(PLAYER_FACTION)) {
-                        infoList.addToList(selected.getStandings().get(a).getString());
+            for (int a = 0; a < standings.size(); a++) {
+                if (standings.get(a).getDouble() > 0) {
+                    if (!standings.get(a).getString().equals(PLAYER_FACTION)) {
+                        infoList.addToList(standings.get(a).getString());
                     }
                 }
             }
             infoList.addToList(" ");
             infoList.addToList("--Dislikes--");
             infoList.addToList(" ");
-            for (int a = 0; a < selected.getStandings().size(); a++) {
-                if (selected.getStandings().get(a).getDouble() < 0) {
-                    if (!selected.getStandings().get(a).getString().equals(PLAYER_FACTION)) {
-                        infoList.addToList(selected.getStandings().get(a).getString());
+            for (int a = 0; a < standings.size(); a++) {
+                if (standings.get(a).getDouble() < 0) {
+                    if (!standings.get(a).getString().equals(PLAYER_FACTION)) {
+                        infoList.addToList(standings.get(a).getString());
                     }
                 }
             }
             infoList.addToList(" ");
             infoList.addToList("--Will Attack--");
             infoList.addToList(" ");
-            for (int a = 0; a < selected.getStandings().size(); a++) {
-                if (selected.getStandings().get(a).getDouble() < HOSTILE_STANDING) {
-                    if (!selected.getStandings().get(a).getString().equals(PLAYER_FACTION)) {
-                        infoList.addToList(selected.getStandings().get(a).getString());
+            for (int a = 0; a < standings.size(); a++) {
+                if (standings.get(a).getDouble() < HOSTILE_STANDING) {
+                    if (!standings.get(a).getString().equals(PLAYER_FACTION)) {
+                        infoList.addToList(standings.get(a).getString());
                     }
                 }
             }
@@ -232,7 +235,7 @@ public class StandingWindow extends AstralWindow {
             if (tmp.getString().equals(PLAYER_FACTION)) {
                 viewing = ship.getUniverse().getPlayerShip().getMyFaction();
             } else {
-                viewing = new Faction(tmp.getString());
+                viewing = Universe.getFactions().get(tmp.getString());
             }
         }
     }
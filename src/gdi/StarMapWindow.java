@@ -17,8 +17,6 @@
  */
 package gdi;
 
-import celestial.Jumphole;
-import engine.Entity;
 import gdi.component.AstralComponent;
 import gdi.component.AstralLabel;
 import gdi.component.AstralWindow;
@@ -30,6 +28,7 @@ import java.awt.event.KeyEvent;
 import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.List;
 import universe.SolarSystem;
 import universe.Universe;
 
@@ -134,25 +133,16 @@ public class StarMapWindow extends AstralWindow {
                     double rx = sx + ox;
                     double ry = sy + oy;
                     {
-                        //search system for jump holes
-                        ArrayList<Entity> cel = systems.get(a).getJumpholeList();
-                        for (int v = 0; v < cel.size(); v++) {
-                            if (cel.get(v) instanceof Jumphole) {
-                                Jumphole tmp = (Jumphole) cel.get(v);
-                                try {
-                                    //get exit system
-                                    SolarSystem exit = tmp.getOutGate().getCurrentSystem();
-                                    //figure out where it is on our map
-                                    double tx = (exit.getX() * zoom) + ox;
-                                    double ty = (exit.getY() * zoom) + oy;
-                                    //draw a line
-                                    gfx.setColor(Color.LIGHT_GRAY);
-                                    gfx.drawLine((int) rx, (int) ry, (int) tx, (int) ty);
-                                } catch (Exception e) {
-                                    System.out.println("Forcing " + tmp.getName() + " to link with partner");
-                                    tmp.createLink(tmp.getOut());
-                                }
-                            }
+                        //draw the jump hole links out of this system
+                        List<SolarSystem> exits = universe.getStarMap().getLinks(systems.get(a));
+                        for (int v = 0; v < exits.size(); v++) {
+                            SolarSystem exit = exits.get(v);
+                            //figure out where it is on our map
+                            double tx = (exit.getX() * zoom) + ox;
+                            double ty = (exit.getY() * zoom) + oy;
+                            //draw a line
+                            gfx.setColor(Color.LIGHT_GRAY);
+                            gfx.drawLine((int) rx, (int) ry, (int) tx, (int) ty);
                         }
                     }
                     //map
@@ -22,12 +22,14 @@ package gdi;
 import cargo.Item;
 import celestial.Ship.Ship;
 import celestial.Ship.Station;
+import celestial.Ship.TradeReceipt;
 import gdi.component.AstralInput;
 import gdi.component.AstralLabel;
 import gdi.component.AstralList;
 import gdi.component.AstralWindow;
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
+import java.util.List;
 import lib.Parser;
 import lib.Parser.Term;
 import universe.Universe;
@@ -49,6 +51,7 @@ public class TradeWindow extends AstralWindow {
     Parser weaponParser = Universe.getCache().getWeaponCache();
     //logical
     AstralList lastFocus = cargoList;
+    TradeReceipt lastTrade = null;
     //behavior
 
     private void appendShipDetails(Item selected) {
@@ -243,7 +246,7 @@ public class TradeWindow extends AstralWindow {
             {
                 ArrayList<Item> logicalCargoList = new ArrayList<>();
                 //add cargo goods
-                ArrayList<Item> cargo = ship.getCargoBay();
+                List<Item> cargo = ship.getCargoBay().getItems();
                 for (int a = 0; a < cargo.size(); a++) {
                     logicalCargoList.add(cargo.get(a));
                 }
@@ -272,6 +275,15 @@ public class TradeWindow extends AstralWindow {
                     propertyList.addToList("Volume Used:  " + ship.getBayUsed());
                     propertyList.addToList("Percent Used: " + ship.getBayUsed() / ship.getCargo() * 100.0 + "%");
                     propertyList.addToList(" ");
+                    if (lastTrade != null) {
+                        propertyList.addToList("--LAST TRADE--");
+                        propertyList.addToList(" ");
+                        propertyList.addToList("Ware:         " + lastTrade.getWare());
+                        propertyList.addToList("Quantity:     " + lastTrade.getQuantity() + " of " + lastTrade.getRequested());
+                        propertyList.addToList("Unit Price:   " + lastTrade.getPrice());
+                        propertyList.addToList("Total:        " + lastTrade.getTotal());
+                        propertyList.addToList(" ");
+                    }
                     propertyList.addToList("--BASIC--");
                     propertyList.addToList(" ");
                     propertyList.addToList("Name:         " + selected.getName());
@@ -296,6 +308,7 @@ public class TradeWindow extends AstralWindow {
             //you can't trade when you're not docked
             setVisible(false);
             docked = null;
+            lastTrade = null;
         }
     }
 
@@ -311,7 +324,7 @@ public class TradeWindow extends AstralWindow {
                         //perform trade
                         int index = lastFocus.getIndex();
                         Item selected = (Item) lastFocus.getItemAtIndex(index);
-                        docked.buy(ship, selected, val);
+                        lastTrade = docked.buy(ship, selected, val);
                     }
                     //hide it
                     input.setVisible(false);
@@ -332,7 +345,7 @@ public class TradeWindow extends AstralWindow {
                         //perform trade
                         int index = lastFocus.getIndex();
                         Item selected = (Item) lastFocus.getItemAtIndex(index);
-                        docked.sell(ship, selected, val);
+                        lastTrade = docked.sell(ship, selected, val);
                     }
                     //hide it
                     input.setVisible(false);
@@ -44,33 +44,40 @@ public class AstralIO implements Serializable {
     //saved game and setting locations
     public static final String SAVE_GAME_DIR = STORE_DIR + "saves/";
     public static final String CONFIG_FILE_LOC = STORE_DIR + "config";
+    //times to try writing a save before giving up
+    private static final int SAVE_ATTEMPTS = 3;
 
     /*
      * Text
      */
     public static String readFile(String target, boolean local) {
-        String ret = "";
+        StringBuilder ret = new StringBuilder();
         //Attemps to load an external file (local = false) or a file from within the archive
+        try (BufferedReader in = openFile(target, local)) {
+            String str;
+            while ((str = in.readLine()) != null) {
+                ret.append(str).append('\n');
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return ret.toString();
+    }
+
+    public static BufferedReader openFile(String target, boolean local) throws IOException {
+        /*
+         * Opens an external file (local = false) or a file from within the
+         * archive for reading line by line.
+         */
         if (local) {
-            try {
-                ret = readTextFromJar(target);
-            } catch (Exception e) {
-                e.printStackTrace();
+            InputStream is = AstralIO.class.getResourceAsStream(RESOURCE_DIR + target);
+            if (is == null) {
+                throw new IOException("Resource " + RESOURCE_DIR + target + " not found");
             }
+            return new BufferedReader(new InputStreamReader(is));
         } else {
-            try {
-                try (BufferedReader in = new BufferedReader(new FileReader(target))) {
-                    String str;
-                    while ((str = in.readLine()) != null) {
-                        ret += str + "\n";
-                    }
-                }
-
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+            return new BufferedReader(new FileReader(target));
         }
-        return ret;
     }
 
     public static void writeFile(String target, String text) {
@@ -85,32 +92,7 @@ public class AstralIO implements Serializable {
     }
 
     public static String readTextFromJar(String target) {
-        InputStream is = null;
-        BufferedReader br = null;
-        String line;
-        String ret = "";
-
-        try {
-            is = AstralIO.class.getResourceAsStream(RESOURCE_DIR + target);
-            br = new BufferedReader(new InputStreamReader(is));
-            while (null != (line = br.readLine())) {
-                ret = ret + line + "\n";
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        } finally {
-            try {
-                if (br != null) {
-                    br.close();
-                }
-                if (is != null) {
-                    is.close();
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        }
-        return ret;
+        return readFile(target, true);
     }
 
     /*
@@ -148,17 +130,24 @@ public class AstralIO implements Serializable {
     }
 
     public void saveGame(Universe universe, String gameName) throws Exception {
-        try {
-            String home = System.getProperty("user.home") + SAVE_GAME_DIR;
+        /*
+         * The engine is stopped before saving, and other threads queue their
+         * changes for the simulation thread, so nothing should change the
+         * universe while it is written. Try a few times in case it does.
+         */
+        String home = System.getProperty("user.home") + SAVE_GAME_DIR;
+        for (int a = 0; a < SAVE_ATTEMPTS; a++) {
             //generate serializable universe
             Everything everything = new Everything(universe);
             //serialize universe
-            FileOutputStream fos = new FileOutputStream(home + gameName);
-            ObjectOutputStream oos = new ObjectOutputStream(fos);
-            oos.writeObject(everything);
-        } catch (ConcurrentModificationException e) {
-            saveGame(universe, gameName);
+            try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(home + gameName))) {
+                oos.writeObject(everything);
+                return;
+            } catch (ConcurrentModificationException e) {
+                System.out.println("Universe changed while saving " + gameName + ", trying again.");
+            }
         }
+        throw new IOException("Unable to save " + gameName);
     }
 
     public class Everything implements Serializable {
@@ -21,13 +21,18 @@
  *  - Standings are symmetrical.
  * Therefore it is ok to ask the enemy how much they like you, because you
  * WILL get a brutally honest answer.
+ *
+ * Standings are kept in a row indexed by faction id, see Definitions.
+ *
+ * Most factions are the shared ones from the FactionRegistry. A copy shares
+ * everything with its original until its standings are changed.
  */
 package lib;
 
+import engine.Definitions;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
-import lib.Parser.Param;
 import lib.Parser.Term;
 import universe.Universe;
 
@@ -40,28 +45,94 @@ public class Faction implements Serializable {
     public static final int PERMA_RED = -10;
     public static final int PERMA_GREEN = 10;
     private final String name;
+    //id from the factions file, -1 if this faction isn't in it
+    private final int id;
     private String description = "No Information Found";
     //sov and distribution
     private boolean isEmpire = false;
     private double spread = 0;
     protected ArrayList<String> hosts = new ArrayList<>();
-    private final ArrayList<Binling> standings = new ArrayList<>();
+    //how this faction feels about each faction, by id
+    private double[] standings;
+    //true until standings is this faction's own array
+    private boolean borrowedStandings;
+    //true for the registry's instance
+    private boolean shared = false;
     //contraband
-    private final ArrayList<String> contraband = new ArrayList<>();
+    private final ArrayList<String> contraband;
     //comm hints
-    private final ArrayList<String> contrabandNotifications = new ArrayList<>();
-    private final ArrayList<String> hateNotifications = new ArrayList<>();
-    private final ArrayList<String> neutralNotifications = new ArrayList<>();
-    private final ArrayList<String> friendlyNotifications = new ArrayList<>();
-    private final ArrayList<String> rumorList = new ArrayList<>();
-    private final ArrayList<String> campaignList = new ArrayList<>();
-    
+    private final ArrayList<String> contrabandNotifications;
+    private final ArrayList<String> hateNotifications;
+    private final ArrayList<String> neutralNotifications;
+    private final ArrayList<String> friendlyNotifications;
+    private final ArrayList<String> rumorList;
+    private final ArrayList<String> campaignList;
+
     public Faction(String name) {
         this.name = name;
+        Definitions defs = Universe.getCache().getDefinitions();
+        id = defs.getFactionId(name);
+        if (id != -1) {
+            //the starting row is only copied if this faction changes it
+            standings = defs.getStartingStandings(id);
+            borrowedStandings = true;
+        } else {
+            standings = new double[defs.getFactionCount()];
+            borrowedStandings = false;
+        }
+        contraband = new ArrayList<>();
+        contrabandNotifications = new ArrayList<>();
+        hateNotifications = new ArrayList<>();
+        neutralNotifications = new ArrayList<>();
+        friendlyNotifications = new ArrayList<>();
+        rumorList = new ArrayList<>();
+        campaignList = new ArrayList<>();
         init();
         initComms();
     }
 
+    protected Faction(Faction base) {
+        /*
+         * Shares everything with base, including the standings until they
+         * are changed.
+         */
+        name = base.name;
+        id = base.id;
+        description = base.description;
+        isEmpire = base.isEmpire;
+        spread = base.spread;
+        hosts = base.hosts;
+        standings = base.standings;
+        borrowedStandings = true;
+        contraband = base.contraband;
+        contrabandNotifications = base.contrabandNotifications;
+        hateNotifications = base.hateNotifications;
+        neutralNotifications = base.neutralNotifications;
+        friendlyNotifications = base.friendlyNotifications;
+        rumorList = base.rumorList;
+        campaignList = base.campaignList;
+    }
+
+    public Faction copy() {
+        return new Faction(this);
+    }
+
+    protected void setShared(boolean shared) {
+        this.shared = shared;
+    }
+
+    public boolean isShared() {
+        return shared;
+    }
+
+    private Object readResolve() {
+        //saved references to a shared faction go back to the registry's
+        if (shared) {
+            return Universe.getFactions().get(name);
+        }
+        return this;
+    }
+
     private void initComms() {
         Parser tmp = Universe.getCache().getFactionCache();
         ArrayList<Term> comms = tmp.getTermsOfType("Comm");
@@ -163,20 +234,6 @@ public class Faction implements Serializable {
         for (int a = 0; a < factions.size(); a++) {
             if (factions.get(a).getValue("name").equals(name)) {
                 Term tmp2 = factions.get(a);
-                {
-                    ArrayList<Param> vals = tmp2.getParams();
-                    for (int q = 0; q < vals.size(); q++) {
-                        if (!vals.get(q).getName().contains(("var_"))) {
-                            try {
-                                String fac = vals.get(q).getName();
-                                int rel = Integer.parseInt(vals.get(q).getValue());
-                                standings.add(new Binling(fac, rel));
-                            } catch (Exception e) {
-                                //
-                            }
-                        }
-                    }
-                }
                 try {
                     isEmpire = Boolean.parseBoolean(tmp2.getValue("var_isEmpire"));
                     spread = Double.parseDouble((tmp2.getValue("var_worldPercent")));
@@ -227,27 +284,26 @@ public class Faction implements Serializable {
          * range for dynamic standings.
          * 
          */
-        double standing = getStanding(mod.getName());
+        double standing = getStanding(mod.getId());
         //perform standing adjustment
         if (standing > PERMA_RED && standing < PERMA_GREEN) {
             //linear adjustment on the faction directly affected
             double newStanding = standing + delta;
             if (newStanding > PERMA_RED && newStanding < PERMA_GREEN) {
-                setStanding(mod.getName(), newStanding);
+                setStanding(mod.getId(), newStanding);
             } else {
                 //we don't want to push the player into a singularity
             }
             //calculate delta prime for each faction
-            ArrayList<Binling> list = mod.getStandings();
-            for (int a = 0; a < list.size(); a++) {
-                String tmpName = list.get(a).getString();
-                double tmpStanding = list.get(a).getDouble();
+            double[] row = mod.standings;
+            for (int a = 0; a < row.length; a++) {
+                double tmpStanding = row[a];
                 //make sure they aren't neutral
                 if (tmpStanding != 0) {
                     //make sure it's not this faction
-                    if (!tmpName.equals(name) && !tmpName.equals(mod.getName())) {
+                    if (a != id && a != mod.getId()) {
                         //make sure they aren't -10 or +10 to this faction
-                        double lS = getStanding(tmpName);
+                        double lS = standings[a];
                         if (lS > PERMA_RED && lS < PERMA_GREEN) {
                             //get their relationship as a percentage
                             double per = tmpStanding / 10.0;
@@ -261,7 +317,7 @@ public class Faction implements Serializable {
                             newStanding = lS + deltaPrime;
                             //modify standings
                             if (newStanding > PERMA_RED && newStanding < PERMA_GREEN) {
-                                setStanding(tmpName, lS + deltaPrime);
+                                setStanding(a, lS + deltaPrime);
                             }
                         }
                     }
@@ -275,34 +331,35 @@ public class Faction implements Serializable {
     }
 
     public double getStanding(String faction) {
-        if (standings != null) {
-            for (int a = 0; a < standings.size(); a++) {
-                Binling test = standings.get(a);
-                if (test.getString().hashCode() == faction.hashCode()) {
-                    return test.getDouble();
-                }
-            }
-        } else {
-            return 0;
+        return getStanding(Universe.getCache().getDefinitions().getFactionId(faction));
+    }
+
+    public double getStanding(int faction) {
+        if (faction >= 0 && faction < standings.length) {
+            return standings[faction];
         }
         return 0;
     }
 
     public void setStanding(String faction, double value) {
-        if (!faction.equals(name)) {
+        setStanding(Universe.getCache().getDefinitions().getFactionId(faction), value);
+    }
+
+    public void setStanding(int faction, double value) {
+        if (faction >= 0 && faction < standings.length && faction != id) {
             if (value < PERMA_RED) {
                 value = PERMA_RED;
             } else if (value > PERMA_GREEN) {
                 value = PERMA_GREEN;
             }
-            if (standings != null) {
-                for (int a = 0; a < standings.size(); a++) {
-                    Binling test = standings.get(a);
-                    if (test.getString().equals(faction)) {
-                        test.setDouble(value);
-                    }
-                }
+            if (shared) {
+                System.out.println("Warning: changing standings on the shared " + name + " faction");
             }
+            if (borrowedStandings) {
+                standings = standings.clone();
+                borrowedStandings = false;
+            }
+            standings[faction] = value;
         }
     }
 
@@ -318,8 +375,20 @@ public class Faction implements Serializable {
         return spread;
     }
 
+    public int getId() {
+        return id;
+    }
+
     public ArrayList<Binling> getStandings() {
-        return standings;
+        /*
+         * A copy of the standings paired with faction names, for display.
+         */
+        Definitions defs = Universe.getCache().getDefinitions();
+        ArrayList<Binling> ret = new ArrayList<>();
+        for (int a = 0; a < standings.length; a++) {
+            ret.add(new Binling(defs.getFactionName(a), standings[a]));
+        }
+        return ret;
     }
 
     public String getDescription() {
@@ -0,0 +1,47 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Hands out one shared Faction per name so ships, stations and sov changes
+ * don't each read the factions file again. The shared factions must not be
+ * written to, anything that changes its standings (the player) should work
+ * on a copy, which only duplicates the standings when they are first changed.
+ */
+package lib;
+
+import java.util.HashMap;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class FactionRegistry {
+
+    private final HashMap<String, Faction> factions = new HashMap<>();
+
+    public synchronized Faction get(String name) {
+        Faction ret = factions.get(name);
+        if (ret == null) {
+            ret = new Faction(name);
+            ret.setShared(true);
+            factions.put(name, ret);
+        }
+        return ret;
+    }
+
+    public Faction getCopy(String name) {
+        return get(name).copy();
+    }
+}
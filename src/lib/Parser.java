@@ -21,8 +21,14 @@
  */
 package lib;
 
+import java.io.BufferedReader;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 /**
  *
@@ -30,80 +36,87 @@ import java.util.ArrayList;
  */
 public class Parser implements Serializable {
 
-    String text;
-    private final ArrayList<Term> terms = new ArrayList<>();
+    private final ReadOnlyList<Term> terms = new ReadOnlyList<>();
+    //terms grouped by type, in file order
+    private final HashMap<String, ReadOnlyList<Term>> types = new HashMap<>();
+    private final ReadOnlyList<Term> none = new ReadOnlyList<>();
 
     public Parser(String file) {
-        //read the text
-        text = AstralIO.readFile(file, true);
-        //call the parser
-        parse();
+        //read and parse the file in one pass
+        try (BufferedReader in = AstralIO.openFile(file, true)) {
+            parse(in);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
     }
 
     /*
      * Parser
      */
-    private void parse() {
+    private void parse(BufferedReader in) throws Exception {
         /*
-         * Parses the loaded text into Terms.
+         * Parses lines into Terms as they are read. A line like [Name] opens
+         * a term and [/Name] closes it, everything between is a param.
          */
-        //split into seperate lines
-        String[] arr = text.split("\n");
-        //loop through each element
-        boolean grabbing = false;
-        String tmp = "";
-        for (int a = 0; a < arr.length; a++) {
-            /*
-             * This segment is kind of nasty looking but actually simple.
-             */
-            char[] line = arr[a].toCharArray();
-            if (line.length >= 3) {
-                if (line[0] == '[' && line[line.length - 1] == ']') {
-                    if (line[1] == '/') {
-                        grabbing = false;
-                        try {
-                            terms.add(extractTerm(tmp));
-                            tmp = "";
-                        } catch (Exception e) {
-                        }
-                    } else {
-                        grabbing = true;
+        Term term = null;
+        //line number within the current term, the opening line is 0
+        int line = 0;
+        //blank lines are held back until something follows them, blank
+        //lines right before the closing line don't count as params
+        int blanks = 0;
+        String str;
+        while ((str = in.readLine()) != null) {
+            int len = str.length();
+            if (len >= 3 && str.charAt(0) == '[' && str.charAt(len - 1) == ']') {
+                if (str.charAt(1) == '/') {
+                    if (term != null) {
+                        addTerm(term);
                     }
+                    term = null;
+                    continue;
+                } else if (term == null) {
+                    term = new Term(str.replace("[", "").replace("]", ""));
+                    line = 0;
+                    blanks = 0;
+                    continue;
                 }
             }
-            if (grabbing) {
-                tmp += arr[a] + "\n";
+            if (term != null) {
+                line++;
+                if (len == 0) {
+                    blanks++;
+                } else {
+                    for (int a = line - blanks; a < line; a++) {
+                        term.addParam(new Param("unknown" + a, ""));
+                    }
+                    blanks = 0;
+                    term.addParam(extractParam(str, line));
+                }
             }
         }
     }
 
-    private Term extractTerm(String raw) throws Exception {
+    private Param extractParam(String raw, int line) {
         /*
-         * Assuming that raw is a properly isolated term, this method will
-         * generate a Term object.
+         * Turns a name=value line into a Param. Lines without a value are
+         * kept under a made up name so lists of plain values still work.
          */
-        String[] arr = raw.split("\n");
-        Term term = null;
-        {
-            //the first line should contain the term's name
-            String name = arr[0].replace("[", "").replace("]", "");
-            term = new Term(name);
-            //the other lines are terms
-            for (int a = 1; a < arr.length; a++) {
-                try {
-                    String[] tmp = arr[a].split("=");
-                    if (tmp.length > 1) {
-                        Param param = new Param(tmp[0], tmp[1]);
-                        term.addParam(param);
-                    } else {
-                        Param param = new Param("unknown" + a, tmp[0]);
-                        term.addParam(param);
-                    }
-                } catch (Exception e) {
-                }
-            }
+        String[] tmp = raw.split("=");
+        if (tmp.length > 1) {
+            return new Param(tmp[0], tmp[1]);
+        } else {
+            return new Param("unknown" + line, tmp[0]);
         }
-        return term;
+    }
+
+    private void addTerm(Term term) {
+        terms.append(term);
+        ReadOnlyList<Term> list = types.get(term.getName());
+        if (list == null) {
+            list = new ReadOnlyList<>();
+            types.put(term.getName(), list);
+        }
+        list.append(term);
     }
 
     /*
@@ -115,15 +128,14 @@ public class Parser implements Serializable {
 
     public ArrayList<Term> getTermsOfType(String type) {
         /*
-         * Returns all the terms of a specific type
+         * Returns all the terms of a specific type. The list is shared, so
+         * it can't be changed.
          */
-        ArrayList<Term> tmp = new ArrayList<>();
-        for (int a = 0; a < terms.size(); a++) {
-            if (terms.get(a).getName().equals(type)) {
-                tmp.add(terms.get(a));
-            }
+        ReadOnlyList<Term> tmp = types.get(type);
+        if (tmp != null) {
+            return tmp;
         }
-        return tmp;
+        return none;
     }
 
     /*
@@ -134,7 +146,9 @@ public class Parser implements Serializable {
          * Stores a term, which is a collection of params with a name.
          */
 
-        private final ArrayList<Param> params = new ArrayList<>();
+        private final ReadOnlyList<Param> params = new ReadOnlyList<>();
+        //first param with each name, for lookups
+        private final HashMap<String, Param> values = new HashMap<>();
         private final String name;
 
         public Term(String name) {
@@ -145,12 +159,12 @@ public class Parser implements Serializable {
          * Access and limited mutation
          */
         public void addParam(String name, String value) {
-            Param tmp = new Param(name, value);
-            params.add(tmp);
+            addParam(new Param(name, value));
         }
 
         public void addParam(Param param) {
-            params.add(param);
+            params.append(param);
+            values.putIfAbsent(param.getName(), param);
         }
 
         public ArrayList<Param> getParams() {
@@ -173,13 +187,9 @@ public class Parser implements Serializable {
          * Search function
          */
         public String getValue(String paramName) {
-            if (params != null && paramName != null) {
-                for (int a = 0; a < params.size(); a++) {
-                    if (params.get(a).getName().equals(paramName)) {
-                        return params.get(a).getValue();
-                    }
-                }
-                return null;
+            Param tmp = values.get(paramName);
+            if (tmp != null) {
+                return tmp.getValue();
             } else {
                 return null;
             }
@@ -237,4 +247,80 @@ public class Parser implements Serializable {
             return (name + "=" + value);
         }
     }
+
+    private static class ReadOnlyList<T> extends ArrayList<T> {
+        /*
+         * A list the parser can fill but nobody else can change. Terms and
+         * params are shared by everything that reads them.
+         */
+
+        private void append(T t) {
+            super.add(t);
+        }
+
+        @Override
+        public boolean add(T e) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void add(int index, T element) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends T> c) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean addAll(int index, Collection<? extends T> c) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public T remove(int index) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean removeAll(Collection<?> c) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean retainAll(Collection<?> c) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean removeIf(Predicate<? super T> filter) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void replaceAll(UnaryOperator<T> operator) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void sort(Comparator<? super T> c) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public T set(int index, T element) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void clear() {
+            throw new UnsupportedOperationException();
+        }
+    }
 }
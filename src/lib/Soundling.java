@@ -20,6 +20,7 @@ package lib;
 
 import java.applet.Applet;
 import java.applet.AudioClip;
+import universe.Universe;
 
 /**
  *
@@ -36,7 +37,12 @@ public class Soundling {
         this.name = name;
         this.loop = loop;
         this.target = target;
-        sound = new Sound(target);
+        if (Universe.isHeadless()) {
+            //no audio device to play on
+            sound = null;
+        } else {
+            sound = new Sound(target);
+        }
     }
 
     public String getName() {
@@ -44,14 +50,16 @@ public class Soundling {
     }
 
     public boolean isPlaying() {
-        return sound.playing;
+        return sound != null && sound.playing;
     }
 
     /*
      * controls
      */
     public void play() {
-        if (!isLoop()) {
+        if (sound == null) {
+            //headless
+        } else if (!isLoop()) {
             sound.play();
         } else {
             sound.loop();
@@ -59,7 +67,9 @@ public class Soundling {
     }
 
     public void stop() {
-        sound.stop();
+        if (sound != null) {
+            sound.stop();
+        }
     }
 
     public boolean isLoop() {
@@ -50,7 +50,8 @@ public class SuperFaction extends Faction {
      */
 
     public SuperFaction(Universe universe, String name) {
-        super(name);
+        //the basic faction info comes from the shared faction
+        super(Universe.getFactions().get(name));
         this.universe = universe;
         if (universe != null) {
             initStations();
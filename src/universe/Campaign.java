@@ -19,6 +19,7 @@
  */
 package universe;
 
+import celestial.Asteroid;
 import celestial.Celestial;
 import celestial.Ship.Ship;
 import celestial.Ship.Ship.Behavior;
@@ -172,31 +173,24 @@ public class Campaign implements Serializable {
                     String[] arr = param2.split(",");
                     String command = arr[0];
                     //find ships in this group
-                    boolean hit = false;
-                    for (int a = 0; a < universe.getSystems().size(); a++) {
-                        if (hit) {
-                            break;
+                    ArrayList<Ship> members = universe.getRegistry().getGroup(group);
+                    for (int b = 0; b < members.size(); b++) {
+                        Ship tmp = members.get(b);
+                        if (tmp instanceof Station) {
+                            //only ships take part
+                            continue;
                         }
-                        ArrayList<Entity> ships = universe.getSystems().get(a).getShipList();
-                        for (int b = 0; b < ships.size(); b++) {
-                            Ship tmp = (Ship) ships.get(b);
-                            if (tmp.getGroup().equals(group)) {
-                                if (command.equals("DOCKED")) {
-                                    if (checkGroupDockAdvance(arr, tmp)) {
-                                        hit = true;
-                                        break;
-                                    }
-                                } else if (command.equals("GOTO")) {
-                                    if (checkGroupGotoAdvance(arr, tmp)) {
-                                        hit = true;
-                                        break;
-                                    }
-                                } else if (command.equals("ENTERSYSTEM")) {
-                                    if (checkGroupEnterSystemAdvance(arr, tmp)) {
-                                        hit = true;
-                                        break;
-                                    }
-                                }
+                        if (command.equals("DOCKED")) {
+                            if (checkGroupDockAdvance(arr, tmp)) {
+                                break;
+                            }
+                        } else if (command.equals("GOTO")) {
+                            if (checkGroupGotoAdvance(arr, tmp)) {
+                                break;
+                            }
+                        } else if (command.equals("ENTERSYSTEM")) {
+                            if (checkGroupEnterSystemAdvance(arr, tmp)) {
+                                break;
                             }
                         }
                     }
@@ -255,28 +249,7 @@ public class Campaign implements Serializable {
         //see if we are in the right system to check
         if (tmp.getCurrentSystem().getName().equals(lSys)) {
             //see if we are near this celestial
-            ArrayList<Entity> celestials = tmp.getCurrentSystem().getCelestialList();
-            Celestial pick = null;
-            for (int a = 0; a < celestials.size(); a++) {
-                if (celestials.get(a) instanceof Ship) {
-                    //make sure it isn't player owned. We don't want the player's named ships to confuse the script.
-                    Ship test = (Ship) celestials.get(a);
-                    if (test.getFaction().equals(universe.getPlayerShip().getFaction())) {
-                        //don't include this object
-                    } else {
-                        if (test.getName().equals(lEnt)) {
-                            pick = test;
-                            break;
-                        }
-                    }
-                } else if (celestials.get(a) instanceof Celestial) {
-                    Celestial test = (Celestial) celestials.get(a);
-                    if (test.getName().equals(lEnt)) {
-                        pick = test;
-                        break;
-                    }
-                }
-            }
+            Celestial pick = findGotoTarget(tmp.getCurrentSystem(), lEnt);
             //test distance
             if (pick != null) {
                 double d = tmp.distanceTo(pick);
@@ -294,6 +267,29 @@ public class Campaign implements Serializable {
         return false;
     }
     
+    private Celestial findGotoTarget(SolarSystem system, String name) {
+        /*
+         * Finds the celestial a GOTO check measures the distance to. Make sure
+         * it isn't player owned. We don't want the player's named ships to
+         * confuse the script.
+         */
+        ArrayList<Celestial> named = universe.getRegistry().getCelestials(name);
+        for (int a = 0; a < named.size(); a++) {
+            Celestial test = named.get(a);
+            if (test.getCurrentSystem() != system || test instanceof Asteroid) {
+                continue;
+            }
+            if (test instanceof Ship) {
+                if (((Ship) test).getFaction().equals(universe.getPlayerShip().getFaction())) {
+                    //don't include this object
+                    continue;
+                }
+            }
+            return test;
+        }
+        return null;
+    }
+    
     private boolean checkGroupDockAdvance(String[] arr, Ship tmp) {
         String sys = arr[1];
         String stn = arr[2];
@@ -321,28 +317,7 @@ public class Campaign implements Serializable {
         Ship player = universe.getPlayerShip();
         if (player.getCurrentSystem().getName().equals(lSys)) {
             //see if we are near this celestial
-            ArrayList<Entity> celestials = player.getCurrentSystem().getCelestialList();
-            Celestial pick = null;
-            for (int a = 0; a < celestials.size(); a++) {
-                if (celestials.get(a) instanceof Ship) {
-                    //make sure it isn't player owned. We don't want the player's named ships to confuse the script.
-                    Ship test = (Ship) celestials.get(a);
-                    if (test.getFaction().equals(player.getFaction())) {
-                        //don't include this object
-                    } else {
-                        if (test.getName().equals(lEnt)) {
-                            pick = test;
-                            break;
-                        }
-                    }
-                } else if (celestials.get(a) instanceof Celestial) {
-                    Celestial test = (Celestial) celestials.get(a);
-                    if (test.getName().equals(lEnt)) {
-                        pick = test;
-                        break;
-                    }
-                }
-            }
+            Celestial pick = findGotoTarget(player.getCurrentSystem(), lEnt);
             //test distance
             if (pick != null) {
                 double d = player.distanceTo(pick);
@@ -361,30 +336,8 @@ public class Campaign implements Serializable {
     private void checkNoneAliveAdvance(String parameter) {
         //triggered when no ship/station of a certain group is left alive
         String group = parameter;
-        boolean foundOne = false;
-        //iterate through all entities to check groups
-        for (int a = 0; a < universe.getSystems().size(); a++) {
-            if (!foundOne) {
-                ArrayList<Entity> ships = universe.getSystems().get(a).getShipList();
-                ArrayList<Entity> stations = universe.getSystems().get(a).getStationList();
-                for (int b = 0; b < ships.size(); b++) {
-                    Ship tmp = (Ship) ships.get(b);
-                    if (tmp.getGroup().equals(group)) {
-                        foundOne = true;
-                        break;
-                    }
-                }
-                for (int b = 0; b < stations.size(); b++) {
-                    Ship tmp = (Ship) stations.get(b);
-                    if (tmp.getGroup().equals(group)) {
-                        foundOne = true;
-                        break;
-                    }
-                }
-            } else {
-                //no point
-            }
-        }
+        //ships and stations leave their group when they are removed from space
+        boolean foundOne = universe.getRegistry().hasGroup(group);
         //check to see if we found one
         if (!foundOne) {
             //trigger reached
@@ -475,31 +428,24 @@ public class Campaign implements Serializable {
                         String[] arr = param2.split(",");
                         String command = arr[0];
                         //find ships in this group
-                        boolean hit = false;
-                        for (int a = 0; a < universe.getSystems().size(); a++) {
-                            if (hit) {
-                                break;
+                        ArrayList<Ship> members = universe.getRegistry().getGroup(group);
+                        for (int b = 0; b < members.size(); b++) {
+                            Ship tmp = members.get(b);
+                            if (tmp instanceof Station) {
+                                //only ships take part
+                                continue;
                             }
-                            ArrayList<Entity> ships = universe.getSystems().get(a).getShipList();
-                            for (int b = 0; b < ships.size(); b++) {
-                                Ship tmp = (Ship) ships.get(b);
-                                if (tmp.getGroup().equals(group)) {
-                                    if (command.equals("DOCKED")) {
-                                        if (checkGroupDockFail(arr, tmp)) {
-                                            hit = true;
-                                            break;
-                                        }
-                                    } else if (command.equals("GOTO")) {
-                                        if (checkGroupGotoFail(arr, tmp)) {
-                                            hit = true;
-                                            break;
-                                        }
-                                    } else if (command.equals("ENTERSYSTEM")) {
-                                        if (checkGroupEnterSystemFail(arr, tmp)) {
-                                            hit = true;
-                                            break;
-                                        }
-                                    }
+                            if (command.equals("DOCKED")) {
+                                if (checkGroupDockFail(arr, tmp)) {
+                                    break;
+                                }
+                            } else if (command.equals("GOTO")) {
+                                if (checkGroupGotoFail(arr, tmp)) {
+                                    break;
+                                }
+                            } else if (command.equals("ENTERSYSTEM")) {
+                                if (checkGroupEnterSystemFail(arr, tmp)) {
+                                    break;
                                 }
                             }
                         }
@@ -530,28 +476,7 @@ public class Campaign implements Serializable {
         //see if we are in the right system to check
         if (tmp.getCurrentSystem().getName().equals(lSys)) {
             //see if we are near this celestial
-            ArrayList<Entity> celestials = tmp.getCurrentSystem().getCelestialList();
-            Celestial pick = null;
-            for (int a = 0; a < celestials.size(); a++) {
-                if (celestials.get(a) instanceof Ship) {
-                    //make sure it isn't player owned. We don't want the player's named ships to confuse the script.
-                    Ship test = (Ship) celestials.get(a);
-                    if (test.getFaction().equals(universe.getPlayerShip().getFaction())) {
-                        //don't include this object
-                    } else {
-                        if (test.getName().equals(lEnt)) {
-                            pick = test;
-                            break;
-                        }
-                    }
-                } else if (celestials.get(a) instanceof Celestial) {
-                    Celestial test = (Celestial) celestials.get(a);
-                    if (test.getName().equals(lEnt)) {
-                        pick = test;
-                        break;
-                    }
-                }
-            }
+            Celestial pick = findGotoTarget(tmp.getCurrentSystem(), lEnt);
             //test distance
             if (pick != null) {
                 double d = tmp.distanceTo(pick);
@@ -572,30 +497,8 @@ public class Campaign implements Serializable {
     private void checkNoneAliveFail(String parameter) {
         //triggered when no ship/station of a certain group is left alive
         String group = parameter;
-        boolean foundOne = false;
-        //iterate through all entities to check groups
-        for (int a = 0; a < universe.getSystems().size(); a++) {
-            if (!foundOne) {
-                ArrayList<Entity> ships = universe.getSystems().get(a).getShipList();
-                ArrayList<Entity> stations = universe.getSystems().get(a).getStationList();
-                for (int b = 0; b < ships.size(); b++) {
-                    Ship tmp = (Ship) ships.get(b);
-                    if (tmp.getGroup().equals(group)) {
-                        foundOne = true;
-                        break;
-                    }
-                }
-                for (int b = 0; b < stations.size(); b++) {
-                    Ship tmp = (Ship) stations.get(b);
-                    if (tmp.getGroup().equals(group)) {
-                        foundOne = true;
-                        break;
-                    }
-                }
-            } else {
-                //no point
-            }
-        }
+        //ships and stations leave their group when they are removed from space
+        boolean foundOne = universe.getRegistry().hasGroup(group);
         //check to see if we found one
         if (!foundOne) {
             //trigger reached
@@ -816,18 +719,12 @@ public class Campaign implements Serializable {
         String name = split[5];
         String behave = split[6];
         //find the correct system
-        SolarSystem system = null;
-        for (int x = 0; x < universe.getSystems().size(); x++) {
-            if (universe.getSystems().get(x).getName().equals(sys)) {
-                system = universe.getSystems().get(x);
-                break;
-            }
-        }
+        SolarSystem system = universe.getRegistry().getSystem(sys);
         //generate coordinates
         double x = Double.parseDouble(sx);
         double y = Double.parseDouble(sy);
         //setup faction
-        Faction myFaction = new Faction(faction);
+        Faction myFaction = Universe.getFactions().get(faction);
         //setup behavior
         Behavior behavior = Behavior.NONE;
         if (behave.equals("PATROL")) {
@@ -859,18 +756,12 @@ public class Campaign implements Serializable {
         String load = split[4];
         String name = split[5];
         //find the correct system
-        SolarSystem system = null;
-        for (int x = 0; x < universe.getSystems().size(); x++) {
-            if (universe.getSystems().get(x).getName().equals(sys)) {
-                system = universe.getSystems().get(x);
-                break;
-            }
-        }
+        SolarSystem system = universe.getRegistry().getSystem(sys);
         //generate coordinates
         double x = Double.parseDouble(sx);
         double y = Double.parseDouble(sy);
         //setup faction
-        Faction myFaction = new Faction(faction);
+        Faction myFaction = Universe.getFactions().get(faction);
         //spawn station
         //spawnStation(Faction faction, SolarSystem system, Point2D.Double loc, String type, String name)
         universe.getGod().spawnStation(myFaction, system, new Point2D.Double(x, y), load, name, group, true);
@@ -878,7 +769,7 @@ public class Campaign implements Serializable {
     
     private void givePlayerCash(String param2) throws NumberFormatException {
         long mod = Long.parseLong(param2.trim());
-        universe.getPlayerShip().setCash(universe.getPlayerShip().getCash() + mod);
+        universe.getPlayerShip().addCash(mod);
     }
     
     private void setPlayerStanding(String param2) throws NumberFormatException {
@@ -0,0 +1,169 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Finds solar systems by name, and celestials by name or campaign group,
+ * without searching every system. Solar systems keep it up to date as things
+ * are put in and pulled out of them, so a group's members are the ships and
+ * stations of that group that are still in space.
+ *
+ * Projectiles and explosions come and go too quickly to be worth tracking and
+ * are never looked up, so they are left out.
+ */
+package universe;
+
+import celestial.Celestial;
+import celestial.Ship.Explosion;
+import celestial.Ship.Projectile;
+import celestial.Ship.Ship;
+import engine.Entity;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class EntityRegistry implements Serializable {
+
+    private final HashMap<String, SolarSystem> systems = new HashMap<>();
+    private final HashMap<String, ArrayList<Celestial>> names = new HashMap<>();
+    private final HashMap<String, ArrayList<Ship>> groups = new HashMap<>();
+    //the name and group each entity was registered under
+    private final IdentityHashMap<Celestial, String> registeredNames = new IdentityHashMap<>();
+    private final IdentityHashMap<Ship, String> registeredGroups = new IdentityHashMap<>();
+
+    public synchronized void addSystem(SolarSystem system) {
+        systems.put(system.getName(), system);
+    }
+
+    public synchronized void add(Entity entity) {
+        if (!isTracked(entity)) {
+            return;
+        }
+        Celestial tmp = (Celestial) entity;
+        if (registeredNames.containsKey(tmp)) {
+            return;
+        }
+        registeredNames.put(tmp, tmp.getName());
+        getList(names, tmp.getName()).add(tmp);
+        if (tmp instanceof Ship) {
+            Ship ship = (Ship) tmp;
+            if (ship.getGroup() != null) {
+                registeredGroups.put(ship, ship.getGroup());
+                getList(groups, ship.getGroup()).add(ship);
+            }
+        }
+    }
+
+    public synchronized void remove(Entity entity) {
+        if (!isTracked(entity)) {
+            return;
+        }
+        //by what it was registered under, it may have been renamed since
+        Celestial tmp = (Celestial) entity;
+        if (!registeredNames.containsKey(tmp)) {
+            return;
+        }
+        removeFrom(names, registeredNames.remove(tmp), tmp);
+        if (tmp instanceof Ship) {
+            String group = registeredGroups.remove((Ship) tmp);
+            if (group != null) {
+                removeFrom(groups, group, (Ship) tmp);
+            }
+        }
+    }
+
+    public synchronized void update(Entity entity) {
+        /*
+         * Called when an entity's name or group changes. Entities that aren't
+         * in space are ignored.
+         */
+        if (entity instanceof Celestial && registeredNames.containsKey((Celestial) entity)) {
+            remove(entity);
+            add(entity);
+        }
+    }
+
+    /*
+     * Lookups
+     */
+    public synchronized SolarSystem getSystem(String name) {
+        return systems.get(name);
+    }
+
+    public synchronized Celestial getCelestial(SolarSystem system, String name) {
+        //the first one with this name in the system
+        ArrayList<Celestial> list = names.get(name);
+        if (list != null) {
+            for (int a = 0; a < list.size(); a++) {
+                if (list.get(a).getCurrentSystem() == system) {
+                    return list.get(a);
+                }
+            }
+        }
+        return null;
+    }
+
+    public synchronized ArrayList<Celestial> getCelestials(String name) {
+        ArrayList<Celestial> list = names.get(name);
+        return list != null ? new ArrayList<>(list) : new ArrayList<Celestial>();
+    }
+
+    public synchronized ArrayList<Ship> getGroup(String group) {
+        //a copy, campaign scripts can spawn or remove ships while using it
+        ArrayList<Ship> list = groups.get(group);
+        return list != null ? new ArrayList<>(list) : new ArrayList<Ship>();
+    }
+
+    public synchronized boolean hasGroup(String group) {
+        return groups.containsKey(group);
+    }
+
+    /*
+     * Upkeep
+     */
+    private boolean isTracked(Entity entity) {
+        return entity instanceof Celestial
+                && !(entity instanceof Projectile)
+                && !(entity instanceof Explosion);
+    }
+
+    private <T> ArrayList<T> getList(HashMap<String, ArrayList<T>> map, String key) {
+        ArrayList<T> list = map.get(key);
+        if (list == null) {
+            list = new ArrayList<>();
+            map.put(key, list);
+        }
+        return list;
+    }
+
+    private <T> void removeFrom(HashMap<String, ArrayList<T>> map, String key, T value) {
+        ArrayList<T> list = map.get(key);
+        if (list != null) {
+            for (int a = 0; a < list.size(); a++) {
+                if (list.get(a) == value) {
+                    list.remove(a);
+                    break;
+                }
+            }
+            if (list.isEmpty()) {
+                map.remove(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Index of who buys and sells each ware in a solar system, and for how much.
+ * Stations report every change to their stock so the offers are always
+ * sorted best first, which lets traders plan routes without visiting every
+ * station.
+ *
+ * Traders read the markets of other systems while those systems are being
+ * updated, so the offers for a ware are never changed in place. An update
+ * builds a new array and swaps it in.
+ */
+package universe;
+
+import cargo.Item;
+import celestial.Ship.Ship;
+import celestial.Ship.Station;
+import engine.Entity;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class Market {
+
+    public static class Offer {
+
+        private final Station station;
+        private final int price;
+
+        public Offer(Station station, int price) {
+            this.station = station;
+            this.price = price;
+        }
+
+        public Station getStation() {
+            return station;
+        }
+
+        public int getPrice() {
+            return price;
+        }
+    }
+    private static final Offer[] NONE = new Offer[0];
+    //stations selling each ware, cheapest first
+    private final ConcurrentHashMap<String, Offer[]> asks = new ConcurrentHashMap<>();
+    //stations buying each ware, best paying first
+    private final ConcurrentHashMap<String, Offer[]> bids = new ConcurrentHashMap<>();
+
+    public synchronized void rebuild(ArrayList<Entity> stations) {
+        asks.clear();
+        bids.clear();
+        for (int a = 0; a < stations.size(); a++) {
+            addStation((Station) stations.get(a));
+        }
+    }
+
+    public synchronized void addStation(Station station) {
+        ArrayList<Item> selling = station.getStationSelling();
+        for (int a = 0; a < selling.size(); a++) {
+            putOffer(asks, selling.get(a).getName(), station, station.getPrice(selling.get(a)), true);
+        }
+        ArrayList<Item> buying = station.getStationBuying();
+        for (int a = 0; a < buying.size(); a++) {
+            putOffer(bids, buying.get(a).getName(), station, station.getPrice(buying.get(a)), false);
+        }
+    }
+
+    public synchronized void removeStation(Station station) {
+        ArrayList<Item> selling = station.getStationSelling();
+        for (int a = 0; a < selling.size(); a++) {
+            removeOffer(asks, selling.get(a).getName(), station);
+        }
+        ArrayList<Item> buying = station.getStationBuying();
+        for (int a = 0; a < buying.size(); a++) {
+            removeOffer(bids, buying.get(a).getName(), station);
+        }
+    }
+
+    public synchronized void update(Station station, Item ware) {
+        /*
+         * Called when the station's stock of a ware changed, which moves its
+         * price.
+         */
+        int price = station.getPrice(ware);
+        if (station.sellsWare(ware)) {
+            putOffer(asks, ware.getName(), station, price, true);
+        }
+        if (station.buysWare(ware)) {
+            putOffer(bids, ware.getName(), station, price, false);
+        }
+    }
+
+    public Offer[] getAsks(String ware) {
+        Offer[] ret = asks.get(ware);
+        return ret != null ? ret : NONE;
+    }
+
+    public Offer[] getBids(String ware) {
+        Offer[] ret = bids.get(ware);
+        return ret != null ? ret : NONE;
+    }
+
+    public Offer getBestAsk(String ware, Ship client) {
+        return firstDockable(getAsks(ware), client);
+    }
+
+    public Offer getBestBid(String ware, Ship client) {
+        return firstDockable(getBids(ware), client);
+    }
+
+    public Set<String> getWaresSold() {
+        return asks.keySet();
+    }
+
+    public Set<String> getWaresBought() {
+        return bids.keySet();
+    }
+
+    private Offer firstDockable(Offer[] offers, Ship client) {
+        //the offers are sorted, so the first one the client can use is the best
+        for (int a = 0; a < offers.length; a++) {
+            if (client == null || offers[a].getStation().canDock(client)) {
+                return offers[a];
+            }
+        }
+        return null;
+    }
+
+    private void putOffer(ConcurrentHashMap<String, Offer[]> map, String ware, Station station, int price, boolean lowFirst) {
+        Offer[] old = map.get(ware);
+        if (old == null) {
+            old = NONE;
+        }
+        Offer offer = new Offer(station, price);
+        Offer[] ret = new Offer[old.length + 1];
+        int n = 0;
+        boolean placed = false;
+        for (int a = 0; a < old.length; a++) {
+            if (old[a].getStation() == station) {
+                //replaced by the new offer
+                continue;
+            }
+            if (!placed && (lowFirst ? price < old[a].getPrice() : price > old[a].getPrice())) {
+                ret[n++] = offer;
+                placed = true;
+            }
+            ret[n++] = old[a];
+        }
+        if (!placed) {
+            ret[n++] = offer;
+        }
+        if (n < ret.length) {
+            Offer[] tmp = new Offer[n];
+            System.arraycopy(ret, 0, tmp, 0, n);
+            ret = tmp;
+        }
+        map.put(ware, ret);
+    }
+
+    private void removeOffer(ConcurrentHashMap<String, Offer[]> map, String ware, Station station) {
+        Offer[] old = map.get(ware);
+        if (old == null) {
+            return;
+        }
+        ArrayList<Offer> ret = new ArrayList<>();
+        for (int a = 0; a < old.length; a++) {
+            if (old[a].getStation() != station) {
+                ret.add(old[a]);
+            }
+        }
+        if (ret.isEmpty()) {
+            map.remove(ware);
+        } else {
+            map.put(ware, ret.toArray(new Offer[ret.size()]));
+        }
+    }
+}
@@ -18,6 +18,7 @@
  */
 package universe;
 
+import cargo.CargoBay;
 import cargo.Item;
 import celestial.Ship.Ship;
 import celestial.Ship.Station;
@@ -360,7 +361,7 @@ public class Mission implements Serializable {
     private void completeMission() {
         if (!aborted) {
             //pay player
-            agent.getUniverse().getPlayerShip().setCash(agent.getUniverse().getPlayerShip().getCash() + reward);
+            agent.getUniverse().getPlayerShip().addCash(reward);
             //update standing
             agent.getUniverse().getPlayerShip().getMyFaction().derivedModification(agent.getMyFaction(), deltaStanding);
             //remove this mission
@@ -442,12 +443,12 @@ public class Mission implements Serializable {
                     Station dck = (Station) deliverTo;
                     if (dck.hasDocked(test)) {
                         //find the item
-                        ArrayList<Item> bay = test.getCargoBay();
+                        CargoBay bay = test.getCargoBay();
                         for (int b = 0; b < bay.size(); b++) {
                             Item t = bay.get(b);
-                            if (t.getName().equals(deliver.getName())) {
+                            if (t.isSameType(deliver)) {
                                 if (t.getQuantity() == deliver.getQuantity()) {
-                                    bay.remove(b);
+                                    bay.remove(t);
                                     return true;
                                 }
                             }
@@ -0,0 +1,159 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Running counts of the living ships in a solar system by faction and
+ * loadout and by faction and behavior, and of its living stations by faction
+ * and type. God uses these to decide what to spawn instead of counting every
+ * ship for every loadout.
+ *
+ * The system reports ships coming and going, and ships report when they die,
+ * come back, change faction or change behavior. What each ship was counted
+ * as is remembered so it can be taken back out after it changes.
+ */
+package universe;
+
+import celestial.Ship.Explosion;
+import celestial.Ship.Projectile;
+import celestial.Ship.Ship;
+import celestial.Ship.Ship.Behavior;
+import celestial.Ship.Station;
+import engine.Entity;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class Population {
+
+    //what each ship in the system is counted as, null if it isn't alive
+    private final IdentityHashMap<Ship, String> counted = new IdentityHashMap<>();
+    //what each ship is counted as by behavior, null for stations
+    private final IdentityHashMap<Ship, String> roles = new IdentityHashMap<>();
+    private final HashMap<String, Integer> ships = new HashMap<>();
+    private final HashMap<String, Integer> stations = new HashMap<>();
+    private final HashMap<String, Integer> behaviors = new HashMap<>();
+
+    public synchronized void rebuild(ArrayList<Entity> entities) {
+        counted.clear();
+        roles.clear();
+        ships.clear();
+        stations.clear();
+        behaviors.clear();
+        for (int a = 0; a < entities.size(); a++) {
+            add(entities.get(a));
+        }
+    }
+
+    public synchronized void add(Entity entity) {
+        if (!isCounted(entity)) {
+            return;
+        }
+        Ship ship = (Ship) entity;
+        if (!counted.containsKey(ship)) {
+            String key = keyOf(ship);
+            counted.put(ship, key);
+            change(countsFor(ship), key, 1);
+            String role = roleOf(ship);
+            roles.put(ship, role);
+            change(behaviors, role, 1);
+        }
+    }
+
+    public synchronized void remove(Entity entity) {
+        if (!isCounted(entity)) {
+            return;
+        }
+        Ship ship = (Ship) entity;
+        if (counted.containsKey(ship)) {
+            change(countsFor(ship), counted.remove(ship), -1);
+            change(behaviors, roles.remove(ship), -1);
+        }
+    }
+
+    public synchronized void update(Ship ship) {
+        /*
+         * Called when a ship dies, comes back, changes faction or changes
+         * behavior. Ships that aren't in this system are ignored.
+         */
+        if (counted.containsKey(ship)) {
+            String key = keyOf(ship);
+            change(countsFor(ship), counted.put(ship, key), -1);
+            change(countsFor(ship), key, 1);
+            String role = roleOf(ship);
+            change(behaviors, roles.put(ship, role), -1);
+            change(behaviors, role, 1);
+        }
+    }
+
+    public synchronized int countShips(int factionId, String template) {
+        Integer ret = ships.get(factionId + "/" + template);
+        return ret != null ? ret : 0;
+    }
+
+    public synchronized int countStations(int factionId, String type) {
+        Integer ret = stations.get(factionId + "/" + type);
+        return ret != null ? ret : 0;
+    }
+
+    public synchronized int countShipsByBehavior(int factionId, Behavior behavior) {
+        Integer ret = behaviors.get(factionId + "/" + behavior);
+        return ret != null ? ret : 0;
+    }
+
+    private boolean isCounted(Entity entity) {
+        return entity instanceof Ship
+                && !(entity instanceof Projectile)
+                && !(entity instanceof Explosion);
+    }
+
+    private String keyOf(Ship ship) {
+        if (ship.getState() != Entity.State.ALIVE) {
+            return null;
+        }
+        if (ship instanceof Station) {
+            return ship.getFactionId() + "/" + ship.getType();
+        } else {
+            return ship.getFactionId() + "/" + ship.getTemplate();
+        }
+    }
+
+    private String roleOf(Ship ship) {
+        if (ship.getState() != Entity.State.ALIVE || ship instanceof Station) {
+            return null;
+        }
+        return ship.getFactionId() + "/" + ship.getBehavior();
+    }
+
+    private HashMap<String, Integer> countsFor(Ship ship) {
+        return ship instanceof Station ? stations : ships;
+    }
+
+    private void change(HashMap<String, Integer> map, String key, int delta) {
+        if (key == null) {
+            return;
+        }
+        Integer old = map.get(key);
+        int count = (old != null ? old : 0) + delta;
+        if (count > 0) {
+            map.put(key, count);
+        } else {
+            map.remove(key);
+        }
+    }
+}
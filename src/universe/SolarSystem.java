@@ -26,11 +26,14 @@ import celestial.Asteroid;
 import celestial.Celestial;
 import celestial.Jumphole;
 import celestial.Planet;
+import celestial.Ship.CargoPod;
+import celestial.Ship.Explosion;
 import celestial.Ship.Projectile;
 import celestial.Ship.Ship;
 import celestial.Ship.Station;
 import celestial.Star;
 import engine.Entity;
+import engine.Profiler;
 import java.awt.Graphics;
 import java.awt.Rectangle;
 import java.io.Serializable;
@@ -69,6 +72,20 @@ public class SolarSystem implements Entity, Serializable {
     private final Universe universe;
     //for making cleanup more efficient
     private boolean hasGraphics = false;
+    //collision broad phase, rebuilt every tick
+    private transient SpatialGrid collisionGrid;
+    //ship and station lookups for the AI, rebuilt every tick
+    private transient SpatialIndex spatialIndex;
+    //who buys and sells what, kept up to date by the stations
+    private transient volatile Market market;
+    //living ships and stations by faction, for god
+    private transient volatile Population population;
+    //reduced fidelity simulation while the player is elsewhere
+    private transient boolean coarse = false;
+    private transient double coarseTime = 0;
+    //update timing
+    public static final String PROFILER_PREFIX = "system: ";
+    private transient Profiler.Phase phase;
 
     public SolarSystem(Universe universe, String name, Parser parse) {
         this.name = name; //needed for lookup
@@ -254,12 +271,10 @@ public class SolarSystem implements Entity, Serializable {
             }
             //put it in the right system next to the start object
             if (near != null) {
-                for (int b = 0; b < entities.size(); b++) {
-                    if (entities.get(b).getName().equals(near)) {
-                        ret.setX(entities.get(b).getX() + rnd.nextInt(12800) - 6400);
-                        ret.setY(entities.get(b).getY() + rnd.nextInt(12800) - 6400);
-                        break;
-                    }
+                Celestial pick = universe.getRegistry().getCelestial(this, near);
+                if (pick != null) {
+                    ret.setX(pick.getX() + rnd.nextInt(12800) - 6400);
+                    ret.setY(pick.getY() + rnd.nextInt(12800) - 6400);
                 }
             } else {
                 //it was given specific xy coordinates i guess
@@ -295,12 +310,10 @@ public class SolarSystem implements Entity, Serializable {
             ret.setFaction(faction);
             //put it in the right system next to the start object
             if (near != null) {
-                for (int b = 0; b < entities.size(); b++) {
-                    if (entities.get(b).getName().equals(near)) {
-                        ret.setX(entities.get(b).getX() + rnd.nextInt(2000) - 1000);
-                        ret.setY(entities.get(b).getY() + rnd.nextInt(2000) - 1000);
-                        break;
-                    }
+                Celestial pick = universe.getRegistry().getCelestial(this, near);
+                if (pick != null) {
+                    ret.setX(pick.getX() + rnd.nextInt(2000) - 1000);
+                    ret.setY(pick.getY() + rnd.nextInt(2000) - 1000);
                 }
             } else {
                 //it was given specific xy coordinates i guess
@@ -351,6 +364,60 @@ public class SolarSystem implements Entity, Serializable {
         this.entities = celestials;
     }
 
+    public SpatialGrid getCollisionGrid() {
+        if (collisionGrid == null) {
+            collisionGrid = new SpatialGrid();
+        }
+        return collisionGrid;
+    }
+
+    public SpatialIndex getSpatialIndex() {
+        if (spatialIndex == null) {
+            spatialIndex = new SpatialIndex();
+            spatialIndex.rebuild(entities);
+        }
+        return spatialIndex;
+    }
+
+    public Population getPopulation() {
+        //god counts from its own thread
+        Population ret = population;
+        if (ret == null) {
+            synchronized (this) {
+                if (population == null) {
+                    Population tmp = new Population();
+                    tmp.rebuild(entities);
+                    population = tmp;
+                }
+                ret = population;
+            }
+        }
+        return ret;
+    }
+
+    public void updatePopulation(Ship ship) {
+        //a ship in this system died or changed faction
+        if (population != null) {
+            population.update(ship);
+        }
+    }
+
+    public Market getMarket() {
+        //traders in other systems can be the first to ask
+        Market ret = market;
+        if (ret == null) {
+            synchronized (this) {
+                if (market == null) {
+                    Market tmp = new Market();
+                    tmp.rebuild(stationList);
+                    market = tmp;
+                }
+                ret = market;
+            }
+        }
+        return ret;
+    }
+
     public void putEntityInSystem(Entity entity) {
         entities.add(entity);
         if (entity instanceof Asteroid) {
@@ -367,18 +434,21 @@ public class SolarSystem implements Entity, Serializable {
         if (entity instanceof Station) {
             stationList.add(entity);
             Station test = (Station) entity;
-            if (test.getFaction().equals("Player")) {
+            if (market != null) {
+                market.addStation(test);
+            }
+            if (test.isPlayerFaction()) {
                 //yep, add it to the global list
-                universe.getPlayerProperty().add(entity);
+                universe.defer(() -> universe.getPlayerProperty().add(entity));
             }
         } else if (entity instanceof Ship) {
             shipList.add(entity);
             //is this player owned?
             if (!(entity instanceof Projectile)) {
                 Ship test = (Ship) entity;
-                if (test.getFaction().equals("Player")) {
+                if (test.isPlayerFaction()) {
                     //yep, add it to the global list
-                    universe.getPlayerProperty().add(entity);
+                    universe.defer(() -> universe.getPlayerProperty().add(entity));
                 }
             }
         } else if (entity instanceof Jumphole) {
@@ -386,6 +456,10 @@ public class SolarSystem implements Entity, Serializable {
         } else if (entity instanceof Celestial) {
             celestialList.add(entity);
         }
+        if (population != null) {
+            population.add(entity);
+        }
+        universe.getRegistry().add(entity);
     }
 
     public void pullEntityFromSystem(Entity entity) {
@@ -395,8 +469,22 @@ public class SolarSystem implements Entity, Serializable {
         celestialList.remove(entity);
         jumpholeList.remove(entity);
         asteroidList.remove(entity);
+        //don't hand it out as a collision candidate
+        if (collisionGrid != null) {
+            collisionGrid.remove(entity);
+        }
+        if (spatialIndex != null) {
+            spatialIndex.remove(entity);
+        }
+        if (market != null && entity instanceof Station) {
+            market.removeStation((Station) entity);
+        }
+        if (population != null) {
+            population.remove(entity);
+        }
+        universe.getRegistry().remove(entity);
         //remove from global list
-        universe.getPlayerProperty().remove(entity);
+        universe.defer(() -> universe.getPlayerProperty().remove(entity));
     }
 
     @Override
@@ -451,8 +539,109 @@ public class SolarSystem implements Entity, Serializable {
 
     @Override
     public void periodicUpdate(double tpf) {
+        /*
+         * Systems the player isn't in only step a few times a second, using
+         * the time that built up since their last step.
+         */
+        int oosRate = universe.getSettings().OOS_TICK_RATE;
+        coarse = oosRate > 0 && universe.getPlayerShip().getCurrentSystem() != this;
+        if (coarse) {
+            coarseTime += tpf;
+            if (coarseTime < 1.0 / oosRate) {
+                return;
+            }
+            tpf = coarseTime;
+        }
+        coarseTime = 0;
+        long start = System.nanoTime();
         updateEntities(tpf);
         updateSov();
+        getPhase().end(start);
+    }
+
+    private Profiler.Phase getPhase() {
+        if (phase == null) {
+            phase = Profiler.getPhase(PROFILER_PREFIX + name);
+        }
+        return phase;
+    }
+
+    public void collissionTest(double tpf) {
+        /*
+         * 1. Collissions are only tested between layers that hit each other (see COLLISION.txt).
+         * 2. Only entities sharing a grid cell are tested, and each pair only once.
+         */
+        SpatialGrid grid = getCollisionGrid();
+        grid.rebuild(entities);
+        for (int b = 0; b < grid.getMemberCount(); b++) {
+            Celestial first = grid.getMember(b);
+            if (first != null) {
+                ArrayList<Celestial> near = grid.getCandidates(b);
+                for (int c = 0; c < near.size(); c++) {
+                    if (first.collideWith(near.get(c))) {
+                        elasticCollision(first, near.get(c), tpf);
+                    }
+                }
+            }
+        }
+    }
+
+    private void elasticCollision(Entity a, Entity b, double tpf) {
+        //inform them of the collision for any special events
+        if (!(a instanceof Explosion) && !(b instanceof Explosion)) {
+            a.informOfCollisionWith(b);
+            b.informOfCollisionWith(a);
+        }
+        //physics time
+        if (a instanceof Celestial && b instanceof Celestial) {
+            /*
+             * I don't really want this physics being applied between projectiles
+             * and their targets.
+             */
+            if (!(a instanceof CargoPod || b instanceof CargoPod)) {
+                if (!(a instanceof Projectile || b instanceof Projectile)) {
+                    if (!(a instanceof Jumphole || b instanceof Jumphole)) {
+                        if (!(a instanceof Explosion || b instanceof Explosion)) {
+                            Celestial dummyA = (Celestial) a;
+                            Celestial dummyB = (Celestial) b;
+                            //get velocity and mass
+                            double aVx = dummyA.getVx();
+                            double aVy = dummyA.getVy();
+                            double aM = dummyA.getMass();
+                            double bVx = dummyB.getVx();
+                            double bVy = dummyB.getVy();
+                            double bM = dummyB.getMass();
+                            //push them apart to avoid double counting and overlap
+                            dummyA.setX(dummyA.getX() - aVx * tpf * 2.0);
+                            dummyA.setY(dummyA.getY() - aVy * tpf * 2.0);
+                            dummyB.setX(dummyB.getX() - bVx * tpf * 2.0);
+                            dummyB.setY(dummyB.getY() - bVy * tpf * 2.0);
+                            //determine center of mass's velocity
+                            double cVx = (aVx * aM + bVx * bM) / (aM + bM);
+                            double cVy = (aVy * aM + bVy * bM) / (aM + bM);
+                            //reverse directions and de-reference frame
+                            double aVx2 = -aVx + cVx;
+                            double aVy2 = -aVy + cVy;
+                            double bVx2 = -bVx + cVx;
+                            double bVy2 = -bVy + cVy;
+                            //store
+                            dummyA.setVx(aVx2);
+                            dummyA.setVy(aVy2);
+                            dummyB.setVx(bVx2);
+                            dummyB.setVy(bVy2);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    public boolean isCoarse() {
+        /*
+         * True while this system is being simulated at reduced fidelity:
+         * straight line autopilot and no collisions.
+         */
+        return coarse;
     }
 
     @Override
@@ -581,6 +770,8 @@ public class SolarSystem implements Entity, Serializable {
     }
 
     private void updateEntities(double tpf) {
+        //index everything where it is now
+        getSpatialIndex().rebuild(entities);
         for (int a = 0; a < entities.size(); a++) {
             entities.get(a).periodicUpdate(tpf);
             if (a < entities.size()) {
@@ -591,7 +782,7 @@ public class SolarSystem implements Entity, Serializable {
                     if (!entities.contains(universe.getPlayerShip())) {
                         Ship test = (Ship) entities.get(a);
                         //don't do OOS checks on player property obviously
-                        if (!test.getFaction().equals(universe.getPlayerShip().getFaction())) {
+                        if (test.getFactionId() != universe.getPlayerShip().getFactionId()) {
                             //remove entities the player can't see that are out of fuel
                             double fuelPercent = test.getFuel() / test.getMaxFuel();
                             if (fuelPercent < 0.03) {
@@ -641,7 +832,9 @@ public class SolarSystem implements Entity, Serializable {
             }
         }
         //cleanup graphics if the player is not present
-        if (!entities.contains(universe.playerShip) && universe.playerShip.getState() == State.ALIVE) {
+        if (Universe.isHeadless()) {
+            //nothing to draw
+        } else if (!entities.contains(universe.playerShip) && universe.playerShip.getState() == State.ALIVE) {
             if (hasGraphics) {
                 //ony called when the system had graphics
                 disposeGraphics();
@@ -661,7 +854,7 @@ public class SolarSystem implements Entity, Serializable {
             int count = 0;
             for (int a = 0; a < stationList.size(); a++) {
                 Station test = (Station) stationList.get(a);
-                if (test.getFaction().equals("Player")) {
+                if (test.isPlayerFaction()) {
                     count++;
                 }
             }
@@ -671,7 +864,7 @@ public class SolarSystem implements Entity, Serializable {
                 ArrayList<Faction> choices = new ArrayList<>();
                 ArrayList<Term> it = fp.getTermsOfType("Faction");
                 for (int a = 0; a < it.size(); a++) {
-                    Faction test = new Faction(it.get(a).getValue("name"));
+                    Faction test = Universe.getFactions().get(it.get(a).getValue("name"));
                     if (test.isEmpire()) {
                         choices.add(test);
                     }
@@ -693,17 +886,29 @@ public class SolarSystem implements Entity, Serializable {
     }
 
     private void discover() {
-        //add to discovered list if needed
-        if (universe.getDiscoveredSpace().contains(this)) {
-            //do nothing
-        } else {
-            //add to discovered space
-            universe.getDiscoveredSpace().add(this);
-        }
+        universe.defer(() -> {
+            //add to discovered list if needed
+            if (universe.getDiscoveredSpace().contains(this)) {
+                //do nothing
+            } else {
+                //add to discovered space
+                universe.getDiscoveredSpace().add(this);
+            }
+        });
     }
 
     @Override
     public boolean quickCollideWith(Rectangle target) {
         return false;
     }
+
+    @Override
+    public boolean intersects(double bx, double by, double bw, double bh) {
+        return false;
+    }
+
+    @Override
+    public boolean quickIntersects(double bx, double by, double bw, double bh) {
+        return false;
+    }
 }
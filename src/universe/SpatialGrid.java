@@ -0,0 +1,307 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Uniform grid spatial hash used as a collision broad phase. Each solar
+ * system keeps one of these and rebuilds it once per tick, after which the
+ * collision tester only looks at entities that share a cell.
+ *
+ * Cells live in an open addressing table keyed by the packed cell
+ * coordinates, so finding one doesn't box a key. Cells are kept between
+ * rebuilds and only dropped once they have gone unused for a while, so a
+ * system whose ships stay in the same area doesn't allocate.
+ */
+package universe;
+
+import celestial.Celestial;
+import engine.CollisionFilter;
+import engine.Entity;
+import java.util.ArrayList;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class SpatialGrid {
+
+    //size of a cell in world units
+    public static final int CELL_SIZE = 512;
+    //smallest box used for an entity, matches the coarse test in Celestial
+    public static final int MIN_EXTENT = 50;
+    //rebuilds a cell can go unused before it is dropped
+    public static final int CELL_MAX_AGE = 120;
+    //the cells, keyed by packed cell coordinates, null where a slot is free
+    private long[] keys = new long[1024];
+    private Cell[] table = new Cell[1024];
+    //spare table of the same size to move the cells being kept into
+    private long[] spareKeys = new long[1024];
+    private Cell[] spareTable = new Cell[1024];
+    private int cellCount = 0;
+    //counts rebuilds, used to age cells
+    private int rebuilds = 0;
+    //cells that received members during the last rebuild
+    private final ArrayList<Cell> active = new ArrayList<>();
+    //members in the order they were inserted
+    private final ArrayList<Celestial> members = new ArrayList<>();
+    //cell range covered by each member
+    private int[] minCx = new int[64];
+    private int[] minCy = new int[64];
+    private int[] maxCx = new int[64];
+    private int[] maxCy = new int[64];
+    //collision layer of each member
+    private int[] layer = new int[64];
+    //used to avoid returning the same candidate twice
+    private int[] mark = new int[64];
+    private int stamp = 0;
+    //reused result list
+    private final ArrayList<Celestial> candidates = new ArrayList<>();
+
+    public void rebuild(ArrayList<Entity> entities) {
+        /*
+         * Clears the grid and re-inserts every collidable entity at its
+         * current position. Entities whose layer hits nothing are left out.
+         */
+        CollisionFilter filter = Universe.getCache().getCollisionFilter();
+        for (int a = 0; a < active.size(); a++) {
+            active.get(a).size = 0;
+        }
+        active.clear();
+        members.clear();
+        rebuilds++;
+        for (int a = 0; a < entities.size(); a++) {
+            Entity tmp = entities.get(a);
+            if (tmp instanceof Celestial) {
+                Celestial cel = (Celestial) tmp;
+                if (filter.isActive(cel.getCollisionLayer())) {
+                    insert(cel);
+                }
+            }
+        }
+    }
+
+    private void insert(Celestial entity) {
+        int slot = members.size();
+        members.add(entity);
+        ensureCapacity(slot + 1);
+        //find the cells the coarse box covers
+        double ex = entity.getX();
+        double ey = entity.getY();
+        double ew = Math.max(entity.getWidth(), MIN_EXTENT);
+        double eh = Math.max(entity.getHeight(), MIN_EXTENT);
+        minCx[slot] = toCell(ex);
+        minCy[slot] = toCell(ey);
+        maxCx[slot] = toCell(ex + ew);
+        maxCy[slot] = toCell(ey + eh);
+        mark[slot] = -1;
+        layer[slot] = entity.getCollisionLayer();
+        for (int cx = minCx[slot]; cx <= maxCx[slot]; cx++) {
+            for (int cy = minCy[slot]; cy <= maxCy[slot]; cy++) {
+                Cell cell = getOrCreateCell(cx, cy);
+                if (cell.size == 0) {
+                    active.add(cell);
+                }
+                cell.lastUsed = rebuilds;
+                cell.add(slot);
+            }
+        }
+    }
+
+    public void remove(Entity entity) {
+        /*
+         * Blanks out a member that left the system mid-tick so it won't be
+         * handed out as a candidate again before the next rebuild.
+         */
+        int slot = members.indexOf(entity);
+        if (slot != -1) {
+            members.set(slot, null);
+        }
+    }
+
+    public int getMemberCount() {
+        return members.size();
+    }
+
+    public Celestial getMember(int slot) {
+        return members.get(slot);
+    }
+
+    public ArrayList<Celestial> getCandidates(int slot) {
+        /*
+         * Returns the members that share at least one cell with the given
+         * member, were inserted after it and are on a layer it can collide
+         * with. Walking every slot and pairing it with its candidates visits
+         * each unordered pair exactly once. The returned list is reused
+         * between calls.
+         */
+        CollisionFilter filter = Universe.getCache().getCollisionFilter();
+        candidates.clear();
+        if (members.get(slot) == null) {
+            return candidates;
+        }
+        stamp++;
+        for (int cx = minCx[slot]; cx <= maxCx[slot]; cx++) {
+            for (int cy = minCy[slot]; cy <= maxCy[slot]; cy++) {
+                Cell cell = findCell(cx, cy);
+                if (cell != null) {
+                    for (int a = 0; a < cell.size; a++) {
+                        int other = cell.slots[a];
+                        if (other > slot && mark[other] != stamp) {
+                            mark[other] = stamp;
+                            Celestial tmp = members.get(other);
+                            if (tmp != null && filter.canCollide(layer[slot], layer[other])) {
+                                candidates.add(tmp);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return candidates;
+    }
+
+    /*
+     * Cell table
+     */
+    private Cell findCell(int cx, int cy) {
+        long key = pack(cx, cy);
+        int mask = table.length - 1;
+        for (int i = hash(key) & mask; table[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return table[i];
+            }
+        }
+        return null;
+    }
+
+    private Cell getOrCreateCell(int cx, int cy) {
+        Cell cell = findCell(cx, cy);
+        if (cell == null) {
+            //keep the table at most half full
+            if ((cellCount + 1) * 2 > table.length) {
+                compact();
+            }
+            cell = new Cell();
+            place(keys, table, pack(cx, cy), cell);
+            cellCount++;
+        }
+        return cell;
+    }
+
+    private void compact() {
+        /*
+         * Moves the cells used recently into the spare table and drops the
+         * rest. The table only grows if the cells being kept still fill half
+         * of it.
+         */
+        int kept = 0;
+        for (int a = 0; a < table.length; a++) {
+            if (table[a] != null && rebuilds - table[a].lastUsed <= CELL_MAX_AGE) {
+                kept++;
+            }
+        }
+        int len = table.length;
+        while ((kept + 1) * 2 > len) {
+            len *= 2;
+        }
+        if (len != spareTable.length) {
+            spareKeys = new long[len];
+            spareTable = new Cell[len];
+        }
+        for (int a = 0; a < table.length; a++) {
+            if (table[a] != null && rebuilds - table[a].lastUsed <= CELL_MAX_AGE) {
+                place(spareKeys, spareTable, keys[a], table[a]);
+            }
+            table[a] = null;
+        }
+        //swap
+        long[] tk = keys;
+        Cell[] tt = table;
+        keys = spareKeys;
+        table = spareTable;
+        if (tt.length == len) {
+            spareKeys = tk;
+            spareTable = tt;
+        } else {
+            spareKeys = new long[len];
+            spareTable = new Cell[len];
+        }
+        cellCount = kept;
+    }
+
+    private static void place(long[] keys, Cell[] table, long key, Cell cell) {
+        int mask = table.length - 1;
+        int i = hash(key) & mask;
+        while (table[i] != null) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        table[i] = cell;
+    }
+
+    private static int hash(long key) {
+        //spread the packed coordinates over the table
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /*
+     * Utility
+     */
+    private static int toCell(double v) {
+        return (int) Math.floor(v / CELL_SIZE);
+    }
+
+    private static long pack(int cx, int cy) {
+        return (((long) cx) << 32) | (cy & 0xFFFFFFFFL);
+    }
+
+    private void ensureCapacity(int size) {
+        if (size > mark.length) {
+            int len = Math.max(size, mark.length * 2);
+            minCx = grow(minCx, len);
+            minCy = grow(minCy, len);
+            maxCx = grow(maxCx, len);
+            maxCy = grow(maxCy, len);
+            mark = grow(mark, len);
+            layer = grow(layer, len);
+        }
+    }
+
+    private static int[] grow(int[] arr, int len) {
+        int[] tmp = new int[len];
+        System.arraycopy(arr, 0, tmp, 0, arr.length);
+        return tmp;
+    }
+
+    private class Cell {
+        /*
+         * A bucket of member slots. The backing array is kept between
+         * rebuilds so steady state doesn't allocate.
+         */
+
+        private int[] slots = new int[8];
+        private int size = 0;
+        //rebuild this cell last had members in
+        private int lastUsed = 0;
+
+        public void add(int slot) {
+            if (size == slots.length) {
+                slots = grow(slots, slots.length * 2);
+            }
+            slots[size] = slot;
+            size++;
+        }
+    }
+}
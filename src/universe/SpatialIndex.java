@@ -0,0 +1,276 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Spatial index of the ships and stations in a solar system, used by the AI
+ * for sensor sweeps, targeting and collision avoidance. It is rebuilt at the
+ * start of every system update, so positions in the grid may be up to one
+ * tick old. Every query double checks candidates against their live
+ * position, which means the slack only costs a few extra candidates.
+ */
+package universe;
+
+import celestial.Celestial;
+import celestial.Ship.Ship;
+import engine.CollisionFilter;
+import engine.Entity;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class SpatialIndex {
+
+    //size of a cell in world units
+    public static final int CELL_SIZE = 2048;
+    //extra search distance to cover movement since the last rebuild
+    public static final int MOVE_SLACK = 256;
+    //every layer
+    public static final int ALL = 0xFFFFFFFF;
+
+    public interface Filter {
+
+        public boolean accept(Ship ship);
+    }
+    //the cells, keyed by packed cell coordinates
+    private final HashMap<Long, ArrayList<Ship>> cells = new HashMap<>();
+    //cells that received members during the last rebuild
+    private final ArrayList<ArrayList<Ship>> active = new ArrayList<>();
+    //which cell each member is in
+    private final IdentityHashMap<Ship, ArrayList<Ship>> owner = new IdentityHashMap<>();
+    //occupied extents
+    private int minCx;
+    private int minCy;
+    private int maxCx;
+    private int maxCy;
+    //largest half size of any member
+    private double maxHalf;
+
+    public void rebuild(ArrayList<Entity> entities) {
+        /*
+         * Clears the index and re-inserts every ship and station.
+         */
+        for (int a = 0; a < active.size(); a++) {
+            active.get(a).clear();
+        }
+        active.clear();
+        owner.clear();
+        //drop cells that haven't been used in a while so the map doesn't grow forever
+        if (cells.size() > 4096) {
+            cells.clear();
+        }
+        minCx = Integer.MAX_VALUE;
+        minCy = Integer.MAX_VALUE;
+        maxCx = Integer.MIN_VALUE;
+        maxCy = Integer.MIN_VALUE;
+        maxHalf = 0;
+        for (int a = 0; a < entities.size(); a++) {
+            if (entities.get(a) instanceof Ship) {
+                insert((Ship) entities.get(a));
+            }
+        }
+    }
+
+    private void insert(Ship ship) {
+        int cx = toCell(ship.getCenterX());
+        int cy = toCell(ship.getCenterY());
+        Long key = pack(cx, cy);
+        ArrayList<Ship> cell = cells.get(key);
+        if (cell == null) {
+            cell = new ArrayList<>();
+            cells.put(key, cell);
+        }
+        if (cell.isEmpty()) {
+            active.add(cell);
+        }
+        cell.add(ship);
+        owner.put(ship, cell);
+        //update extents
+        minCx = Math.min(minCx, cx);
+        minCy = Math.min(minCy, cy);
+        maxCx = Math.max(maxCx, cx);
+        maxCy = Math.max(maxCy, cy);
+        maxHalf = Math.max(maxHalf, halfSize(ship));
+    }
+
+    public void remove(Entity entity) {
+        /*
+         * Drops a member that left the system mid-tick.
+         */
+        ArrayList<Ship> cell = owner.remove(entity);
+        if (cell != null) {
+            cell.remove(entity);
+        }
+    }
+
+    /*
+     * Queries
+     */
+    public ArrayList<Ship> queryRadius(Celestial from, double range, int layers, Filter filter, ArrayList<Ship> out) {
+        /*
+         * Adds every member on one of the given layers whose distanceTo()
+         * from the given celestial is less than range to out.
+         */
+        if (owner.isEmpty()) {
+            return out;
+        }
+        double reach = range + halfSize(from) + maxHalf + MOVE_SLACK;
+        int x0 = Math.max(toCell(from.getCenterX() - reach), minCx);
+        int y0 = Math.max(toCell(from.getCenterY() - reach), minCy);
+        int x1 = Math.min(toCell(from.getCenterX() + reach), maxCx);
+        int y1 = Math.min(toCell(from.getCenterY() + reach), maxCy);
+        for (int cx = x0; cx <= x1; cx++) {
+            for (int cy = y0; cy <= y1; cy++) {
+                ArrayList<Ship> cell = cells.get(pack(cx, cy));
+                if (cell != null) {
+                    for (int a = 0; a < cell.size(); a++) {
+                        Ship tmp = cell.get(a);
+                        if (matches(tmp, layers, filter) && from.distanceTo(tmp) < range) {
+                            out.add(tmp);
+                        }
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    public ArrayList<Ship> queryRect(double x, double y, double w, double h, int layers, Filter filter, ArrayList<Ship> out) {
+        /*
+         * Adds every member on one of the given layers that might touch the
+         * given box to out. The filter is expected to do the exact test.
+         */
+        if (owner.isEmpty()) {
+            return out;
+        }
+        double pad = maxHalf + MOVE_SLACK;
+        int x0 = Math.max(toCell(x - pad), minCx);
+        int y0 = Math.max(toCell(y - pad), minCy);
+        int x1 = Math.min(toCell(x + w + pad), maxCx);
+        int y1 = Math.min(toCell(y + h + pad), maxCy);
+        for (int cx = x0; cx <= x1; cx++) {
+            for (int cy = y0; cy <= y1; cy++) {
+                ArrayList<Ship> cell = cells.get(pack(cx, cy));
+                if (cell != null) {
+                    for (int a = 0; a < cell.size(); a++) {
+                        Ship tmp = cell.get(a);
+                        if (matches(tmp, layers, filter)) {
+                            out.add(tmp);
+                        }
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    public Ship nearest(Celestial from, double range, int layers, Filter filter) {
+        ArrayList<Ship> tmp = nearest(from, range, 1, layers, filter);
+        if (tmp.isEmpty()) {
+            return null;
+        } else {
+            return tmp.get(0);
+        }
+    }
+
+    public ArrayList<Ship> nearest(Celestial from, double range, int k, int layers, Filter filter) {
+        /*
+         * Finds the k closest members within range, closest first. Cells are
+         * searched in rings around the caller and the search stops once no
+         * unsearched cell can hold anything closer than what was found.
+         */
+        ArrayList<Ship> ret = new ArrayList<>();
+        ArrayList<Double> dist = new ArrayList<>();
+        if (owner.isEmpty() || k < 1) {
+            return ret;
+        }
+        int ox = toCell(from.getCenterX());
+        int oy = toCell(from.getCenterY());
+        double pad = halfSize(from) + maxHalf + MOVE_SLACK;
+        //furthest ring that can contain anything
+        int maxRing = Math.max(Math.max(ox - minCx, maxCx - ox), Math.max(oy - minCy, maxCy - oy));
+        if (range < Double.MAX_VALUE / 2) {
+            maxRing = Math.min(maxRing, (int) Math.ceil((range + pad) / CELL_SIZE) + 1);
+        }
+        for (int r = 0; r <= maxRing; r++) {
+            //closest anything in this ring could be
+            double ringMin = (r - 1) * (double) CELL_SIZE - pad;
+            if (ret.size() == k && ringMin > dist.get(k - 1)) {
+                break;
+            }
+            for (int cx = ox - r; cx <= ox + r; cx++) {
+                for (int cy = oy - r; cy <= oy + r; cy++) {
+                    //only the border of the ring
+                    if (Math.abs(cx - ox) != r && Math.abs(cy - oy) != r) {
+                        continue;
+                    }
+                    ArrayList<Ship> cell = cells.get(pack(cx, cy));
+                    if (cell != null) {
+                        for (int a = 0; a < cell.size(); a++) {
+                            Ship tmp = cell.get(a);
+                            if (matches(tmp, layers, filter)) {
+                                double d = from.distanceTo(tmp);
+                                if (d < range) {
+                                    insertSorted(ret, dist, tmp, d, k);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return ret;
+    }
+
+    /*
+     * Utility
+     */
+    private static boolean matches(Ship ship, int layers, Filter filter) {
+        if ((layers & CollisionFilter.bit(ship.getCollisionLayer())) == 0) {
+            return false;
+        }
+        return filter == null || filter.accept(ship);
+    }
+
+    private static void insertSorted(ArrayList<Ship> ships, ArrayList<Double> dist, Ship ship, double d, int k) {
+        int at = ships.size();
+        while (at > 0 && dist.get(at - 1) > d) {
+            at--;
+        }
+        if (at < k) {
+            ships.add(at, ship);
+            dist.add(at, d);
+            if (ships.size() > k) {
+                ships.remove(k);
+                dist.remove(k);
+            }
+        }
+    }
+
+    private static double halfSize(Celestial cel) {
+        return Math.max(cel.getWidth() / 2, cel.getHeight() / 2);
+    }
+
+    private static int toCell(double v) {
+        return (int) Math.floor(v / CELL_SIZE);
+    }
+
+    private static long pack(int cx, int cy) {
+        return (((long) cx) << 32) | (cy & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Distances and jumphole links between solar systems. Systems never move
+ * and the jumpholes never change, so this is worked out once and answers
+ * which systems a jump drive can reach on some amount of fuel, and which
+ * systems each one links to.
+ */
+package universe;
+
+import celestial.Jumphole;
+import engine.Entity;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class StarMap {
+
+    //fuel used per unit of distance by a jump drive
+    public static final double JUMP_FUEL_PER_DISTANCE = 50;
+    private final ArrayList<SolarSystem> systems;
+    private final HashMap<SolarSystem, Integer> index = new HashMap<>();
+    //distance between each pair of systems
+    private final double[][] distance;
+    //every system sorted by distance from each system, closest first
+    private final ArrayList<List<SolarSystem>> byDistance = new ArrayList<>();
+    private final double[][] sortedDistance;
+    //systems linked to each system by a jumphole
+    private final ArrayList<List<SolarSystem>> links = new ArrayList<>();
+
+    public StarMap(ArrayList<SolarSystem> systems) {
+        this.systems = new ArrayList<>(systems);
+        int n = systems.size();
+        for (int a = 0; a < n; a++) {
+            index.put(systems.get(a), a);
+        }
+        distance = new double[n][n];
+        sortedDistance = new double[n][];
+        buildDistances();
+        buildLinks();
+    }
+
+    private void buildDistances() {
+        int n = systems.size();
+        for (int a = 0; a < n; a++) {
+            for (int b = 0; b < n; b++) {
+                double dx = systems.get(a).getX() - systems.get(b).getX();
+                double dy = systems.get(a).getY() - systems.get(b).getY();
+                distance[a][b] = Math.sqrt(dx * dx + dy * dy);
+            }
+        }
+        for (int a = 0; a < n; a++) {
+            final double[] row = distance[a];
+            Integer[] order = new Integer[n];
+            for (int b = 0; b < n; b++) {
+                order[b] = b;
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer o1, Integer o2) {
+                    return Double.compare(row[o1], row[o2]);
+                }
+            });
+            ArrayList<SolarSystem> sorted = new ArrayList<>();
+            sortedDistance[a] = new double[n];
+            for (int b = 0; b < n; b++) {
+                sorted.add(systems.get(order[b]));
+                sortedDistance[a][b] = row[order[b]];
+            }
+            byDistance.add(Collections.unmodifiableList(sorted));
+        }
+    }
+
+    private void buildLinks() {
+        HashMap<String, Integer> byName = new HashMap<>();
+        for (int a = 0; a < systems.size(); a++) {
+            byName.put(systems.get(a).getName(), a);
+        }
+        for (int a = 0; a < systems.size(); a++) {
+            ArrayList<SolarSystem> tmp = new ArrayList<>();
+            ArrayList<Entity> gates = systems.get(a).getJumpholeList();
+            for (int b = 0; b < gates.size(); b++) {
+                if (gates.get(b) instanceof Jumphole) {
+                    //the out link is system/gate
+                    String out = ((Jumphole) gates.get(b)).getOut().split("/")[0];
+                    Integer dest = byName.get(out);
+                    if (dest != null && dest != a && !tmp.contains(systems.get(dest))) {
+                        tmp.add(systems.get(dest));
+                    }
+                }
+            }
+            links.add(Collections.unmodifiableList(tmp));
+        }
+    }
+
+    /*
+     * Queries
+     */
+    public double getDistance(SolarSystem from, SolarSystem to) {
+        return distance[index.get(from)][index.get(to)];
+    }
+
+    public double getJumpFuelCost(SolarSystem from, SolarSystem to) {
+        //fuel cost is linear
+        return getDistance(from, to) * JUMP_FUEL_PER_DISTANCE;
+    }
+
+    public List<SolarSystem> getReachable(SolarSystem from, double fuel) {
+        /*
+         * Systems a jump drive could reach from a system using no more than
+         * the given fuel, closest first. The current system is included.
+         */
+        int a = index.get(from);
+        double[] sorted = sortedDistance[a];
+        //binary search for the first system that costs too much
+        int lo = 0;
+        int hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (fuel - sorted[mid] * JUMP_FUEL_PER_DISTANCE >= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return byDistance.get(a).subList(0, lo);
+    }
+
+    public List<SolarSystem> getLinks(SolarSystem system) {
+        return links.get(index.get(system));
+    }
+}
@@ -18,6 +18,7 @@
  */
 package universe;
 
+import celestial.Celestial;
 import celestial.Ship.Ship;
 import engine.Entity;
 import engine.God;
@@ -25,6 +26,8 @@ import engine.ResourceCache;
 import engine.SettingsManager;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import lib.FactionRegistry;
 import lib.Parser;
 import lib.Parser.Term;
 
@@ -37,6 +40,10 @@ public class Universe implements Serializable {
     private ArrayList<SolarSystem> systems = new ArrayList<>();
     private SettingsManager settings;
     private static final transient ResourceCache cache;
+    //shared factions
+    private static final transient FactionRegistry factions = new FactionRegistry();
+    //true when running without a display or sound
+    private static boolean headless = false;
     private transient God god;
     //player globals
     protected Ship playerShip;
@@ -45,6 +52,15 @@ public class Universe implements Serializable {
     private final ArrayList<Campaign> playerCampaigns = new ArrayList<>();
     private final ArrayList<Campaign> completedCampaigns = new ArrayList<>();
     private final ArrayList<SolarSystem> discoveredSpace = new ArrayList<>();
+    //systems and celestials by name, ships by group
+    private final EntityRegistry registry = new EntityRegistry();
+    //world changes waiting for the simulation thread
+    private transient volatile ConcurrentLinkedQueue<Runnable> deferred;
+    private transient volatile boolean deferring = false;
+    //the thread that runs the simulation, null until it first drains the queue
+    private transient volatile Thread simulationThread;
+    //distances and jumphole routes between systems
+    private transient volatile StarMap starMap;
 
     static {
         cache = new ResourceCache();
@@ -63,7 +79,9 @@ public class Universe implements Serializable {
         //generate the systems and add them
         System.out.println("Found " + solars.size() + " systems to make.");
         for (int a = 0; a < solars.size(); a++) {
-            getSystems().add(makeSystem(parse, solars.get(a)));
+            SolarSystem system = makeSystem(parse, solars.get(a));
+            registry.addSystem(system);
+            getSystems().add(system);
         }
         //generate the player
         ArrayList<Term> games = parse.getTermsOfType("NewGame");
@@ -129,26 +147,22 @@ public class Universe implements Serializable {
             player.addInitialCargo(cargo);
             player.setCash(Long.parseLong(cash));
             //put it in the right system next to the start object
-            for (int a = 0; a < systems.size(); a++) {
-                if (systems.get(a).getName().equals(system)) {
-                    systems.get(a).putEntityInSystem(player);
-                    if (near != null) {
-                        for (int b = 0; b < systems.get(a).getEntities().size(); b++) {
-                            if (systems.get(a).getEntities().get(b).getName().equals(near)) {
-                                player.setX(systems.get(a).getEntities().get(b).getX());
-                                player.setY(systems.get(a).getEntities().get(b).getY());
-                                break;
-                            }
-                        }
-                    } else {
-                        double px = Double.parseDouble(start.getValue("x"));
-                        double py = Double.parseDouble(start.getValue("y"));
-                        player.setX(px);
-                        player.setY(py);
+            SolarSystem home = registry.getSystem(system);
+            if (home != null) {
+                home.putEntityInSystem(player);
+                if (near != null) {
+                    Celestial pick = registry.getCelestial(home, near);
+                    if (pick != null) {
+                        player.setX(pick.getX());
+                        player.setY(pick.getY());
                     }
-                    player.setCurrentSystem(systems.get(a));
-                    break;
+                } else {
+                    double px = Double.parseDouble(start.getValue("x"));
+                    double py = Double.parseDouble(start.getValue("y"));
+                    player.setX(px);
+                    player.setY(py);
                 }
+                player.setCurrentSystem(home);
             }
             //store reference to player for quick access
             playerShip = player;
@@ -161,6 +175,21 @@ public class Universe implements Serializable {
 
     public void setSystems(ArrayList<SolarSystem> systems) {
         this.systems = systems;
+        starMap = null;
+    }
+
+    public StarMap getStarMap() {
+        //built once, ships in every system ask for it
+        StarMap ret = starMap;
+        if (ret == null) {
+            synchronized (this) {
+                if (starMap == null) {
+                    starMap = new StarMap(systems);
+                }
+                ret = starMap;
+            }
+        }
+        return ret;
     }
 
     public Ship getPlayerShip() {
@@ -168,6 +197,10 @@ public class Universe implements Serializable {
     }
 
     public void setPlayerShip(Ship playerShip) {
+        //the message que moves to the new ship
+        if (this.playerShip != null && playerShip != null && this.playerShip != playerShip) {
+            playerShip.setMessages(this.playerShip.getMessages());
+        }
         this.playerShip = playerShip;
     }
 
@@ -175,6 +208,18 @@ public class Universe implements Serializable {
         return cache;
     }
 
+    public static FactionRegistry getFactions() {
+        return factions;
+    }
+
+    public static boolean isHeadless() {
+        return headless;
+    }
+
+    public static void setHeadless(boolean headless) {
+        Universe.headless = headless;
+    }
+
     public God getGod() {
         if (god != null) {
             return god;
@@ -204,6 +249,10 @@ public class Universe implements Serializable {
         return !systems.isEmpty();
     }
 
+    public EntityRegistry getRegistry() {
+        return registry;
+    }
+
     public ArrayList<SolarSystem> getDiscoveredSpace() {
         return discoveredSpace;
     }
@@ -215,4 +264,75 @@ public class Universe implements Serializable {
     public ArrayList<Campaign> getCompletedCampaigns() {
         return completedCampaigns;
     }
+
+    /*
+     * World changes
+     */
+    public void defer(Runnable task) {
+        /*
+         * Anything that touches more than one solar system or the universe
+         * wide lists goes through here, as does anything putting entities
+         * into or out of space from another thread (god, the UI). While
+         * systems are being updated in parallel, or when called off the
+         * simulation thread, it is queued up for the simulation thread to
+         * apply between ticks. Otherwise it happens right away. Until a
+         * simulation thread is registered everything is queued.
+         */
+        if (deferring || Thread.currentThread() != simulationThread) {
+            getDeferred().add(task);
+        } else {
+            task.run();
+        }
+    }
+
+    public void setSimulationThread(Thread simulationThread) {
+        //the thread that ticks this universe and drains the queue
+        this.simulationThread = simulationThread;
+    }
+
+    public void beginDeferring() {
+        deferring = true;
+    }
+
+    public void endDeferring() {
+        /*
+         * Stops queueing and applies everything that was queued.
+         */
+        deferring = false;
+        drainDeferred();
+    }
+
+    public void drainDeferred() {
+        /*
+         * Called by the simulation thread once per tick, when nothing is
+         * iterating the entity lists. Applies queued changes in the order
+         * they were made.
+         */
+        ConcurrentLinkedQueue<Runnable> tasks = getDeferred();
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private ConcurrentLinkedQueue<Runnable> getDeferred() {
+        ConcurrentLinkedQueue<Runnable> ret = deferred;
+        if (ret == null) {
+            synchronized (this) {
+                if (deferred == null) {
+                    deferred = new ConcurrentLinkedQueue<>();
+                }
+                ret = deferred;
+            }
+        }
+        return ret;
+    }
+
+    public boolean isDeferring() {
+        return deferring;
+    }
 }